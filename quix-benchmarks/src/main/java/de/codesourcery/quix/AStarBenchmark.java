@@ -0,0 +1,82 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link AStar#findPath(int, int, NavMesh, AStar.Spy)} between
+ * opposite corners of a lattice playfield.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AStarBenchmark
+{
+    @Param({"10", "100", "1000", "10000"})
+    public int lineCount;
+
+    private final AStar astar = new AStar();
+    private NavMesh mesh;
+    private int start;
+    private int end;
+
+    @Setup
+    public void setup()
+    {
+        final NodeArena nodes = new NodeArena();
+        final Playfields.Lattice lattice = Playfields.createLattice( lineCount, Playfields.SEED );
+        new LineCollection( null, nodes ).addAll( lattice.lines );
+
+        start = lattice.node( 0, 0 ).id;
+        end = lattice.node( lattice.columns() - 1, lattice.rows() - 1 ).id;
+
+        mesh = new AbstractNavMesh( nodes )
+        {
+            @Override
+            public int getNeighbours(int node, NodeMarkers markers, int[] result)
+            {
+                final Node n = nodes.get( node );
+                int count = 0;
+                count = add( n, n.up, markers, result, count );
+                count = add( n, n.down, markers, result, count );
+                count = add( n, n.left, markers, result, count );
+                count = add( n, n.right, markers, result, count );
+                return count;
+            }
+
+            private int add(Node n, Line exit, NodeMarkers markers, int[] result, int count)
+            {
+                if ( exit != null )
+                {
+                    final int other = exit.getOther( n ).id;
+                    if ( ! markers.isClosed( other ) ) {
+                        result[count++] = other;
+                    }
+                }
+                return count;
+            }
+        };
+    }
+
+    @Benchmark
+    public List<Integer> findPath()
+    {
+        return astar.findPath( start, end, mesh, null );
+    }
+}
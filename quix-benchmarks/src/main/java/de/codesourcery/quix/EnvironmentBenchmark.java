@@ -0,0 +1,86 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks stepping a {@link VectorEnvironment} with random actions,
+ * finished games get reset right away.
+ *
+ * A <code>gridFactor</code> of 0 uses the {@link StateVectorEncoder}, any other value an
+ * {@link OccupancyGridEncoder} with that downsampling factor.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvironmentBenchmark
+{
+    @Param({"16"})
+    public int environments;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"0", "4"})
+    public int gridFactor;
+
+    private VectorEnvironment vector;
+    private ByteBuffer observations;
+    private int[] actions;
+    private float[] rewards;
+    private boolean[] dones;
+    private final Random rnd = new Random( Playfields.SEED );
+    private long nextSeed;
+
+    @Setup
+    public void setup()
+    {
+        vector = new VectorEnvironment( environments, threads,
+            () -> gridFactor == 0 ? new StateVectorEncoder() : new OccupancyGridEncoder( gridFactor ) );
+        observations = ByteBuffer.allocateDirect( environments * vector.getObservationSize() ).order( ByteOrder.nativeOrder() );
+        actions = new int[environments];
+        rewards = new float[environments];
+        dones = new boolean[environments];
+        vector.reset( nextSeed, observations );
+        nextSeed += environments;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        vector.close();
+    }
+
+    @Benchmark
+    public ByteBuffer step()
+    {
+        for ( int i = 0 ; i < environments ; i++ )
+        {
+            if ( dones[i] ) {
+                vector.reset( i, nextSeed++, observations );
+            }
+            actions[i] = rnd.nextInt( Controls.ALL + 1 );
+        }
+        vector.step( actions, rewards, dones, observations );
+        return observations;
+    }
+}
@@ -0,0 +1,67 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link QuixLine#tick(GameState)} and a full {@link GameState#tick()}
+ * on a lattice playfield.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark
+{
+    private static final int ENEMY_COUNT = 4;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int lineCount;
+
+    private GameState state;
+    private QuixLine quixLine;
+
+    @Setup
+    public void setup()
+    {
+        state = new GameState();
+        Playfields.populate( state, lineCount, ENEMY_COUNT, Playfields.SEED );
+
+        quixLine = new QuixLine( 50, 50, 75, 25 );
+    }
+
+    @Benchmark
+    public boolean quixLineTick()
+    {
+        return quixLine.tick( state );
+    }
+
+    @Benchmark
+    public GameState gameStateTick()
+    {
+        state.tick();
+        if ( state.gameOver )
+        {
+            // an enemy caught the player, respawn it elsewhere and keep going
+            final Player player = state.player;
+            state.getEnemies().removeIf( e -> player.dst2( e ) < GameState.ENEMY_RADIUS * GameState.ENEMY_RADIUS );
+            state.spawnEnemy();
+            state.gameOver = false;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,45 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Line#intersects(Line)} with a mix of horizontal, vertical and diagonal lines.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineBenchmark
+{
+    private static final int LINE_COUNT = 1024; // must be a power of two
+
+    private Line[] lines;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        lines = Playfields.createRandomLines( LINE_COUNT, 100, Playfields.SEED );
+    }
+
+    @Benchmark
+    public boolean intersects()
+    {
+        final int i = index++;
+        return lines[ i & ( LINE_COUNT - 1 ) ].intersects( lines[ ( i >>> 10 ) & ( LINE_COUNT - 1 ) ] );
+    }
+}
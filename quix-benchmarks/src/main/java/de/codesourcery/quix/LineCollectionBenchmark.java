@@ -0,0 +1,79 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks point and segment queries against a {@link LineCollection}
+ * that is set up the same way as the playfield of a {@link GameState}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineCollectionBenchmark
+{
+    private static final int QUERY_COUNT = 1024; // must be a power of two
+
+    @Param({"10", "100", "1000", "10000"})
+    public int lineCount;
+
+    private LineCollection collection;
+
+    private final int[] pointsX = new int[QUERY_COUNT];
+    private final int[] pointsY = new int[QUERY_COUNT];
+    private Line[] segments;
+
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        collection = new LineCollection( new LineRaster( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT ), new NodeArena() );
+        collection.addAll( Playfields.createLattice( lineCount, Playfields.SEED ).lines );
+
+        final Random rnd = new Random( Playfields.SEED );
+        for ( int i = 0 ; i < QUERY_COUNT ; i++ )
+        {
+            pointsX[i] = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+            pointsY[i] = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+        }
+        // roughly the size of a quix line
+        segments = Playfields.createRandomLines( QUERY_COUNT, 25, Playfields.SEED );
+    }
+
+    @Benchmark
+    public Line getLine()
+    {
+        final int i = index++ & ( QUERY_COUNT - 1 );
+        return collection.getLine( pointsX[i], pointsY[i] );
+    }
+
+    @Benchmark
+    public Line intersectsLine()
+    {
+        return collection.intersects( segments[ index++ & ( QUERY_COUNT - 1 ) ] );
+    }
+
+    @Benchmark
+    public Line intersectsCoordinates()
+    {
+        final Line l = segments[ index++ & ( QUERY_COUNT - 1 ) ];
+        return collection.intersects( l.x0(), l.y0(), l.x1(), l.y1() );
+    }
+}
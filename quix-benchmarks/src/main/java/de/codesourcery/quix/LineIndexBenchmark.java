@@ -0,0 +1,84 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link LineIndex} implementations on a playfield-like lattice.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineIndexBenchmark
+{
+    private static final int QUERY_COUNT = 1024; // must be a power of two
+
+    @Param({"100", "1000", "10000"})
+    public int lineCount;
+
+    @Param({"grid", "orthogonal"})
+    public String implementation;
+
+    private LineIndex index;
+
+    private final int[] pointsX = new int[QUERY_COUNT];
+    private final int[] pointsY = new int[QUERY_COUNT];
+    private Line[] segments;
+
+    private int counter;
+
+    @Setup
+    public void setup()
+    {
+        switch( implementation )
+        {
+            case "grid":
+                index = new LineGrid( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT, LineGrid.DEFAULT_CELL_SIZE );
+                break;
+            case "orthogonal":
+                index = new OrthogonalLineIndex();
+                break;
+            default:
+                throw new IllegalArgumentException( "Unknown implementation: " + implementation );
+        }
+        Playfields.createLattice( lineCount, Playfields.SEED ).lines.forEach( index::add );
+
+        final Random rnd = new Random( Playfields.SEED );
+        for ( int i = 0 ; i < QUERY_COUNT ; i++ )
+        {
+            pointsX[i] = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+            pointsY[i] = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+        }
+        // roughly the size of a quix line
+        segments = Playfields.createRandomLines( QUERY_COUNT, 25, Playfields.SEED );
+    }
+
+    @Benchmark
+    public Line getLine()
+    {
+        final int i = counter++ & ( QUERY_COUNT - 1 );
+        return index.getLine( pointsX[i], pointsY[i] );
+    }
+
+    @Benchmark
+    public Line intersects()
+    {
+        return index.intersects( segments[ counter++ & ( QUERY_COUNT - 1 ) ] );
+    }
+}
@@ -0,0 +1,278 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates deterministic playfields and polygons of a given size for benchmarking.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class Playfields
+{
+    public static final long SEED = 0xdeadbeefL;
+
+    private Playfields() {
+    }
+
+    /**
+     * A rectangular lattice of horizontal and vertical lines covering the playfield.
+     *
+     * Adjacent lines share their end nodes and all node exits are set up, so enemies
+     * can walk and A* can search the lattice just like a regular playfield.
+     */
+    public static final class Lattice
+    {
+        public final List<Line> lines = new ArrayList<>();
+
+        private final Node[][] nodes; // [row][column]
+
+        private Lattice(int cells)
+        {
+            nodes = new Node[cells + 1][cells + 1];
+        }
+
+        public int columns() {
+            return nodes[0].length;
+        }
+
+        public int rows() {
+            return nodes.length;
+        }
+
+        public Node node(int column,int row) {
+            return nodes[row][column];
+        }
+    }
+
+    /**
+     * Creates a lattice spanning the whole playfield.
+     *
+     * @param lineCount number of lines the lattice should have
+     * @param seed seed used to pick the interior lines that get dropped to arrive at exactly <code>lineCount</code> lines
+     * @return lattice
+     */
+    public static Lattice createLattice(int lineCount, long seed)
+    {
+        if ( lineCount < 4 ) {
+            throw new IllegalArgumentException( "Need at least 4 lines, got " + lineCount );
+        }
+
+        // smallest n*n cell lattice with at least lineCount edges
+        int cells = 1;
+        while ( 2 * cells * ( cells + 1 ) < lineCount ) {
+            cells++;
+        }
+        if ( GameState.PLAYFIELD_WIDTH / cells < 2 || GameState.PLAYFIELD_HEIGHT / cells < 2 ) {
+            throw new IllegalArgumentException( "Too many lines for playfield: " + lineCount );
+        }
+
+        final Lattice result = new Lattice( cells );
+        for ( int row = 0 ; row <= cells ; row++ )
+        {
+            for ( int col = 0 ; col <= cells ; col++ )
+            {
+                result.nodes[row][col] = new Node( coordinate( col, cells, GameState.PLAYFIELD_WIDTH ),
+                        coordinate( row, cells, GameState.PLAYFIELD_HEIGHT ) );
+            }
+        }
+
+        // drop randomly chosen interior lines so we end up with exactly lineCount lines.
+        // Border lines are always kept and no node is left with less than two exits
+        // so enemies never run into a dead end
+        final List<Line> horizontal = new ArrayList<>();
+        final List<Line> vertical = new ArrayList<>();
+        final List<Line> interior = new ArrayList<>();
+        final Reference2IntOpenHashMap<Node> exitCounts = new Reference2IntOpenHashMap<>();
+        for ( int row = 0 ; row <= cells ; row++ )
+        {
+            for ( int col = 0 ; col <= cells ; col++ )
+            {
+                final Node n = result.nodes[row][col];
+                if ( col < cells )
+                {
+                    final Line l = new Line( n, result.nodes[row][col + 1] );
+                    horizontal.add( l );
+                    if ( row > 0 && row < cells ) {
+                        interior.add( l );
+                    }
+                }
+                if ( row < cells )
+                {
+                    final Line l = new Line( n, result.nodes[row + 1][col] );
+                    vertical.add( l );
+                    if ( col > 0 && col < cells ) {
+                        interior.add( l );
+                    }
+                }
+            }
+        }
+        for ( Line l : horizontal ) {
+            exitCounts.addTo( l.node0, 1 );
+            exitCounts.addTo( l.node1, 1 );
+        }
+        for ( Line l : vertical ) {
+            exitCounts.addTo( l.node0, 1 );
+            exitCounts.addTo( l.node1, 1 );
+        }
+
+        Collections.shuffle( interior, new Random( seed ) );
+        final ReferenceOpenHashSet<Line> dropped = new ReferenceOpenHashSet<>();
+        final int toDrop = horizontal.size() + vertical.size() - lineCount;
+        for ( int i = 0, len = interior.size() ; i < len && dropped.size() < toDrop ; i++ )
+        {
+            final Line l = interior.get( i );
+            if ( exitCounts.getInt( l.node0 ) > 2 && exitCounts.getInt( l.node1 ) > 2 )
+            {
+                exitCounts.addTo( l.node0, -1 );
+                exitCounts.addTo( l.node1, -1 );
+                dropped.add( l );
+            }
+        }
+        if ( dropped.size() < toDrop ) {
+            throw new IllegalArgumentException( "Unable to create lattice with " + lineCount + " lines" );
+        }
+
+        for ( Line l : horizontal )
+        {
+            if ( ! dropped.contains( l ) ) {
+                l.node0.right = l;
+                l.node1.left = l;
+                result.lines.add( l );
+            }
+        }
+        for ( Line l : vertical )
+        {
+            if ( ! dropped.contains( l ) ) {
+                l.node0.down = l;
+                l.node1.up = l;
+                result.lines.add( l );
+            }
+        }
+        return result;
+    }
+
+    private static int coordinate(int index,int cells,int size)
+    {
+        return index == cells ? size : index * ( size / cells );
+    }
+
+    /**
+     * Replaces the playfield of a game with a lattice, puts the player into
+     * the top-left corner and (re-)spawns enemies.
+     *
+     * @param state game to modify
+     * @param lineCount number of playfield lines
+     * @param enemyCount number of enemies to spawn
+     * @param seed random seed
+     * @return the lattice that is now the playfield
+     */
+    public static Lattice populate(GameState state, int lineCount, int enemyCount, long seed)
+    {
+        final Lattice lattice = createLattice( lineCount, seed );
+
+        state.playfieldLines.clear();
+        state.playfieldLines.addAll( lattice.lines );
+
+        state.player.set( 0, 0 );
+        state.player.setCurrentLine( lattice.node( 0, 0 ).right );
+
+        state.getEnemies().clear();
+        for ( int i = 0 ; i < enemyCount ; i++ ) {
+            state.spawnEnemy();
+        }
+        return lattice;
+    }
+
+    /**
+     * Creates a convex polygon approximating a circle, vertices are in clockwise order.
+     *
+     * @param edgeCount number of edges, must be at least 3
+     * @param radius circle radius
+     * @return polygon
+     */
+    public static Poly createConvexPolygon(int edgeCount,int radius)
+    {
+        if ( edgeCount < 3 ) {
+            throw new IllegalArgumentException( "Need at least 3 edges, got " + edgeCount );
+        }
+        final List<Node> points = new ArrayList<>();
+        for ( int i = 0 ; i < edgeCount ; i++ )
+        {
+            final double angle = 2 * Math.PI * i / edgeCount;
+            points.add( new Node( radius + (int) Math.round( radius * Math.cos( angle ) ),
+                                  radius + (int) Math.round( radius * Math.sin( angle ) ) ) );
+        }
+        final Poly result = new Poly();
+        for ( int i = 0 ; i < edgeCount ; i++ ) {
+            result.add( new Line( points.get( i ), points.get( ( i + 1 ) % edgeCount ) ) );
+        }
+        return result;
+    }
+
+    /**
+     * Creates random line segments with arbitrary orientation inside the playfield.
+     *
+     * @param count number of lines
+     * @param maxLength maximum extent along each axis
+     * @param seed random seed
+     * @return lines
+     */
+    public static Line[] createRandomLines(int count,int maxLength,long seed)
+    {
+        final Random rnd = new Random( seed );
+        final Line[] result = new Line[count];
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            final int x0 = rnd.nextInt( GameState.PLAYFIELD_WIDTH - maxLength );
+            final int y0 = rnd.nextInt( GameState.PLAYFIELD_HEIGHT - maxLength );
+            final int x1, y1;
+            switch( rnd.nextInt( 3 ) )
+            {
+                case 0: // horizontal
+                    x1 = x0 + 1 + rnd.nextInt( maxLength );
+                    y1 = y0;
+                    break;
+                case 1: // vertical
+                    x1 = x0;
+                    y1 = y0 + 1 + rnd.nextInt( maxLength );
+                    break;
+                default:
+                    x1 = x0 + 1 + rnd.nextInt( maxLength );
+                    y1 = y0 + 1 + rnd.nextInt( maxLength );
+            }
+            result[i] = new Line( x0, y0, x1, y1 );
+        }
+        return result;
+    }
+
+    /**
+     * Records a session with pseudo-random input (same input model as {@link HeadlessRunner}).
+     *
+     * @param ticks number of ticks to record
+     * @param seed random seed for the input
+     * @return recording as written by {@link InputRecorder}
+     */
+    public static byte[] recordRandomSession(int ticks, long seed)
+    {
+        final GameState state = new GameState();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( InputRecorder recorder = new InputRecorder( out, GameLoop.DEFAULT_TICKS_PER_SECOND, state.getSeed() ) )
+        {
+            HeadlessRunner.simulate( state, ticks, seed, recorder );
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException( e );
+        }
+        return out.toByteArray();
+    }
+}
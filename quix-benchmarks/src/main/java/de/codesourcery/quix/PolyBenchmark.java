@@ -0,0 +1,48 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Poly#triangulate()} of a convex polygon.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolyBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int lineCount;
+
+    private Poly poly;
+
+    @Setup
+    public void setup()
+    {
+        // radius grows with the edge count so neighbouring vertices stay far enough
+        // apart for rounding not to produce collinear or concave vertices
+        poly = Playfields.createConvexPolygon( lineCount, Math.max( 5000, lineCount * 100 ) );
+    }
+
+    @Benchmark
+    public List<Poly> triangulate()
+    {
+        return poly.triangulate();
+    }
+}
@@ -0,0 +1,85 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the line closest to a point using a {@link ProximityIndex}
+ * against scanning all lines of a {@link SegmentTable}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProximityIndexBenchmark
+{
+    private static final int QUERY_COUNT = 1024; // must be a power of two
+
+    @Param({"100", "1000", "10000"})
+    public int lineCount;
+
+    private ProximityIndex index;
+    private SegmentTable table;
+    private float[] queries;
+    private int queryIdx;
+
+    @Setup
+    public void setup()
+    {
+        index = new ProximityIndex( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT, LineGrid.DEFAULT_CELL_SIZE );
+        table = new SegmentTable();
+        for ( Line line : Playfields.createRandomLines( lineCount, 100, Playfields.SEED ) )
+        {
+            index.add( line );
+            table.add( line );
+        }
+        final Random rnd = new Random( Playfields.SEED + 1 );
+        queries = new float[ QUERY_COUNT * 2 ];
+        for ( int i = 0 ; i < queries.length ; i += 2 )
+        {
+            queries[i] = rnd.nextFloat() * GameState.PLAYFIELD_WIDTH;
+            queries[i + 1] = rnd.nextFloat() * GameState.PLAYFIELD_HEIGHT;
+        }
+    }
+
+    @Benchmark
+    public Line index()
+    {
+        final int idx = ( queryIdx++ & ( QUERY_COUNT - 1 ) ) * 2;
+        return index.nearestLine( queries[idx], queries[idx + 1], Float.POSITIVE_INFINITY );
+    }
+
+    @Benchmark
+    public Line scan()
+    {
+        final int idx = ( queryIdx++ & ( QUERY_COUNT - 1 ) ) * 2;
+        final float x = queries[idx];
+        final float y = queries[idx + 1];
+        int closestRow = -1;
+        float dst2 = 0;
+        for ( int i = 0, len = table.size() ; i < len ; i++ )
+        {
+            final float tmp = LinAlg.dist2ToSegment( x, y, table.getX0( i ), table.getY0( i ), table.getX1( i ), table.getY1( i ) );
+            if ( closestRow == -1 || tmp < dst2 ) {
+                closestRow = i;
+                dst2 = tmp;
+            }
+        }
+        return closestRow == -1 ? null : table.getLine( closestRow );
+    }
+}
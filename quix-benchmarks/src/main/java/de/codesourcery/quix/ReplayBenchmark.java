@@ -0,0 +1,61 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded session as a realistic end-to-end load.
+ *
+ * Pass a recording made by {@link InputRecorder} using <code>-p recording=&lt;file&gt;</code>,
+ * by default a session with pseudo-random input is recorded during setup.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark
+{
+    private static final int GENERATED_TICKS = 1000;
+
+    @Param({""})
+    public String recording;
+
+    private InputReplayer replayer;
+    private GameState state;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        try ( InputStream in = recording.isEmpty() ?
+                new ByteArrayInputStream( Playfields.recordRandomSession( GENERATED_TICKS, Playfields.SEED ) ) :
+                new FileInputStream( recording ) )
+        {
+            replayer = new InputReplayer( in );
+        }
+        state = new GameState();
+    }
+
+    @Benchmark
+    public long replay()
+    {
+        return replayer.replay( state );
+    }
+}
@@ -0,0 +1,79 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares counting all lines that intersect a segment using a {@link SegmentTable}
+ * against testing each {@link Line} of a list in turn.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentTableBenchmark
+{
+    private static final int QUERY_COUNT = 1024; // must be a power of two
+
+    @Param({"1000", "10000", "100000"})
+    public int lineCount;
+
+    private List<Line> lines;
+    private SegmentTable table;
+    private Line[] queries;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        lines = List.of( Playfields.createRandomLines( lineCount, 100, Playfields.SEED ) );
+        table = new SegmentTable();
+        lines.forEach( table::add );
+        // roughly the size of a quix line
+        queries = Playfields.createRandomLines( QUERY_COUNT, 25, Playfields.SEED + 1 );
+    }
+
+    @Benchmark
+    public int table()
+    {
+        final Line q = queries[ index++ & ( QUERY_COUNT - 1 ) ];
+        final SegmentTable table = this.table;
+        int count = 0;
+        for ( int row = table.firstHit( q.x0(), q.y0(), q.x1(), q.y1(), 0 ) ; row != -1 ;
+              row = table.firstHit( q.x0(), q.y0(), q.x1(), q.y1(), row + 1 ) )
+        {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int lines()
+    {
+        final Line q = queries[ index++ & ( QUERY_COUNT - 1 ) ];
+        final List<Line> lines = this.lines;
+        int count = 0;
+        for ( int i = 0, len = lines.size() ; i < len ; i++ )
+        {
+            if ( lines.get( i ).intersects( q ) ) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,60 @@
+package de.codesourcery.quix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link GameState#snapshot(GameStateSnapshot)} and {@link GameState#restore(GameStateSnapshot)}
+ * on a lattice playfield.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark
+{
+    private static final int ENEMY_COUNT = 4;
+
+    @Param({"100", "1000", "10000"})
+    public int lineCount;
+
+    private GameState state;
+    private GameState copy;
+    private GameStateSnapshot snapshot;
+
+    @Setup
+    public void setup()
+    {
+        state = new GameState();
+        Playfields.populate( state, lineCount, ENEMY_COUNT, Playfields.SEED );
+        snapshot = state.snapshot();
+        copy = new GameState();
+    }
+
+    @Benchmark
+    public GameStateSnapshot snapshot()
+    {
+        return state.snapshot( snapshot );
+    }
+
+    @Benchmark
+    public GameState restore()
+    {
+        copy.restore( snapshot );
+        return copy;
+    }
+}
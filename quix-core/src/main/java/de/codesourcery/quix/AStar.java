@@ -1,9 +1,7 @@
 package de.codesourcery.quix;
 
-import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -20,10 +18,9 @@ public class AStar
 {
     private static final boolean DEBUG = false;
 
-    // max. number of nodes that may be visited
-    // Exceeding this number will make the min-heap crash
-    // as it uses a fixed-length array
-    private static final int MAX_NODES = 256;
+    // number of nodes internal memory is initially sized for,
+    // grows on demand (and stays that size for subsequent searches)
+    private static final int INITIAL_NODES = 256;
 
     // max. number of nodes any node in the NavMesh may have
     private static final int MAX_NEIGHBOURS = 4;
@@ -44,7 +41,7 @@ public class AStar
     private int nodeCount;
 
     // node data
-    private final int[] nodeData = new int[ MAX_NODES * NODE_DATA_SIZE ];
+    private int[] nodeData = new int[ INITIAL_NODES * NODE_DATA_SIZE ];
 
     public interface Spy
     {
@@ -53,14 +50,12 @@ public class AStar
 
     private NavMesh navMesh;
 
-    // close list
-    // holds external IDs of visited nodes
-    private final IntOpenHashSet closedList = new IntOpenHashSet();
+    // open and close list membership, keyed by external node ID.
+    // Also maps external node IDs on the open list to internal node IDs.
+    private final NodeMarkers markers = new NodeMarkers();
+    private final MinHeap openListHeap = new MinHeap(INITIAL_NODES);
 
-    // open list
-    // key is external node ID, value is internal node ID
-    private final Int2IntArrayMap openList = new Int2IntArrayMap();
-    private final MinHeap openListHeap = new MinHeap(1024);
+    private final int[] neighbourCoords = new int[ MAX_NEIGHBOURS ];
 
     /**
      * Reset internal state before initiating
@@ -69,8 +64,7 @@ public class AStar
     private void reset()
     {
         nodeCount = 0;
-        closedList.clear();
-        openList.clear();
+        markers.reset();
         openListHeap.clear();
     }
 
@@ -100,9 +94,7 @@ public class AStar
         setParent( intNodeId,-1 ); // mark this is as the first node
         putOnOpenList( intNodeId, startNodeExtId );
 
-        final int[] neighbourCoords = new int[ MAX_NEIGHBOURS ];
         int currentSquareIntId;
-        int previousSquareIntId=-1;
 
         /*
          * 2. Repeat the following:
@@ -127,33 +119,28 @@ public class AStar
 
                 // we reached the destination
                 final List<Integer> result = new ArrayList<>();
-                result.add( currSquareExtId );
-                do {
-                    final int extId = getExternalNodeId( previousSquareIntId );
-                    result.add( extId );
-                    previousSquareIntId = getParent( previousSquareIntId );
-                } while ( previousSquareIntId != -1 );
+                for ( int id = currentSquareIntId ; id != -1 ; id = getParent( id ) ) {
+                    result.add( getExternalNodeId( id ) );
+                }
                 Collections.reverse(result);
                 return result;
             }
 
-            openList.remove( currSquareExtId );
-
             /*
              * B). Switch it to the closed list.
              */
-            closedList.add( currSquareExtId );
+            markers.markClosed( currSquareExtId );
 
             /*
 C) For each of the neighbours adjacent to the current square …
 
     If it is not walkable or if it is on the closed list, ignore it. Otherwise do the following.
              */
-            final int neighbourCount = navMesh.getNeighbours( currSquareExtId, closedList,neighbourCoords);
+            final int neighbourCount = navMesh.getNeighbours( currSquareExtId, markers, neighbourCoords );
             for ( int i = 0 ; i < neighbourCount ; i++ )
             {
                 final int extId = neighbourCoords[i];
-                if ( ! openList.containsKey( extId ) )
+                if ( ! markers.isOpen( extId ) )
                 {
                     // neighbour is walkable, not on the close list and not on the open list
                     /*
@@ -179,20 +166,16 @@ C) For each of the neighbours adjacent to the current square …
       you may need to resort the list to account for the change.
 
                      */
-                    final int childIntId = openList.get( extId );
-                    final int oldG = getG( currentSquareIntId );
-                    final int newG = getG( childIntId );
-                    if ( newG < oldG ) {
+                    final int childIntId = markers.getInternalId( extId );
+                    final int newG = calcG( currentSquareIntId, childIntId );
+                    if ( newG < getG( childIntId ) ) {
                         setParent( childIntId, currentSquareIntId );
-                        final int g = calcG( currentSquareIntId, childIntId );
                         h = getH( childIntId );
-                        setFGH( childIntId, g+h, g, h);
-                        openListHeap.remove( childIntId );
-                        openListHeap.insert( childIntId );
+                        setFGH( childIntId, newG+h, newG, h);
+                        openListHeap.decreaseKey( childIntId );
                     }
                 }
             }
-            previousSquareIntId = currentSquareIntId;
         }
 /*
 
@@ -252,7 +235,7 @@ D) Stop when you:
      */
     private void putOnOpenList(int intNodeId,int extNodeId)
     {
-        openList.put(extNodeId,intNodeId);
+        markers.markOpen(extNodeId,intNodeId);
         openListHeap.insert(intNodeId);
     }
 
@@ -263,6 +246,15 @@ D) Stop when you:
      */
     private int createInternalNode(int extNodeId) throws OutOfPathMemoryException
     {
+        if ( (nodeCount+1) * NODE_DATA_SIZE > nodeData.length )
+        {
+            final int newLength = nodeData.length * 2;
+            if ( newLength < 0 ) {
+                throw new OutOfPathMemoryException( "Internal memory exhausted trying to store data for internal node #" +
+                                                    nodeCount + " (external node #" + extNodeId + ")" );
+            }
+            nodeData = Arrays.copyOf( nodeData, newLength );
+        }
         setExternalNodeId( nodeCount, extNodeId );
         return nodeCount++;
     }
@@ -275,15 +267,9 @@ D) Stop when you:
         }
     }
 
-    private void setExternalNodeId(int intNodeId, int extNodeId) throws OutOfPathMemoryException
+    private void setExternalNodeId(int intNodeId, int extNodeId)
     {
-        try
-        {
-            this.nodeData[intNodeId * NODE_DATA_SIZE + OFFSET_NODE_ID] = extNodeId;
-        } catch(ArrayIndexOutOfBoundsException e) {
-            throw new OutOfPathMemoryException( "Internal memory exhausted trying to store data for internal node #" +
-                                                intNodeId + " (external node #" + extNodeId + ")" );
-        }
+        this.nodeData[intNodeId * NODE_DATA_SIZE + OFFSET_NODE_ID] = extNodeId;
     }
 
     private void setFGH(int intNodeId,int f,int g,int h)
@@ -300,136 +286,128 @@ D) Stop when you:
     }
 
     /*
-     * Taken from https://www.geeksforgeeks.org/min-heap-in-java/
-     * and bugfixed + adopted to store the internal node ID and
-     * resolve the A* 'f' value dynamically.
+     * Indexed binary min-heap holding internal node IDs ordered by
+     * their A* 'f' value (resolved dynamically from the node data).
+     *
+     * Keeps track of each node's position in the heap so that
+     * a node's key can be decreased in O(log n) without searching for it.
      */
     final class MinHeap
     {
         private static final int FRONT = 1;
 
-        private final int[] data;
-        private final int maxsize;
+        // heap array, 1-based
+        private int[] data;
+
+        // position of each internal node ID in the heap array, 0 = not on heap
+        private int[] positions;
 
         private int size;
 
-        public MinHeap(int maxsize)
+        public MinHeap(int initialCapacity)
         {
-            this.maxsize = maxsize;
-            data = new int[this.maxsize + 1];
-            clear();
+            data = new int[initialCapacity + 1];
+            positions = new int[initialCapacity];
         }
 
         public void clear() {
+            for ( int i = FRONT ; i <= size ; i++ ) {
+                positions[ data[i] ] = 0;
+            }
             this.size = 0;
-            data[0] = Integer.MIN_VALUE;
         }
 
-        private float f(int idx)
+        private int f(int pos)
         {
-            if ( idx == 0 ) {
-                return Float.MIN_VALUE;
-            }
-            final int intNodeId = data[idx];
-            return nodeData[intNodeId*NODE_DATA_SIZE + OFFSET_F];
+            return nodeData[data[pos]*NODE_DATA_SIZE + OFFSET_F];
         }
 
-        private int parentIdx(int pos) { return pos / 2; }
-
-        private int leftChildIdx(int pos) { return (2 * pos); }
-
-        private int rightChildIdx(int pos) { return (2 * pos) + 1; }
-
-        private boolean isLeaf(int pos)
+        private void set(int pos, int intNodeId)
         {
-            return pos >= (size / 2) && pos <= size;
+            data[pos] = intNodeId;
+            positions[intNodeId] = pos;
         }
 
-        // Function to swap two nodes of the heap
-        private void swap(int fpos, int spos)
+        private void siftUp(int pos)
         {
-            final int tmp = data[fpos];
-            data[fpos] = data[spos];
-            data[spos] = tmp;
+            final int element = data[pos];
+            final int key = nodeData[element*NODE_DATA_SIZE + OFFSET_F];
+            while ( pos > FRONT )
+            {
+                final int parent = pos >>> 1;
+                if ( f( parent ) <= key ) {
+                    break;
+                }
+                set( pos, data[parent] );
+                pos = parent;
+            }
+            set( pos, element );
         }
 
-        // Function to heapify the node at pos
-        private void minHeapify(int pos)
+        private void siftDown(int pos)
         {
-            // If the node is a non-leaf node and greater
-            // than any of its child
-            if ( ! isLeaf(pos) )
+            final int element = data[pos];
+            final int key = nodeData[element*NODE_DATA_SIZE + OFFSET_F];
+            while ( true )
             {
-                final float leftValue = f( leftChildIdx( pos ) );
-                final float rightValue = f( rightChildIdx( pos ) );
-                if ( f(pos) > leftValue || f(pos) > rightValue ) {
-
-                    // Swap with the left child and heapify
-                    // the left child
-                    if ( leftValue < rightValue ) {
-                        swap(pos, leftChildIdx(pos));
-                        minHeapify(leftChildIdx(pos));
-                    }
-                    else
-                    {
-                        // Swap with the right child and heapify
-                        // the right child
-                        swap(pos, rightChildIdx(pos));
-                        minHeapify(rightChildIdx(pos));
-                    }
+                int child = pos << 1;
+                if ( child > size ) {
+                    break;
                 }
+                if ( child < size && f( child + 1 ) < f( child ) ) {
+                    child++;
+                }
+                if ( key <= f( child ) ) {
+                    break;
+                }
+                set( pos, data[child] );
+                pos = child;
             }
+            set( pos, element );
         }
 
-        // Function to insert a node into the heap
-        public void insert(int element)
+        public void insert(int intNodeId)
         {
-            if ((size+1) >= maxsize) {
-                throw new IllegalStateException("min-heap full");
+            if ( size + 1 == data.length ) {
+                data = Arrays.copyOf( data, data.length * 2 );
             }
-            data[++size] = element;
-
-            if ( size > 1 )
-            {
-                int current = size;
-                while ( f( current ) < f( parentIdx( current ) ) )
-                {
-                    swap( current, parentIdx( current ) );
-                    current = parentIdx( current );
-                }
+            if ( intNodeId >= positions.length ) {
+                positions = Arrays.copyOf( positions, Math.max( intNodeId + 1, positions.length * 2 ) );
             }
+            set( ++size, intNodeId );
+            siftUp( size );
         }
 
-        // Function to remove and return the minimum
-        // element from the heap
+        // Remove and return the element with the smallest 'f' value
         public int remove()
         {
-            int popped = data[FRONT];
-            data[FRONT] = data[size--];
-            if ( size > 1 )
+            final int popped = data[FRONT];
+            positions[popped] = 0;
+            if ( --size > 0 )
             {
-                minHeapify( FRONT );
+                set( FRONT, data[size+1] );
+                siftDown( FRONT );
             }
             return popped;
         }
 
-        public void remove(int idx)
+        /**
+         * Restores the heap property after the 'f' value of
+         * a node already on the heap has been lowered.
+         *
+         * @param intNodeId
+         */
+        public void decreaseKey(int intNodeId)
         {
-            for ( int i = 1 ; i < size ; i++ )
-            {
-                if ( data[i] == idx )
-                {
-                    data[i] = data[size--];
-                    if ( size > 1 )
-                    {
-                        minHeapify( i );
-                    }
-                }
+            final int pos = positions[intNodeId];
+            if ( pos == 0 ) {
+                throw new IllegalArgumentException( "Node #" + intNodeId + " is not on the heap" );
             }
+            siftUp( pos );
         }
 
         public boolean isEmpty() {
             return size == 0;
         }
     }
-}
\ No newline at end of file
+}
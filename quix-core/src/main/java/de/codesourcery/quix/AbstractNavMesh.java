@@ -2,17 +2,24 @@ package de.codesourcery.quix;
 
 public abstract class AbstractNavMesh implements NavMesh
 {
+    protected final NodeArena nodes;
+
+    protected AbstractNavMesh(NodeArena nodes)
+    {
+        this.nodes = nodes;
+    }
+
     @Override
     public Vec2 getCoordinates(int nodeId)
     {
-        final Node n = Node.get( nodeId );
+        final Node n = nodes.get( nodeId );
         return new Vec2(n.x, n.y);
     }
 
     private int dst2(int nodeStart,int nodeEnd)
     {
-        final Node a = Node.get(nodeStart);
-        final Node b = Node.get(nodeEnd);
+        final Node a = nodes.get(nodeStart);
+        final Node b = nodes.get(nodeEnd);
         int dx = b.x - a.x;
         int dy = b.y - a.y;
         return dx * dx + dy * dy;
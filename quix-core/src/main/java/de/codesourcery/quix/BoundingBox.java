@@ -0,0 +1,44 @@
+package de.codesourcery.quix;
+
+/**
+ * Axis-aligned integer rectangle.
+ *
+ * Like java.awt.Rectangle, points on the right and bottom edge
+ * are NOT considered to be inside.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class BoundingBox
+{
+    public final int x;
+    public final int y;
+    public final int width;
+    public final int height;
+
+    public BoundingBox(int x, int y, int width, int height)
+    {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    public boolean contains(int px,int py)
+    {
+        return px >= x && py >= y && px < x + width && py < y + height;
+    }
+
+    public int getCenterX() {
+        return x + width / 2;
+    }
+
+    public int getCenterY() {
+        return y + height / 2;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingBox[x=" + x + ",y=" + y + ",width=" + width + ",height=" + height + "]";
+    }
+}
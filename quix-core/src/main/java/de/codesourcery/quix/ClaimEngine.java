@@ -0,0 +1,257 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Claims playfield area by scan-line flood filling a pixel raster.
+ *
+ * Pixels covered by a line (according to the playfield {@link LineRaster}) are walls,
+ * all other pixels are either free or already claimed (according to a {@link ClaimedRaster}). When the player closes a trail,
+ * everything that is reachable from the Quix stays free and the region(s) on the
+ * other side of the trail get claimed.
+ *
+ * Runs in time linear to the size of the region the Quix is in plus the size
+ * of the newly claimed region.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class ClaimEngine
+{
+    private final LineRaster walls;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+
+    private final ClaimedRaster claimed;
+
+    // generation-stamped 'visited' markers, pixel is visited if visited[i] == generation
+    private final int[] visited;
+    private int generation;
+
+    // scan-line seeds as (x,y) pairs
+    private int[] stack = new int[256];
+    private int stackPtr;
+
+    /**
+     * Create engine.
+     *
+     * @param walls raster holding all lines of the playfield, must already contain
+     *              the trail lines when {@link #claim(List, List)} is called
+     * @param claimed raster to update with claimed pixels, must have the same size as <code>walls</code>
+     */
+    public ClaimEngine(LineRaster walls, ClaimedRaster claimed)
+    {
+        if ( walls.getWidth() != claimed.getWidth() || walls.getHeight() != claimed.getHeight() ) {
+            throw new IllegalArgumentException( "Rasters need to have the same size" );
+        }
+        this.walls = walls;
+        this.claimed = claimed;
+        this.width = walls.getWidth();
+        this.height = walls.getHeight();
+        this.stride = width + 1;
+        this.visited = new int[ stride * (height + 1) ];
+    }
+
+    /**
+     * Claims all free pixels next to a trail that can not be reached from the Quix.
+     *
+     * @param trail lines of the trail that has just been closed
+     * @param quixLines lines of the Quix, their endpoints are used to find the region that stays free
+     * @return number of newly claimed pixels
+     */
+    public int claim(List<Line> trail, List<? extends Line> quixLines)
+    {
+        nextGeneration();
+
+        int reachable = 0;
+        for (int i = 0, len = quixLines.size(); i < len; i++)
+        {
+            final Line l = quixLines.get( i );
+            reachable += fill( l.x0(), l.y0(), false );
+            reachable += fill( l.x1(), l.y1(), false );
+        }
+        if ( reachable == 0 ) {
+            // Quix is not inside any free region, don't claim the whole playfield
+            return 0;
+        }
+
+        // everything next to the trail that has not been visited yet is on the other side
+        int count = 0;
+        for (int i = 0, len = trail.size(); i < len; i++)
+        {
+            final Line l = trail.get( i );
+            final int dx = Integer.signum( l.x1() - l.x0() );
+            final int dy = Integer.signum( l.y1() - l.y0() );
+            int x = l.x0();
+            int y = l.y0();
+            while ( true )
+            {
+                count += fill( x - 1, y, true );
+                count += fill( x + 1, y, true );
+                count += fill( x, y - 1, true );
+                count += fill( x, y + 1, true );
+                if ( x == l.x1() && y == l.y1() ) {
+                    break;
+                }
+                x += dx;
+                y += dy;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Claims all free pixels inside (or on the edges of) a triangle.
+     *
+     * Used when the claimed area has been found by triangulating a polygon instead of flood filling,
+     * pixels covered by a line are left alone just like {@link #claim(List, List)} does. Edges are
+     * intersected with each pixel row using exact integer arithmetic, so triangles sharing
+     * an edge claim every pixel on it exactly once.
+     *
+     * @return number of newly claimed pixels
+     */
+    public int claimTriangle(int x0, int y0, int x1, int y1, int x2, int y2)
+    {
+        final int before = claimed.getClaimedCount();
+        final int minY = Math.max( 0, Math.min( y0, Math.min( y1, y2 ) ) );
+        final int maxY = Math.min( height, Math.max( y0, Math.max( y1, y2 ) ) );
+        for ( int y = minY ; y <= maxY ; y++ )
+        {
+            // [left,right] = pixels of this row inside the triangle
+            long left = Long.MAX_VALUE;
+            long right = Long.MIN_VALUE;
+            for ( int edge = 0 ; edge < 3 ; edge++ )
+            {
+                final int ax = edge == 0 ? x0 : edge == 1 ? x1 : x2;
+                final int ay = edge == 0 ? y0 : edge == 1 ? y1 : y2;
+                final int bx = edge == 0 ? x1 : edge == 1 ? x2 : x0;
+                final int by = edge == 0 ? y1 : edge == 1 ? y2 : y0;
+                if ( y < Math.min( ay, by ) || y > Math.max( ay, by ) ) {
+                    continue;
+                }
+                if ( ay == by )
+                {
+                    left = Math.min( left, Math.min( ax, bx ) );
+                    right = Math.max( right, Math.max( ax, bx ) );
+                    continue;
+                }
+                // x = ax + (y - ay) * (bx - ax) / (by - ay)
+                long num = (long) ( y - ay ) * ( bx - ax );
+                long den = by - ay;
+                if ( den < 0 ) {
+                    num = -num;
+                    den = -den;
+                }
+                left = Math.min( left, ax - Math.floorDiv( -num, den ) );
+                right = Math.max( right, ax + Math.floorDiv( num, den ) );
+            }
+            final int from = (int) Math.max( 0, left );
+            final int to = (int) Math.min( width, right );
+            int spanStart = -1;
+            for ( int x = from ; x <= to + 1 ; x++ )
+            {
+                if ( x <= to && ! walls.isSet( x, y ) )
+                {
+                    if ( spanStart == -1 ) {
+                        spanStart = x;
+                    }
+                }
+                else if ( spanStart != -1 )
+                {
+                    claimed.claimSpan( y, spanStart, x - 1 );
+                    spanStart = -1;
+                }
+            }
+        }
+        return claimed.getClaimedCount() - before;
+    }
+
+    private void nextGeneration()
+    {
+        generation++;
+        if ( generation == 0 )
+        {
+            // wrapped around, stale markers could collide with new generations
+            Arrays.fill( visited, 0 );
+            generation = 1;
+        }
+    }
+
+    private boolean isFillable(int x, int y)
+    {
+        final int idx = y * stride + x;
+        return visited[idx] != generation && ! claimed.isClaimed( x, y ) && ! walls.isSet( x, y );
+    }
+
+    private int fill(int seedX, int seedY, boolean claim)
+    {
+        if ( seedX < 0 || seedY < 0 || seedX > width || seedY > height || ! isFillable( seedX, seedY ) ) {
+            return 0;
+        }
+
+        int count = 0;
+        stackPtr = 0;
+        push( seedX, seedY );
+        while ( stackPtr > 0 )
+        {
+            final int y = stack[--stackPtr];
+            final int x = stack[--stackPtr];
+            if ( ! isFillable( x, y ) ) {
+                continue;
+            }
+
+            int x0 = x;
+            while ( x0 > 0 && isFillable( x0 - 1, y ) ) {
+                x0--;
+            }
+            int x1 = x;
+            while ( x1 < width && isFillable( x1 + 1, y ) ) {
+                x1++;
+            }
+
+            if ( claim ) {
+                claimed.claimSpan( y, x0, x1 );
+            }
+            final int rowStart = y * stride;
+            Arrays.fill( visited, rowStart + x0, rowStart + x1 + 1, generation );
+            count += x1 - x0 + 1;
+
+            if ( y > 0 ) {
+                pushSpans( x0, x1, y - 1 );
+            }
+            if ( y < height ) {
+                pushSpans( x0, x1, y + 1 );
+            }
+        }
+        return count;
+    }
+
+    // pushes one seed for each run of fillable pixels in [x0,x1] on row y
+    private void pushSpans(int x0, int x1, int y)
+    {
+        boolean inSpan = false;
+        for ( int x = x0 ; x <= x1 ; x++ )
+        {
+            if ( isFillable( x, y ) )
+            {
+                if ( ! inSpan ) {
+                    push( x, y );
+                    inSpan = true;
+                }
+            } else {
+                inSpan = false;
+            }
+        }
+    }
+
+    private void push(int x, int y)
+    {
+        if ( stackPtr + 2 > stack.length ) {
+            stack = Arrays.copyOf( stack, stack.length * 2 );
+        }
+        stack[stackPtr++] = x;
+        stack[stackPtr++] = y;
+    }
+}
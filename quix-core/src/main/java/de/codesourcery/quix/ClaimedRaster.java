@@ -0,0 +1,197 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+
+/**
+ * Bitset holding one bit per playfield pixel that tells whether the pixel
+ * has been claimed by the player.
+ *
+ * Each row starts on a new 64-bit word so that spans can be set and scanned
+ * a word at a time. The number of claimed pixels is kept up-to-date while
+ * claiming, so querying it is O(1).
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ClaimedRaster
+{
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+
+    private final long[] bits;
+
+    private int claimedCount;
+
+    /**
+     * Create raster.
+     *
+     * @param width coordinates are in the range [0,width]
+     * @param height coordinates are in the range [0,height]
+     */
+    public ClaimedRaster(int width, int height)
+    {
+        if ( width <= 0 || height <= 0 ) {
+            throw new IllegalArgumentException( "Width and height must be > 0" );
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = ( width + 1 + 63 ) >>> 6;
+        this.bits = new long[ wordsPerRow * ( height + 1 ) ];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isClaimed(int x, int y)
+    {
+        if ( x < 0 || y < 0 || x > width || y > height ) {
+            return false;
+        }
+        return ( bits[ y * wordsPerRow + ( x >>> 6 ) ] & ( 1L << x ) ) != 0;
+    }
+
+    /**
+     * Claims all pixels <code>(x,y)</code> with <code>x0 &lt;= x &lt;= x1</code>.
+     *
+     * Pixels that have already been claimed are left untouched.
+     *
+     * @param y row
+     * @param x0 first column (inclusive)
+     * @param x1 last column (inclusive)
+     */
+    public void claimSpan(int y, int x0, int x1)
+    {
+        if ( y < 0 || y > height || x0 > x1 || x0 < 0 || x1 > width ) {
+            throw new IllegalArgumentException( "Span out of range: y=" + y + ", x=" + x0 + "..." + x1 );
+        }
+        final int rowStart = y * wordsPerRow;
+        final int firstWord = rowStart + ( x0 >>> 6 );
+        final int lastWord = rowStart + ( x1 >>> 6 );
+        final long firstMask = -1L << x0;
+        final long lastMask = -1L >>> ( 63 - ( x1 & 63 ) );
+        if ( firstWord == lastWord ) {
+            claim( firstWord, firstMask & lastMask );
+            return;
+        }
+        claim( firstWord, firstMask );
+        for ( int i = firstWord + 1 ; i < lastWord ; i++ ) {
+            claim( i, -1L );
+        }
+        claim( lastWord, lastMask );
+    }
+
+    private void claim(int word, long mask)
+    {
+        final long old = bits[word];
+        final long updated = old | mask;
+        claimedCount += Long.bitCount( updated ) - Long.bitCount( old );
+        bits[word] = updated;
+    }
+
+    /**
+     * Returns the first claimed pixel in a row, starting at a given column.
+     *
+     * @param x column to start searching at
+     * @param y row
+     * @return column of claimed pixel or -1 if there is none
+     */
+    public int nextClaimed(int x, int y)
+    {
+        return next( x, y, false );
+    }
+
+    /**
+     * Returns the first unclaimed pixel in a row, starting at a given column.
+     *
+     * @param x column to start searching at
+     * @param y row
+     * @return column of unclaimed pixel or -1 if there is none
+     */
+    public int nextUnclaimed(int x, int y)
+    {
+        return next( x, y, true );
+    }
+
+    private int next(int x, int y, boolean invert)
+    {
+        if ( x < 0 || y < 0 || y > height ) {
+            throw new IllegalArgumentException( "Out of range: (" + x + "," + y + ")" );
+        }
+        if ( x > width ) {
+            return -1;
+        }
+        final int rowStart = y * wordsPerRow;
+        int wordIdx = x >>> 6;
+        long word = ( invert ? ~bits[rowStart + wordIdx] : bits[rowStart + wordIdx] ) & ( -1L << x );
+        while ( true )
+        {
+            if ( word != 0 )
+            {
+                final int result = ( wordIdx << 6 ) + Long.numberOfTrailingZeros( word );
+                return result <= width ? result : -1;
+            }
+            if ( ++wordIdx == wordsPerRow ) {
+                return -1;
+            }
+            word = invert ? ~bits[rowStart + wordIdx] : bits[rowStart + wordIdx];
+        }
+    }
+
+    /**
+     * Returns the number of claimed pixels.
+     */
+    public int getClaimedCount() {
+        return claimedCount;
+    }
+
+    /**
+     * Returns the claimed area in percent of all pixels not on the playfield border.
+     */
+    public float getClaimedPercentage()
+    {
+        return 100f * claimedCount / ( (width - 1) * (float) (height - 1) );
+    }
+
+    /**
+     * Returns the number of words needed by {@link #copyTo(long[])}.
+     */
+    public int getWordCount() {
+        return bits.length;
+    }
+
+    /**
+     * Copies the raw bits to an array.
+     *
+     * @param dest array with at least {@link #getWordCount()} elements
+     */
+    public void copyTo(long[] dest)
+    {
+        System.arraycopy( bits, 0, dest, 0, bits.length );
+    }
+
+    /**
+     * Replaces all bits with ones previously copied by {@link #copyTo(long[])}.
+     *
+     * @param src array with at least {@link #getWordCount()} elements
+     */
+    public void copyFrom(long[] src)
+    {
+        System.arraycopy( src, 0, bits, 0, bits.length );
+        int count = 0;
+        for ( long word : bits ) {
+            count += Long.bitCount( word );
+        }
+        claimedCount = count;
+    }
+
+    public void clear()
+    {
+        Arrays.fill( bits, 0 );
+        claimedCount = 0;
+    }
+}
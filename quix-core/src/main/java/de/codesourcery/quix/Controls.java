@@ -0,0 +1,40 @@
+package de.codesourcery.quix;
+
+/**
+ * Bit flags describing the controls the player is currently pressing.
+ *
+ * Packing the controls into a single <code>int</code> makes it cheap to
+ * hand them from the input thread to the simulation thread.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class Controls
+{
+    public static final int NONE = 0;
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1<<1;
+    public static final int UP = 1<<2;
+    public static final int DOWN = 1<<3;
+    /** draw a trail (fast) instead of just moving along lines */
+    public static final int FAST = 1<<4;
+
+    /** all flags combined, valid controls are in the range [0,ALL] */
+    public static final int ALL = LEFT | RIGHT | UP | DOWN | FAST;
+
+    private Controls() {
+    }
+
+    public static int of(boolean left, boolean right, boolean up, boolean down, boolean fast)
+    {
+        return ( left ? LEFT : 0 ) | ( right ? RIGHT : 0 ) | ( up ? UP : 0 ) | ( down ? DOWN : 0 ) | ( fast ? FAST : 0 );
+    }
+
+    public static boolean isSet(int controls, int flag) {
+        return ( controls & flag ) != 0;
+    }
+
+    public static Mode getMode(int controls) {
+        return isSet( controls, FAST ) ? Mode.LINE_FAST : Mode.MOVE;
+    }
+}
@@ -0,0 +1,114 @@
+package de.codesourcery.quix;
+
+import java.util.Random;
+
+/**
+ * Random number generator whose internal state can be read and restored, so
+ * that a game can be snapshotted and later resumed with the exact same
+ * sequence of random numbers.
+ *
+ * Uses the same linear congruential generator and derivation of values as {@link Random}, so
+ * the methods provided here return the very same sequence as their counterparts in {@link Random}
+ * for the same seed. Only offers the methods the game needs (the whole state is a single
+ * <code>long</code>, unlike {@link Random#nextGaussian()} which caches a second value) and is not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class DeterministicRandom
+{
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    public DeterministicRandom(long seed)
+    {
+        setSeed( seed );
+    }
+
+    public void setSeed(long seed)
+    {
+        this.state = ( seed ^ MULTIPLIER ) & MASK;
+    }
+
+    private int next(int bits)
+    {
+        state = ( state * MULTIPLIER + ADDEND ) & MASK;
+        return (int) ( state >>> ( 48 - bits ) );
+    }
+
+    /**
+     * @see Random#nextInt()
+     */
+    public int nextInt() {
+        return next( 32 );
+    }
+
+    /**
+     * @see Random#nextInt(int)
+     */
+    public int nextInt(int bound)
+    {
+        if ( bound <= 0 ) {
+            throw new IllegalArgumentException( "Bound must be positive, was: " + bound );
+        }
+        int r = next( 31 );
+        final int m = bound - 1;
+        if ( ( bound & m ) == 0 ) {
+            return (int) ( ( bound * (long) r ) >> 31 ); // power of two
+        }
+        // reject values from the last, incomplete range
+        for ( int u = r ; u - ( r = u % bound ) + m < 0 ; u = next( 31 ) ) {
+        }
+        return r;
+    }
+
+    /**
+     * @see Random#nextLong()
+     */
+    public long nextLong() {
+        return ( (long) next( 32 ) << 32 ) + next( 32 );
+    }
+
+    /**
+     * @see Random#nextBoolean()
+     */
+    public boolean nextBoolean() {
+        return next( 1 ) != 0;
+    }
+
+    /**
+     * @see Random#nextFloat()
+     */
+    public float nextFloat() {
+        return next( 24 ) / (float) ( 1 << 24 );
+    }
+
+    /**
+     * @see Random#nextDouble()
+     */
+    public double nextDouble() {
+        return ( ( (long) next( 26 ) << 27 ) + next( 27 ) ) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns the internal state.
+     *
+     * @see #setState(long)
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restores the internal state.
+     *
+     * @param state state as returned by {@link #getState()}
+     */
+    public void setState(long state)
+    {
+        this.state = state & MASK;
+    }
+}
@@ -10,6 +10,13 @@ public class DirectedLine extends Line
         this.direction = direction;
     }
 
+    // used when restoring a snapshot
+    DirectedLine(Direction direction, Node n0, Node n1)
+    {
+        super( n0, n1 );
+        this.direction = direction;
+    }
+
     public DirectedLine changeDirection(Direction newDir) {
 
         if ( newDir == direction.opposite() || newDir == direction ) {
@@ -2,14 +2,18 @@
 
     public class Enemy extends Entity
 {
-    public static long ID=0;
-
     public boolean outOfBounds;
     public Direction direction;
-    public final long id = ID++;
+    public final long id;
 
-    public Enemy()
+    /**
+     * Create enemy.
+     *
+     * @param id ID, unique within a game
+     */
+    public Enemy(long id)
     {
+        this.id = id;
     }
 
     public void setDirection(Direction dir) {
@@ -21,7 +25,9 @@
         final Node node = getCurrentLine().getNodeForEndpoint( x, y );
         if ( node != null )
         {
-            System.out.println("Picking new direction for "+this);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.ENEMY_AT_NODE, (int) id, x, y );
+            }
             pickNewDirection( state, node );
         }
         move( direction );
@@ -39,7 +45,9 @@
         if (  tmp != null && state.rnd.nextFloat() >= 0.33f ) {
             // keep going in same direction
             setCurrentLine(  tmp );
-            System.out.println(this+" can continue in current direction along "+tmp);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.ENEMY_CONTINUE, (int) id, direction.ordinal(), tmp.x0(), tmp.y0(), tmp.x1(), tmp.y1() );
+            }
             return;
         }
 
@@ -47,7 +55,9 @@
         // TODO: Maybe don't chase the player on lines he's currently drawing ?
         final int exitCount = node.getExitCount( direction.opposite() );
         int idx = state.rnd.nextInt( exitCount );
-        System.out.println(this+" CAN NOT continue in current direction, got "+exitCount+" exits and picked #"+idx);
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.ENEMY_BLOCKED, (int) id, direction.ordinal(), exitCount, idx );
+        }
 
         for ( Direction dir : Direction.values() )
         {
@@ -55,7 +65,9 @@
             if ( l != null )
             {
                 if ( idx == 0 ) {
-                    System.out.println(this+" picked new direction "+dir+", new line: "+l);
+                    if ( Trace.ENABLED ) {
+                        Trace.record( TraceEvent.ENEMY_TURN, (int) id, dir.ordinal(), l.x0(), l.y0(), l.x1(), l.y1() );
+                    }
                     this.direction = dir;
                     setCurrentLine( l );
                     return;
@@ -39,9 +39,15 @@ public abstract class Entity
 
     public void setCurrentLine(Line currentLine)
     {
-        System.out.println("SWITCHING CURRENT LINE: "+this.currentLine+" -> "+currentLine);
-        if ( ! currentLine.contains( x,y ) ) {
-            System.err.println("WARNING: Entity "+this+" not on current line "+currentLine);
+        if ( Trace.ENABLED )
+        {
+            Trace.record( TraceEvent.ENTITY_LINE_SWITCH, x, y,
+                currentLine.x0(), currentLine.y0(), currentLine.x1(), currentLine.y1() );
+            if ( ! currentLine.contains( x, y ) )
+            {
+                Trace.record( TraceEvent.ENTITY_NOT_ON_LINE, x, y,
+                    currentLine.x0(), currentLine.y0(), currentLine.x1(), currentLine.y1() );
+            }
         }
         this.currentLine = currentLine;
     }
@@ -0,0 +1,313 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.List;
+
+/**
+ * Immutable copy of everything needed to render one frame of a {@link GameState}.
+ *
+ * Snapshots are created by the simulation thread and handed to the rendering thread,
+ * so the renderer never touches the (mutable) game state itself. The settled part of the
+ * playfield is only copied when it actually changed, snapshots taken while it stays the
+ * same share a single {@link Playfield} instance.
+ *
+ * Lines are stored as packed <code>int</code> arrays and exposed through visitors to keep
+ * the per-frame copying cheap.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class FrameSnapshot
+{
+    // packed line layout: x0,y0,x1,y1,node0 id,node1 id
+    private static final int LINE_STRIDE = 6;
+
+    // packed enemy layout: x,y,direction ordinal (-1 if none)
+    private static final int ENEMY_STRIDE = 3;
+
+    @FunctionalInterface
+    public interface LineVisitor
+    {
+        void visit(int x0, int y0, int x1, int y1, int node0, int node1);
+    }
+
+    @FunctionalInterface
+    public interface SpanVisitor
+    {
+        void visit(int y, int x0, int x1);
+    }
+
+    @FunctionalInterface
+    public interface EnemyVisitor
+    {
+        /**
+         * @param direction direction the enemy is heading or <code>null</code>
+         */
+        void visit(long id, int x, int y, Direction direction);
+    }
+
+    /**
+     * Immutable copy of the settled playfield (lines and claimed area).
+     *
+     * @author tobias.gierke@code-sourcery.de
+     */
+    public static final class Playfield
+    {
+        private final int version;
+
+        private final int[] borderLines;
+        private final int[] interiorLines;
+        private final int[] lastPath;
+
+        // claimed spans as (y,x0,x1) triplets, both columns inclusive
+        private final int[] claimedSpans;
+        private final int claimedCount;
+        private final float claimedPercentage;
+
+        private Playfield(GameState state)
+        {
+            this.version = state.getPlayfieldVersion();
+
+            final List<Line> lines = state.playfieldLines.lines;
+            final IntArrayList border = new IntArrayList();
+            final IntArrayList interior = new IntArrayList();
+            for (int i = 0, len = lines.size(); i < len; i++)
+            {
+                final Line l = lines.get( i );
+                pack( l, state.isBorder( l ) ? border : interior );
+            }
+            this.borderLines = border.toIntArray();
+            this.interiorLines = interior.toIntArray();
+            this.lastPath = pack( state.getLastPath().lines );
+
+            final ClaimedRaster claimed = state.getClaimedArea();
+            final IntArrayList spans = new IntArrayList();
+            if ( claimed.getClaimedCount() > 0 )
+            {
+                for ( int y = 0, height = claimed.getHeight() ; y <= height ; y++ )
+                {
+                    int x0 = claimed.nextClaimed( 0, y );
+                    while ( x0 != -1 )
+                    {
+                        int x1 = claimed.nextUnclaimed( x0, y );
+                        if ( x1 == -1 ) {
+                            x1 = claimed.getWidth() + 1;
+                        }
+                        spans.add( y );
+                        spans.add( x0 );
+                        spans.add( x1 - 1 );
+                        x0 = claimed.nextClaimed( x1, y );
+                    }
+                }
+            }
+            this.claimedSpans = spans.toIntArray();
+            this.claimedCount = claimed.getClaimedCount();
+            this.claimedPercentage = claimed.getClaimedPercentage();
+        }
+
+        /**
+         * Returns the {@link GameState#getPlayfieldVersion() version} of the playfield this is a copy of.
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        public void visitBorderLines(LineVisitor visitor) {
+            visitLines( borderLines, visitor );
+        }
+
+        public void visitInteriorLines(LineVisitor visitor) {
+            visitLines( interiorLines, visitor );
+        }
+
+        public void visitLastPath(LineVisitor visitor) {
+            visitLines( lastPath, visitor );
+        }
+
+        public boolean hasLastPath() {
+            return lastPath.length > 0;
+        }
+
+        public void visitClaimedSpans(SpanVisitor visitor)
+        {
+            for ( int i = 0, len = claimedSpans.length ; i < len ; i += 3 ) {
+                visitor.visit( claimedSpans[i], claimedSpans[i + 1], claimedSpans[i + 2] );
+            }
+        }
+
+        public int getClaimedCount() {
+            return claimedCount;
+        }
+
+        public float getClaimedPercentage() {
+            return claimedPercentage;
+        }
+    }
+
+    private final long tick;
+    private final Playfield playfield;
+
+    private final int playerX;
+    private final int playerY;
+    private final int[] playerLine;
+    private final int score;
+    private final Mode mode;
+    private final boolean gameOver;
+
+    private final int[] trail;
+    private final int[] currentTrailLine;
+    private final int[] quixLines;
+
+    private final long[] enemyIds;
+    private final int[] enemies;
+
+    /**
+     * Create snapshot.
+     *
+     * Must be called by the thread that owns the game state.
+     *
+     * @param state game state to copy
+     * @param tick number of the tick this snapshot was taken after
+     * @param previous previous snapshot of the same game state or <code>null</code>, its
+     *                 playfield is re-used if the game state's playfield did not change in the meantime
+     */
+    public FrameSnapshot(GameState state, long tick, FrameSnapshot previous)
+    {
+        this.tick = tick;
+        if ( previous != null && previous.playfield.version == state.getPlayfieldVersion() ) {
+            this.playfield = previous.playfield;
+        } else {
+            this.playfield = new Playfield( state );
+        }
+
+        final Player player = state.player;
+        this.playerX = player.x;
+        this.playerY = player.y;
+        final Line current = player.getCurrentLine();
+        this.playerLine = current == null ? new int[0] : pack( List.of( current ) );
+        this.score = player.score;
+        this.mode = state.getMode( Mode.MOVE );
+        this.gameOver = state.gameOver;
+
+        final IncompleteLineCollection currentPoly = state.getCurrentPoly();
+        this.trail = currentPoly == null ? new int[0] : pack( currentPoly.lines );
+        // segment being drawn is only part of the lines once the trail touched another line
+        this.currentTrailLine = currentPoly == null || currentPoly.lastNode != null ?
+            new int[0] : pack( List.of( currentPoly.currentLine ) );
+        this.quixLines = pack( state.getQuix().getLines() );
+
+        final List<Enemy> list = state.getEnemies();
+        this.enemyIds = new long[ list.size() ];
+        this.enemies = new int[ list.size() * ENEMY_STRIDE ];
+        for (int i = 0, ptr = 0, len = list.size(); i < len; i++)
+        {
+            final Enemy e = list.get( i );
+            enemyIds[i] = e.id;
+            enemies[ptr++] = e.x;
+            enemies[ptr++] = e.y;
+            enemies[ptr++] = e.direction == null ? -1 : e.direction.ordinal();
+        }
+    }
+
+    private static int[] pack(List<? extends Line> lines)
+    {
+        final IntArrayList result = new IntArrayList( lines.size() * LINE_STRIDE );
+        for (int i = 0, len = lines.size(); i < len; i++)
+        {
+            pack( lines.get( i ), result );
+        }
+        return result.toIntArray();
+    }
+
+    private static void pack(Line l, IntArrayList result)
+    {
+        result.add( l.x0() );
+        result.add( l.y0() );
+        result.add( l.x1() );
+        result.add( l.y1() );
+        result.add( l.node0.id );
+        result.add( l.node1.id );
+    }
+
+    private static void visitLines(int[] lines, LineVisitor visitor)
+    {
+        for ( int i = 0, len = lines.length ; i < len ; i += LINE_STRIDE ) {
+            visitor.visit( lines[i], lines[i + 1], lines[i + 2], lines[i + 3], lines[i + 4], lines[i + 5] );
+        }
+    }
+
+    /**
+     * Returns the number of the tick this snapshot was taken after.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    public Playfield getPlayfield() {
+        return playfield;
+    }
+
+    public int getPlayerX() {
+        return playerX;
+    }
+
+    public int getPlayerY() {
+        return playerY;
+    }
+
+    /**
+     * Visits the line the player is currently on.
+     */
+    public void visitPlayerLine(LineVisitor visitor) {
+        visitLines( playerLine, visitor );
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the mode of the trail currently being drawn, {@link Mode#MOVE} if the player is not drawing.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Visits the completed segments of the trail the player is currently drawing (if any).
+     *
+     * @see #visitCurrentTrailLine(LineVisitor)
+     */
+    public void visitTrail(LineVisitor visitor) {
+        visitLines( trail, visitor );
+    }
+
+    /**
+     * Visits the segment of the trail the player is currently drawing (if any).
+     */
+    public void visitCurrentTrailLine(LineVisitor visitor) {
+        visitLines( currentTrailLine, visitor );
+    }
+
+    public void visitQuixLines(LineVisitor visitor) {
+        visitLines( quixLines, visitor );
+    }
+
+    public int getEnemyCount() {
+        return enemyIds.length;
+    }
+
+    public void visitEnemies(EnemyVisitor visitor)
+    {
+        final Direction[] directions = Direction.values();
+        for (int i = 0, ptr = 0, len = enemyIds.length; i < len; i++, ptr += ENEMY_STRIDE)
+        {
+            final int dir = enemies[ptr + 2];
+            visitor.visit( enemyIds[i], enemies[ptr], enemies[ptr + 1], dir == -1 ? null : directions[dir] );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+
+/**
+ * Keeps statistics about the most recent frame times (or any other durations).
+ *
+ * Samples are kept in a fixed-size ring buffer so percentiles reflect
+ * the last {@link #getCapacity()} frames only. Recording a sample never allocates.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class FrameStats
+{
+    private final long[] samples;
+    private final long[] sorted;
+
+    private int next;
+    private int size;
+    private long total;
+
+    // time the last frame finished, used by frameFinished(long)
+    private long lastFrameTime;
+    private boolean hasLastFrame;
+
+    /**
+     * Create instance.
+     *
+     * @param capacity number of most recent samples to keep
+     */
+    public FrameStats(int capacity)
+    {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException( "Capacity must be > 0" );
+        }
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    /**
+     * Records the time elapsed since the previous invocation of this method.
+     *
+     * The first invocation only starts measuring.
+     *
+     * @param now current time in nanoseconds
+     */
+    public void frameFinished(long now)
+    {
+        if ( hasLastFrame ) {
+            record( now - lastFrameTime );
+        }
+        lastFrameTime = now;
+        hasLastFrame = true;
+    }
+
+    public void record(long nanos)
+    {
+        if ( size == samples.length ) {
+            total -= samples[next];
+        } else {
+            size++;
+        }
+        samples[next] = nanos;
+        total += nanos;
+        next = ( next + 1 ) % samples.length;
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    /**
+     * Returns the number of samples currently kept.
+     */
+    public int getSampleCount() {
+        return size;
+    }
+
+    public long getAverageNanos() {
+        return size == 0 ? 0 : total / size;
+    }
+
+    public long getMaxNanos()
+    {
+        long max = 0;
+        for ( int i = 0 ; i < size ; i++ ) {
+            max = Math.max( max, samples[i] );
+        }
+        return max;
+    }
+
+    /**
+     * Returns a percentile of the kept samples.
+     *
+     * @param percentile percentile in the range [0,100]
+     * @return the smallest sample that is greater than or equal to <code>percentile</code> percent of all samples,
+     *         0 if there are no samples
+     */
+    public long getPercentileNanos(float percentile)
+    {
+        if ( percentile < 0 || percentile > 100 ) {
+            throw new IllegalArgumentException( "Percentile must be in range [0,100]: " + percentile );
+        }
+        if ( size == 0 ) {
+            return 0;
+        }
+        System.arraycopy( samples, 0, sorted, 0, size );
+        Arrays.sort( sorted, 0, size );
+        final int rank = (int) Math.ceil( percentile / 100f * size );
+        return sorted[ Math.max( 0, rank - 1 ) ];
+    }
+
+    /**
+     * Returns the rate derived from the average sample, e.g. frames per second.
+     */
+    public float getRatePerSecond()
+    {
+        final long avg = getAverageNanos();
+        return avg == 0 ? 0 : 1_000_000_000f / avg;
+    }
+
+    public void reset()
+    {
+        next = 0;
+        size = 0;
+        total = 0;
+        hasLastFrame = false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "%.1f ms avg, %.1f ms p99, %.1f ms max (%.0f/s)",
+            getAverageNanos() / 1e6, getPercentileNanos( 99 ) / 1e6, getMaxNanos() / 1e6, getRatePerSecond() );
+    }
+}
@@ -0,0 +1,99 @@
+package de.codesourcery.quix;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reinforcement-learning style wrapper around a {@link GameState}.
+ *
+ * An action is a bit mask of {@link Controls} flags (so the action space is [0,{@link Controls#ALL}]),
+ * each {@link #step(int, ByteBuffer, int)} advances the game by one tick and returns the reward,
+ * which is the increase of the player's score during that tick. Observations are written into
+ * caller-supplied (preferably direct) buffers by an {@link ObservationEncoder}, stepping does not
+ * allocate.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see VectorEnvironment
+ */
+public final class GameEnvironment
+{
+    private final GameState state;
+    private final ObservationEncoder encoder;
+
+    private int lastScore;
+
+    /**
+     * Create environment.
+     *
+     * @param encoder encoder to use, must not be shared with other environments
+     */
+    public GameEnvironment(ObservationEncoder encoder)
+    {
+        this.encoder = encoder;
+        this.state = new GameState();
+    }
+
+    /**
+     * Returns the size of an observation in bytes.
+     */
+    public int getObservationSize() {
+        return encoder.size();
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @param seed random seed
+     * @param observation buffer to write the initial observation to
+     * @param offset offset (in bytes) to write the observation at
+     */
+    public void reset(long seed, ByteBuffer observation, int offset)
+    {
+        state.restart( seed );
+        lastScore = state.player.score;
+        encoder.encode( state, observation, offset );
+    }
+
+    public void reset(long seed, ByteBuffer observation) {
+        reset( seed, observation, 0 );
+    }
+
+    /**
+     * Advances the game by one tick.
+     *
+     * Stepping a game that is over is allowed but has no effect (and yields no reward).
+     *
+     * @param action bit mask of {@link Controls} flags
+     * @param observation buffer to write the resulting observation to
+     * @param offset offset (in bytes) to write the observation at
+     * @return reward
+     */
+    public float step(int action, ByteBuffer observation, int offset)
+    {
+        if ( ( action & ~Controls.ALL ) != 0 ) {
+            throw new IllegalArgumentException( "Invalid action: " + action );
+        }
+        state.step( action );
+        final int score = state.player.score;
+        final int reward = score - lastScore;
+        lastScore = score;
+        encoder.encode( state, observation, offset );
+        return reward;
+    }
+
+    public float step(int action, ByteBuffer observation) {
+        return step( action, observation, 0 );
+    }
+
+    /**
+     * Returns whether the game is over and needs to be {@link #reset(long, ByteBuffer, int) reset}.
+     */
+    public boolean isDone() {
+        return state.gameOver;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,346 @@
+package de.codesourcery.quix;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs the simulation of a {@link GameState} on a dedicated thread at a fixed tick rate.
+ *
+ * Elapsed wall-clock time is collected in an accumulator and consumed in fixed-size
+ * ticks, so the game speed does not depend on how often (or how late) the thread gets
+ * scheduled. After each batch of ticks an immutable {@link FrameSnapshot} is published
+ * for the renderer, slow rendering therefore never slows down the simulation.
+ *
+ * If the simulation falls too far behind (debugger, GC pause, machine too slow), at most
+ * {@link #MAX_CATCH_UP_TICKS} ticks are simulated in a row and the remaining ticks
+ * are dropped and counted as missed.
+ *
+ * Once started, the game state must only be touched by the simulation thread,
+ * other threads communicate with it through {@link #submitInput(int, boolean)} and {@link #requestRestart()}.
+ *
+ * Input events are queued and drained at the start of each tick. Controls that were pressed
+ * since the previous tick are applied for at least one tick, even if they got released again
+ * in the meantime, so short taps are never lost.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class GameLoop
+{
+    public static final int DEFAULT_TICKS_PER_SECOND = 60;
+
+    // max. number of ticks to simulate back-to-back when catching up
+    public static final int MAX_CATCH_UP_TICKS = 5;
+
+    private static final int INPUT_QUEUE_CAPACITY = 256;
+
+    private final GameState state;
+    private final long tickNanos;
+    private final Consumer<FrameSnapshot> listener;
+
+    private final InputQueue input = new InputQueue( INPUT_QUEUE_CAPACITY );
+    private final InputQueue.Visitor inputVisitor = this::inputReceived;
+    private final AtomicBoolean restartRequested = new AtomicBoolean();
+
+    private volatile FrameSnapshot snapshot;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // only accessed by the simulation thread
+    private long lastTime;
+    private long accumulator;
+    private long tickStart;
+    private int heldControls;
+    private int latchedControls; // pressed since the last tick
+    private InputRecorder recorder;
+
+    // metrics, only written by the simulation thread
+    private volatile long tickCount;
+    private volatile long missedTickCount;
+    private volatile long totalTickNanos;
+    private volatile long maxTickNanos;
+    private volatile long inputEventCount;
+    private volatile long totalInputLatencyNanos;
+    private volatile long maxInputLatencyNanos;
+
+    /**
+     * Create loop.
+     *
+     * @param state game state to simulate
+     * @param ticksPerSecond tick rate
+     * @param listener invoked by the simulation thread whenever a new snapshot has been published,
+     *                 must not block
+     */
+    public GameLoop(GameState state, int ticksPerSecond, Consumer<FrameSnapshot> listener)
+    {
+        if ( ticksPerSecond <= 0 ) {
+            throw new IllegalArgumentException( "Ticks per second must be > 0" );
+        }
+        this.state = state;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.listener = listener;
+        this.snapshot = new FrameSnapshot( state, 0, null );
+    }
+
+    /**
+     * Records the input of all following ticks.
+     *
+     * Must be called before the loop is started, the recorder gets closed when the loop is stopped.
+     *
+     * @param recorder recorder to use
+     */
+    public synchronized void setRecorder(InputRecorder recorder)
+    {
+        if ( thread != null ) {
+            throw new IllegalStateException( "Recorder must be set before starting the loop" );
+        }
+        this.recorder = recorder;
+    }
+
+    public synchronized void start()
+    {
+        if ( thread != null ) {
+            throw new IllegalStateException( "Already started" );
+        }
+        running = true;
+        thread = new Thread( this::run, "quix-simulation" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread, waits for it to terminate and closes the recorder (if any).
+     */
+    public synchronized void stop() throws InterruptedException, IOException
+    {
+        if ( thread == null ) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark( thread );
+        thread.join();
+        thread = null;
+        if ( recorder != null )
+        {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    private void run()
+    {
+        begin( System.nanoTime() );
+        while ( running )
+        {
+            try
+            {
+                advance( System.nanoTime() );
+            }
+            catch (RuntimeException e)
+            {
+                // keep the game running, same as an exception thrown by a Swing timer
+                final Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException( current, e );
+            }
+            final long sleepNanos = tickNanos - accumulator;
+            if ( sleepNanos > 0 ) {
+                LockSupport.parkNanos( sleepNanos );
+            }
+        }
+    }
+
+    /**
+     * Starts measuring time.
+     *
+     * @param now current time in nanoseconds
+     */
+    void begin(long now)
+    {
+        lastTime = now;
+        accumulator = 0;
+    }
+
+    /**
+     * Simulates all ticks that are due and publishes a new snapshot if at least one tick was simulated.
+     *
+     * @param now current time in nanoseconds
+     * @return number of ticks simulated
+     */
+    int advance(long now)
+    {
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        long due = accumulator / tickNanos;
+        if ( due > MAX_CATCH_UP_TICKS )
+        {
+            final long dropped = due - MAX_CATCH_UP_TICKS;
+            missedTickCount += dropped;
+            accumulator -= dropped * tickNanos;
+            due = MAX_CATCH_UP_TICKS;
+        }
+        for ( int i = 0 ; i < due ; i++ )
+        {
+            tick();
+            accumulator -= tickNanos;
+        }
+        if ( due > 0 )
+        {
+            final FrameSnapshot newSnapshot = new FrameSnapshot( state, tickCount, snapshot );
+            snapshot = newSnapshot;
+            if ( listener != null ) {
+                listener.accept( newSnapshot );
+            }
+        }
+        return (int) due;
+    }
+
+    private void tick()
+    {
+        final long start = System.nanoTime();
+        tickStart = start;
+        final boolean restart = restartRequested.getAndSet( false );
+        if ( restart ) {
+            state.restart();
+        }
+        input.drain( inputVisitor );
+        final int controls = heldControls | latchedControls;
+        latchedControls = Controls.NONE;
+        if ( recorder != null ) {
+            record( restart, controls );
+        }
+        state.step( controls );
+
+        final long elapsed = System.nanoTime() - start;
+        totalTickNanos += elapsed;
+        if ( elapsed > maxTickNanos ) {
+            maxTickNanos = elapsed;
+        }
+        tickCount++;
+    }
+
+    private void record(boolean restart, int controls)
+    {
+        try
+        {
+            if ( restart ) {
+                recorder.restart();
+            }
+            recorder.tick( controls );
+        }
+        catch (IOException e)
+        {
+            recorder = null;
+            throw new UncheckedIOException( "Recording failed, recording stopped", e );
+        }
+    }
+
+    private void inputReceived(int controls, boolean pressed, long timestamp)
+    {
+        if ( pressed )
+        {
+            heldControls |= controls;
+            latchedControls |= controls;
+        } else {
+            heldControls &= ~controls;
+        }
+        final long latency = tickStart - timestamp;
+        totalInputLatencyNanos += latency;
+        if ( latency > maxInputLatencyNanos ) {
+            maxInputLatencyNanos = latency;
+        }
+        inputEventCount++;
+    }
+
+    /**
+     * Queues controls getting pressed or released, they will be applied starting with the next tick.
+     *
+     * Must always be called by the same thread (usually the EDT).
+     *
+     * @param controls bit mask of {@link Controls} flags
+     * @param pressed whether the controls got pressed or released
+     * @return <code>false</code> if the input queue was full and the input got dropped
+     */
+    public boolean submitInput(int controls, boolean pressed) {
+        return submitInput( controls, pressed, System.nanoTime() );
+    }
+
+    boolean submitInput(int controls, boolean pressed, long timestamp)
+    {
+        if ( input.offer( controls, pressed, timestamp ) ) {
+            return true;
+        }
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.INPUT_DROPPED, controls, pressed ? 1 : 0 );
+        }
+        return false;
+    }
+
+    /**
+     * Requests restarting the game, the restart is performed by the simulation
+     * thread right before the next tick.
+     */
+    public void requestRestart() {
+        restartRequested.set( true );
+    }
+
+    /**
+     * Returns the most recently published snapshot.
+     */
+    public FrameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Returns the number of ticks that were dropped because the simulation fell too far behind.
+     */
+    public long getMissedTickCount() {
+        return missedTickCount;
+    }
+
+    /**
+     * Returns the average time spent simulating a single tick.
+     */
+    public long getAverageTickNanos()
+    {
+        final long ticks = tickCount;
+        return ticks == 0 ? 0 : totalTickNanos / ticks;
+    }
+
+    /**
+     * Returns the longest time spent simulating a single tick.
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    /**
+     * Returns the number of input events applied so far.
+     */
+    public long getInputEventCount() {
+        return inputEventCount;
+    }
+
+    /**
+     * Returns the average time between submitting input and the start of the tick that applied it.
+     */
+    public long getAverageInputLatencyNanos()
+    {
+        final long count = inputEventCount;
+        return count == 0 ? 0 : totalInputLatencyNanos / count;
+    }
+
+    /**
+     * Returns the longest time between submitting input and the start of the tick that applied it.
+     */
+    public long getMaxInputLatencyNanos() {
+        return maxInputLatencyNanos;
+    }
+}
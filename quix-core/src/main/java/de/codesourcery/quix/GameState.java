@@ -0,0 +1,1130 @@
+package de.codesourcery.quix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class GameState implements ICollisionCheck
+{
+    public static final int ENEMY_RADIUS = 10;
+
+    // enemies will never spawn closer than this
+    public static final float MIN_ENEMY_SPAWN_DISTANCE_TO_PLAYER = ENEMY_RADIUS*3;
+
+    public static final long RANDOM_SEED = 0x12345678;
+
+    // seed all randomness gets derived from on restart
+    private long seed;
+
+    public final DeterministicRandom rnd;
+
+    private Quix quix;
+
+    private long nextEnemyId;
+
+    public boolean gameOver;
+
+    // TODO: Remove debug code
+    private final LineCollection lastPath = new LineCollection();
+
+    // hint: player location does NOT take playFieldOffset into consideration
+    public Player player = new Player();
+
+    public Difficulty difficulty;
+
+    public static final int PLAYFIELD_WIDTH = 640;
+    public static final int PLAYFIELD_HEIGHT = 480;
+
+    private final List<Enemy> enemies = new ArrayList<>();
+
+    // IDs of all nodes on the playfield and the current trail
+    private final NodeArena nodes = new NodeArena();
+
+    // point lookup tables for the settled playfield lines and the trail the player is currently drawing
+    private final LineRaster playfieldRaster = new LineRaster( PLAYFIELD_WIDTH, PLAYFIELD_HEIGHT );
+    private final LineRaster trailRaster = new LineRaster( PLAYFIELD_WIDTH, PLAYFIELD_HEIGHT );
+
+    // answers nearest line/node queries for the settled playfield lines
+    public final ProximityIndex playfieldProximity = new ProximityIndex( PLAYFIELD_WIDTH, PLAYFIELD_HEIGHT, LineGrid.DEFAULT_CELL_SIZE );
+
+    public final LineCollection playfieldLines = new LineCollection( playfieldRaster, nodes, playfieldProximity );
+
+    private IncompleteLineCollection currentPoly;
+
+    private final AStar astar = new AStar();
+
+    // claims area by flood filling the playfield raster, when false
+    // claimed area is found using A* and polygon triangulation instead
+    // (and the triangles get rasterized into the claimed area raster)
+    public boolean floodFillClaims = true;
+
+    private final ClaimedRaster claimedArea = new ClaimedRaster( PLAYFIELD_WIDTH, PLAYFIELD_HEIGHT );
+
+    private final ClaimEngine claimEngine = new ClaimEngine( playfieldRaster, claimedArea );
+
+    // incremented whenever the settled playfield (lines, claimed area) changes
+    private int playfieldVersion;
+
+    // scratch tables used while taking a snapshot
+    private Line[] snapshotLines = new Line[256];
+    private int snapshotLineCount;
+    private Node[] snapshotNodes = new Node[4];
+    private int snapshotNodeCount;
+
+    public GameState()
+    {
+        this( RANDOM_SEED );
+    }
+
+    /**
+     * Create game.
+     *
+     * Games with the same seed behave exactly the same when given the same input. Games do not share any
+     * mutable state, so any number of them may be simulated concurrently (each by a single thread).
+     *
+     * @param seed random seed
+     */
+    public GameState(long seed)
+    {
+        this.seed = seed;
+        this.rnd = new DeterministicRandom( seed );
+        restart();
+    }
+
+    /**
+     * Returns the random seed this game was created with.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    // chosen so that the default seed yields the Quix' default seed
+    private long quixSeed() {
+        return seed ^ ( RANDOM_SEED ^ Quix.DEFAULT_SEED );
+    }
+
+    /**
+     * Restarts the game using a different random seed.
+     *
+     * @param seed random seed, also used for all following restarts
+     */
+    public void restart(long seed)
+    {
+        this.seed = seed;
+        restart();
+    }
+
+    public void restart()
+    {
+        nodes.clear();
+
+        lastPath.clear();
+        gameOver = false;
+        enemies.clear();
+        playfieldLines.clear();
+        trailRaster.clear();
+        claimedArea.clear();
+        playfieldVersion++;
+        currentPoly = null;
+        difficulty = new Difficulty( 1 , 0 );
+        player = new Player();
+        quix = new Quix( quixSeed() );
+        rnd.setSeed( seed );
+        nextEnemyId = 0;
+
+        final Node nw = new Node(0,0);
+        final Node ne = new Node( PLAYFIELD_WIDTH,0);
+        final Node se = new Node( PLAYFIELD_WIDTH, PLAYFIELD_HEIGHT );
+        final Node sw = new Node(0, PLAYFIELD_HEIGHT );
+
+        final Line top = new Line(nw,ne );
+        final Line right = new Line( ne,se );
+        final Line bottom = new Line( se , sw );
+        final Line left = new Line(sw,nw);
+
+        nw.right = top;
+        nw.down = left;
+
+        ne.left = top;
+        ne.down = right;
+
+        se.up = right;
+        se.left = bottom;
+
+        sw.right = bottom;
+        sw.up = left;
+        playfieldLines.addAll( List.of( top,right,bottom,left ) );
+
+        player.set(0,0);
+        player.setCurrentLine(top);
+        setupQuix(difficulty);
+
+        for (int i = 0; i < difficulty.enemyCount ; i++ ) {
+            spawnEnemy();
+        }
+    }
+
+    public boolean isDrawingPoly() {
+        return currentPoly != null;
+    }
+
+    public boolean isInCurrentlyDrawnPoly(Line line) {
+        if ( isDrawingPoly() ) {
+            if ( currentPoly.currentLine.equals( line ) ) {
+                return true;
+            }
+            return currentPoly.contains( line );
+        }
+        return false;
+    }
+
+    public boolean move(Entity entity,Direction direction, Mode mode,boolean applyChanges)
+    {
+        if ( mode == Mode.LINE_FAST )
+        {
+            final boolean canMove;
+            switch( direction ) {
+                case LEFT:
+                    canMove = entity.x > 0;
+                    break;
+                case RIGHT:
+                    canMove = entity.x < PLAYFIELD_WIDTH;
+                    break;
+                case UP:
+                    canMove = entity.y > 0;
+                    break;
+                case DOWN:
+                    canMove = entity.y < PLAYFIELD_HEIGHT;
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected value: " + direction);
+            }
+            if ( canMove )
+            {
+                if ( this.currentPoly == null )
+                {
+                    // TODO: Check whether there's free BEFORE splitting the line...
+                    if ( applyChanges )
+                    {
+                        Node newNode = split(entity.getCurrentLine(), entity.x, entity.y);
+                        currentPoly = new IncompleteLineCollection(trailRaster, nodes, mode, direction, newNode)
+                        {
+
+                            @Override
+                            protected void currentLineChanged(Line line)
+                            {
+                                entity.setCurrentLine(line);
+                            }
+                        };
+                        entity.move(direction);
+                    }
+                } else {
+                    switch( currentPoly.tryMove(direction,this, applyChanges) )
+                    {
+                        case MOVED:
+                            if ( applyChanges )
+                            {
+                                entity.move(direction);
+                            }
+                            break;
+                        case CANT_MOVE:
+                            return false;
+                        case TOUCHED_FOREIGN_LINE:
+                            if ( applyChanges )
+                            {
+                                entity.move(direction);
+                                closePoly();
+                            }
+                            break;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // check whether we're at the end of the current line
+        final Node nodeForEndpoint = entity.getCurrentLine().getNodeForEndpoint(entity.x, entity.y);
+        if ( nodeForEndpoint != null )
+        {
+            // we're at the end of the current line, check whether we can
+            // continue moving in the current direction
+            final Line exit = nodeForEndpoint.getExit(direction, null);
+            if ( exit != null ) {
+                if ( applyChanges )
+                {
+                    entity.move(direction);
+                    entity.setCurrentLine(exit);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // check whether the user is trying to move along the current line
+        if ( entity.getCurrentLine().isHorizontal() && ( direction == Direction.LEFT || direction == Direction.RIGHT ) )
+        {
+            if ( applyChanges )
+            {
+                entity.move(direction);
+            }
+            return true;
+        }
+        if ( entity.getCurrentLine().isVertical() && ( direction == Direction.UP || direction == Direction.DOWN ) )
+        {
+            if ( applyChanges )
+            {
+                entity.move(direction);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void closePoly()
+    {
+        // TODO: Remove debug code
+        lastPath.clear();
+        lastPath.addAll( currentPoly.lines );
+
+        if ( floodFillClaims )
+        {
+            // trail needs to be part of the playfield raster before filling
+            playfieldLines.addAll( currentPoly.lines );
+            final int claimed = claimEngine.claim( currentPoly.lines, quix.getLines() );
+            player.area += claimed;
+            player.score += claimed * scoreFactor( currentPoly.mode );
+        }
+        else
+        {
+            // search path on the playfield must not include the trail. A trail drawn on top
+            // of playfield lines encloses nothing (just like when flood filling) while
+            // the path back would lead around the whole playfield
+            final List<Poly> triangles = isOnPlayfieldLines( currentPoly.lines ) ?
+                Collections.emptyList() : claimUsingTriangulation();
+            // trail pixels must not get claimed
+            playfieldLines.addAll( currentPoly.lines );
+            for ( int i = 0, len = triangles.size() ; i < len ; i++ )
+            {
+                final List<Line> edges = triangles.get( i ).edges;
+                claimEngine.claimTriangle( edges.get( 0 ).x0(), edges.get( 0 ).y0(),
+                                           edges.get( 1 ).x0(), edges.get( 1 ).y0(),
+                                           edges.get( 2 ).x0(), edges.get( 2 ).y0() );
+            }
+        }
+        trailRaster.clear();
+        currentPoly=null;
+        playfieldVersion++;
+    }
+
+    /**
+     * Returns whether every pixel of the given (horizontal or vertical) lines is covered by a playfield line.
+     */
+    private boolean isOnPlayfieldLines(List<Line> lines)
+    {
+        for ( int i = 0, len = lines.size() ; i < len ; i++ )
+        {
+            final Line l = lines.get( i );
+            final int dx = Integer.signum( l.x1() - l.x0() );
+            final int dy = Integer.signum( l.y1() - l.y0() );
+            for ( int x = l.x0(), y = l.y0() ; ; x += dx, y += dy )
+            {
+                if ( ! playfieldRaster.isSet( x, y ) ) {
+                    return false;
+                }
+                if ( x == l.x1() && y == l.y1() ) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int scoreFactor(Mode mode)
+    {
+        switch( mode ) {
+            case LINE_FAST:
+                return 1;
+            case LINE_SLOW:
+                return 2;
+            default:
+                throw new IllegalStateException( "Unexpected value: " + mode );
+        }
+    }
+
+    /**
+     * Updates area and score from the polygon enclosed by the trail and the shortest path
+     * back along the playfield.
+     *
+     * @return triangulation of the claimed polygon, empty if it could not be found
+     */
+    private List<Poly> claimUsingTriangulation()
+    {
+        try
+        {
+            final int firstNodeID = currentPoly.firstNode.id;
+            final int lastNodeID = currentPoly.lastNode.id;
+            if ( Trace.ENABLED )
+            {
+                final Node first = currentPoly.firstNode;
+                final Node last = currentPoly.lastNode;
+                Trace.record( TraceEvent.PATH_SEARCH, first.id, first.x, first.y, last.id, last.x, last.y );
+            }
+            final List<Integer> path = astar.findPath( firstNodeID, lastNodeID, mesh, null );
+            if ( path.size() < 2 ) {
+                throw new RuntimeException("Internal error, found no path between nodes?");
+            }
+
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.PATH_FOUND, path.size() );
+            }
+
+            final List<Line> searchPath = searchPathToLines( path );
+            Collections.reverse(searchPath);
+            lastPath.addAll( searchPath );
+            // TODO: Remove debug code
+
+            final List<Poly> newPolys = lastPath.toPolygon().triangulate();
+
+            // update area
+            double sumArea = newPolys.stream().mapToDouble( x -> x.area() ).sum();
+            player.area += (float) sumArea;
+
+            // update score
+            player.score += (int) (sumArea*scoreFactor( currentPoly.mode ));
+            return newPolys;
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    private List<Line> searchPathToLines(List<Integer> nodeIds)
+    {
+        final List<Line> result = new ArrayList<>();
+        for ( int ptr = 0 ; ptr < nodeIds.size() ; ptr++ )
+        {
+            final Node current = nodes.get( nodeIds.get(ptr) );
+            if ( ptr+1 >= nodeIds.size() ) {
+                break;
+            }
+            final Node next = nodes.get( nodeIds.get(ptr+1) );
+            Line currentLine = playfieldLines.findLine(current,next);
+            if ( currentLine == null ) {
+                // check current polygon
+                currentLine = currentPoly.findLine( current,next );
+                if ( currentLine == null )
+                {
+                    throw new RuntimeException( "Found no line for " + current + " -> " + next );
+                }
+            }
+            result.add( currentLine );
+        }
+        return result;
+    }
+
+
+    public Mode getMode(Mode wanted) {
+        return currentPoly != null ? currentPoly.mode : wanted;
+    }
+
+    @Override
+    public boolean isBorder(Line tmp)
+    {
+        final Node endpoint = tmp.node0;
+        return (tmp.isHorizontal() && ( endpoint.y == 0 || endpoint.y == PLAYFIELD_HEIGHT ) ) ||
+        (tmp.isVertical() && ( endpoint.x == 0 || endpoint.x == PLAYFIELD_WIDTH ));
+    }
+
+    @Override
+    public Line getLine(int x, int y)
+    {
+        Line result = playfieldLines.getLine( x, y );
+        if ( result == null && currentPoly != null ) {
+            result = currentPoly.getLine( x, y );
+        }
+        return result;
+    }
+
+    @Override
+    public Node split(Line line, int xSplit, int ySplit)
+    {
+        playfieldVersion++;
+        return playfieldLines.split(line,xSplit,ySplit);
+    }
+
+    @Override
+    public Line intersects(int x0, int y0, int x1, int y1)
+    {
+        Line result = playfieldLines.intersects(x0,y0,x1,y1);
+        if ( result == null && currentPoly != null ) {
+            return currentPoly.intersects(x0,y0,x1,y1);
+        }
+        return result;
+    }
+
+    @Override
+    public Line intersects(Line line)
+    {
+        Line result = playfieldLines.intersects(line);
+        if ( result == null && currentPoly != null ) {
+            return currentPoly.intersects(line);
+        }
+        return result;
+    }
+
+    /**
+     * Advances the game by one frame: moves the player (twice, the player is faster than the enemies)
+     * according to the given controls and then ticks the Quix and all enemies.
+     *
+     * @param controls bit mask of {@link Controls} flags
+     */
+    public void step(int controls)
+    {
+        final boolean left = Controls.isSet( controls, Controls.LEFT );
+        final boolean right = Controls.isSet( controls, Controls.RIGHT );
+        final boolean up = Controls.isSet( controls, Controls.UP );
+        final boolean down = Controls.isSet( controls, Controls.DOWN );
+        final Mode mode = Controls.getMode( controls );
+        if ( ! gameOver ) {
+            movePlayer( left, right, up, down, mode );
+        }
+        if ( ! gameOver ) {
+            movePlayer( left, right, up, down, mode );
+        }
+        tick();
+    }
+
+    public void tick()
+    {
+        if ( gameOver ) {
+            return;
+        }
+
+        // animate quix
+        quix.tick( this );
+
+        if ( gameOver ) {
+            return;
+        }
+
+        // animate enemies
+outer:
+        for ( int j = difficulty.enemySpeed ; j > 0 ; j-- )
+        {
+            for (int i = 0, enemiesSize = enemies.size(); i < enemiesSize; i++)
+            {
+                final Enemy enemy = enemies.get( i );
+                if ( player.dst2( enemy ) < ENEMY_RADIUS * ENEMY_RADIUS )
+                {
+                    gameOver = true;
+                    break outer;
+                }
+                if ( ! enemy.outOfBounds )
+                {
+                    enemy.tick( this );
+                }
+            }
+        }
+    }
+
+    public void spawnEnemy()
+    {
+        final Enemy enemy = new Enemy( nextEnemyId++ );
+
+        final List<Line> candidates = playfieldLines.lines;
+        do
+        {
+            final int idx = rnd.nextInt( candidates.size() );
+            final Line l = candidates.get(idx);
+
+            final int min,max;
+            if ( l.isHorizontal() ) {
+                min = l.leftNode().x;
+                max = l.rightNode().x;
+            } else if ( l.isVertical() ) {
+                min = l.topNode().y;
+                max = l.bottomNode().y;
+            } else {
+                throw new RuntimeException("Not a border (horizontal|vertical) line ? "+l);
+            }
+            int pos = min + rnd.nextInt(max-min);
+            if ( l.isHorizontal() ) {
+                enemy.set( pos , l.y0() );
+                enemy.direction = rnd.nextBoolean() ? Direction.LEFT : Direction.RIGHT;
+            } else {
+                enemy.set( l.x0(), pos );
+                enemy.direction = rnd.nextBoolean() ? Direction.UP : Direction.DOWN;
+            }
+
+            // set current line AFTER adjusting the position
+            // so we don't get "not on line" sanity check errors
+            enemy.setCurrentLine( l );
+
+            // don't spawn too close to player
+        } while (enemy.dst2( player ) <= MIN_ENEMY_SPAWN_DISTANCE_TO_PLAYER*MIN_ENEMY_SPAWN_DISTANCE_TO_PLAYER );
+        enemies.add( enemy );
+    }
+
+    public Node getClosestNode(Vec2 p) {
+        return getClosestNode( p.x, p.y );
+    }
+
+    public Node getClosestNode(float x, float y)
+    {
+        return playfieldProximity.nearestNode( x, y, Float.POSITIVE_INFINITY );
+    }
+
+    public Line getClosestLine(Vec2 p) {
+        return getClosestLine( p.x, p.y );
+    }
+
+    /**
+     * Returns the playfield line closest to a point.
+     *
+     * @return line or <code>null</code> if all lines are more than 20 pixels away
+     */
+    public Line getClosestLine(float x, float y)
+    {
+        return playfieldProximity.nearestLine( x, y, 20 );
+    }
+
+    private void setupQuix(Difficulty difficulty)
+    {
+        int p0x=50,p0y=50,p1x=75,p1y=25;
+        int xStep = 5, yStep = 5;
+        for ( int lines = difficulty.quixLineCount ; lines > 0 ; lines-- )
+        {
+            final QuixLine line = new QuixLine( p0x, p0y, p1x, p1y );
+            line.dx0 = 1;
+            line.dy0 = 1;
+
+            line.dx1 = 1;
+            line.dy1 = 1;
+            quix.add( line );
+
+            p0x += xStep;
+            p0y += xStep;
+
+            p1x += yStep;
+            p1y += yStep;
+        }
+    }
+
+    public final NavMesh mesh = new AbstractNavMesh(nodes)
+    {
+        private int safeGet(int forbiddenId, int toTest) {
+            if ( forbiddenId == toTest ) {
+                throw new RuntimeException("Line has same start and end point ?");
+            }
+            return toTest;
+        }
+
+        @Override
+        public int getNeighbours(int node, NodeMarkers markers, int[] result)
+        {
+            Node n = nodes.get(node);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.MESH_NEIGHBOURS, n.id, n.x, n.y );
+            }
+
+            int count=0;
+            if ( n.up != null )
+            {
+                final Node other = n.up.getOther( n );
+                if ( ! markers.isClosed( other.id ) && ! currentPoly.containsIdentity(n.up) )
+                {
+                    if ( Trace.ENABLED ) {
+                        Trace.record( TraceEvent.MESH_NEIGHBOUR, Direction.UP.ordinal(), other.id, other.x, other.y );
+                    }
+                    result[count++] = safeGet( n.id, other.id );
+                }
+            }
+            if ( n.down != null ) {
+                final Node other = n.down.getOther( n );
+                if ( ! markers.isClosed( other.id ) && ! currentPoly.containsIdentity(n.down) )
+                {
+                    if ( Trace.ENABLED ) {
+                        Trace.record( TraceEvent.MESH_NEIGHBOUR, Direction.DOWN.ordinal(), other.id, other.x, other.y );
+                    }
+                    result[count++] = safeGet( n.id, other.id );
+                }
+            }
+            if ( n.left!= null ) {
+                final Node other = n.left.getOther( n );
+                if ( ! markers.isClosed( other.id ) &&  ! currentPoly.containsIdentity(n.left) )
+                {
+                    if ( Trace.ENABLED ) {
+                        Trace.record( TraceEvent.MESH_NEIGHBOUR, Direction.LEFT.ordinal(), other.id, other.x, other.y );
+                    }
+                    result[count++] = safeGet( n.id, other.id );
+                }
+            }
+            if ( n.right!= null )
+            {
+                final Node other = n.right.getOther( n );
+                if ( ! markers.isClosed( other.id ) && ! currentPoly.containsIdentity(n.right))
+                {
+                    if ( Trace.ENABLED ) {
+                        Trace.record( TraceEvent.MESH_NEIGHBOUR, Direction.RIGHT.ordinal(), other.id, other.x, other.y );
+                    }
+                    result[count++] = safeGet( n.id, other.id );
+                }
+            }
+            return count;
+        }
+    };
+
+    public void movePlayer(boolean left, boolean right, boolean up, boolean down, Mode desiredMode)
+    {
+        final Mode mode = getMode( desiredMode );
+        final Direction leftRight = left ? Direction.LEFT : Direction.RIGHT;
+        final Direction upDown = up ? Direction.UP : Direction.DOWN;
+
+        boolean canMoveSideways = false;
+        boolean canMoveUpDown = false;
+
+        if ( left || right )
+        {
+            canMoveSideways = move(player, leftRight, mode, false);
+        }
+        if ( up || down )
+        {
+            canMoveUpDown = move(player, upDown, mode, false);
+        }
+        Direction newDir = null;
+        if ( ! isDrawingPoly() && player.previousMovement != null && ( left || right) && ( up || down ) )
+        {
+            // user tries to move left (or right) and up (or down) at the same time
+            if ( player.previousMovement.isVerticalMovement() ) {
+                // previously moved up or down
+                if ( canMoveSideways ) {
+                    newDir = leftRight;
+                } else if ( canMoveUpDown ){
+                    newDir = upDown;
+                }
+            } else if ( player.previousMovement.isHorizontalMovement() ) {
+                // previously moved left or right
+                if ( canMoveUpDown ){
+                    newDir = upDown;
+                } else if ( canMoveSideways ) {
+                    newDir = leftRight;
+                }
+            } else {
+                throw new RuntimeException("Unreachable code reached");
+            }
+        }
+        else
+        {
+            // move in one direction only
+            if ( left || right )
+            {
+                newDir = canMoveSideways ? leftRight : null;
+            } else if ( up || down )
+            {
+                newDir = canMoveUpDown ? upDown : null;
+            }
+        }
+        if ( newDir != null )
+        {
+            move(player, newDir, mode, true);
+            player.previousMovement = newDir;
+        }
+    }
+
+    public void markGameOver() {
+        gameOver = true;
+    }
+
+    public Quix getQuix()
+    {
+        return quix;
+    }
+
+    public List<Enemy> getEnemies()
+    {
+        return enemies;
+    }
+
+    /**
+     * Returns a number that changes whenever the settled part of the playfield
+     * (lines, claimed area) changes.
+     *
+     * Renderers can use this to decide whether cached images of the playfield are still valid.
+     */
+    public int getPlayfieldVersion()
+    {
+        return playfieldVersion;
+    }
+
+    /**
+     * Returns the area claimed by the player.
+     *
+     * When {@link #floodFillClaims} is disabled, this is the area covered by the triangulated polygons.
+     */
+    public ClaimedRaster getClaimedArea()
+    {
+        return claimedArea;
+    }
+
+    /**
+     * Returns the trail the player is currently drawing.
+     *
+     * @return trail or <code>null</code> if the player is not drawing
+     */
+    public IncompleteLineCollection getCurrentPoly()
+    {
+        return currentPoly;
+    }
+
+    // TODO: Remove debug code
+    public LineCollection getLastPath()
+    {
+        return lastPath;
+    }
+
+    /**
+     * Copies the whole game state into a new snapshot.
+     *
+     * @return snapshot
+     * @see #snapshot(GameStateSnapshot)
+     */
+    public GameStateSnapshot snapshot() {
+        return snapshot( new GameStateSnapshot() );
+    }
+
+    /**
+     * Copies the whole game state into a snapshot, overwriting its previous contents.
+     *
+     * Nodes and lines are written as tables where references to other nodes/lines are replaced by table
+     * indices. Arena nodes come first (so they keep their IDs on restore), followed by nodes that are
+     * not registered with the arena (like the moving end of the trail). Lines are ordered
+     * playfield lines first, followed by the lines of the trail and finally the trail's current line.
+     *
+     * @param dest snapshot to write to
+     * @return <code>dest</code>
+     */
+    public GameStateSnapshot snapshot(GameStateSnapshot dest)
+    {
+        dest.clear();
+
+        // assign table indices
+        snapshotLineCount = 0;
+        final List<Line> playfield = playfieldLines.lines;
+        for (int i = 0, len = playfield.size(); i < len; i++) {
+            addToLineTable( playfield.get( i ) );
+        }
+        final List<Line> trail = currentPoly == null ? Collections.emptyList() : currentPoly.lines;
+        for (int i = 0, len = trail.size(); i < len; i++) {
+            addToLineTable( trail.get( i ) );
+        }
+        if ( currentPoly != null ) {
+            addToLineTable( currentPoly.currentLine );
+        }
+        snapshotNodeCount = 0;
+        final int arenaSize = nodes.size();
+        for (int i = 0; i < snapshotLineCount; i++)
+        {
+            final Line line = snapshotLines[i];
+            addToNodeTable( line.node0 );
+            addToNodeTable( line.node1 );
+        }
+
+        // nodes
+        dest.put( arenaSize );
+        dest.put( snapshotNodeCount );
+        for (int i = 0, len = arenaSize + snapshotNodeCount; i < len; i++)
+        {
+            final Node node = i < arenaSize ? nodes.get( i ) : snapshotNodes[i - arenaSize];
+            dest.put( node.x );
+            dest.put( node.y );
+            dest.put( exitIndex( node.up ) );
+            dest.put( exitIndex( node.left ) );
+            dest.put( exitIndex( node.right ) );
+            dest.put( exitIndex( node.down ) );
+        }
+
+        // lines
+        dest.put( playfield.size() );
+        dest.put( trail.size() );
+        dest.putBoolean( currentPoly != null );
+        for (int i = 0; i < snapshotLineCount; i++)
+        {
+            final Line line = snapshotLines[i];
+            dest.put( nodeIndex( line.node0, arenaSize ) );
+            dest.put( nodeIndex( line.node1, arenaSize ) );
+            dest.putEnum( line instanceof DirectedLine ? ((DirectedLine) line).direction : null );
+            dest.putFloat( line.m );
+        }
+        final List<Line> path = lastPath.lines;
+        dest.put( path.size() );
+        for (int i = 0, len = path.size(); i < len; i++) {
+            dest.put( lineIndex( path.get( i ) ) );
+        }
+        if ( currentPoly != null )
+        {
+            dest.putEnum( currentPoly.mode );
+            dest.put( nodeIndex( currentPoly.firstNode, arenaSize ) );
+            dest.put( currentPoly.lastNode == null ? -1 : nodeIndex( currentPoly.lastNode, arenaSize ) );
+        }
+
+        // entities
+        dest.put( player.x );
+        dest.put( player.y );
+        dest.put( lineIndex( player.getCurrentLine() ) );
+        dest.putFloat( player.area );
+        dest.put( player.score );
+        dest.putEnum( player.previousMovement );
+
+        dest.put( difficulty.quixSpeed );
+        dest.put( difficulty.quixLineCount );
+        dest.put( difficulty.enemyCount );
+        dest.put( difficulty.enemySpeed );
+
+        dest.put( enemies.size() );
+        for (int i = 0, len = enemies.size(); i < len; i++)
+        {
+            final Enemy enemy = enemies.get( i );
+            dest.putLong( enemy.id );
+            dest.put( enemy.x );
+            dest.put( enemy.y );
+            dest.putBoolean( enemy.outOfBounds );
+            dest.putEnum( enemy.direction );
+            dest.put( lineIndex( enemy.getCurrentLine() ) );
+        }
+
+        dest.put( quix.randomizationInterval );
+        dest.put( quix.currentTick );
+        dest.putLong( quix.getRandom().getState() );
+        final List<QuixLine> quixLines = quix.getLines();
+        dest.put( quixLines.size() );
+        for (int i = 0, len = quixLines.size(); i < len; i++)
+        {
+            final QuixLine line = quixLines.get( i );
+            dest.put( line.x0() );
+            dest.put( line.y0() );
+            dest.put( line.x1() );
+            dest.put( line.y1() );
+            dest.put( line.dx0 );
+            dest.put( line.dy0 );
+            dest.put( line.dx1 );
+            dest.put( line.dy1 );
+            dest.putFloat( line.m );
+        }
+
+        dest.putBoolean( gameOver );
+        dest.putBoolean( floodFillClaims );
+        dest.putLong( rnd.getState() );
+        dest.putLong( seed );
+        dest.putLong( nextEnemyId );
+
+        claimedArea.copyTo( dest.getClaimed( claimedArea.getWordCount() ) );
+
+        Arrays.fill( snapshotLines, 0, snapshotLineCount, null );
+        Arrays.fill( snapshotNodes, 0, snapshotNodeCount, null );
+        return dest;
+    }
+
+    private void addToLineTable(Line line)
+    {
+        if ( snapshotLineCount == snapshotLines.length ) {
+            snapshotLines = Arrays.copyOf( snapshotLines, snapshotLines.length * 2 );
+        }
+        line.snapshotIndex = snapshotLineCount;
+        snapshotLines[snapshotLineCount++] = line;
+    }
+
+    private int lineIndex(Line line)
+    {
+        if ( line == null ) {
+            return -1;
+        }
+        final int idx = line.snapshotIndex;
+        if ( idx < 0 || idx >= snapshotLineCount || snapshotLines[idx] != line ) {
+            throw new IllegalStateException( "Line is not part of the playfield or trail: " + line );
+        }
+        return idx;
+    }
+
+    // exits to lines that are no longer part of the game (stale arena nodes) are dropped
+    private int exitIndex(Line line)
+    {
+        if ( line == null ) {
+            return -1;
+        }
+        final int idx = line.snapshotIndex;
+        return idx >= 0 && idx < snapshotLineCount && snapshotLines[idx] == line ? idx : -1;
+    }
+
+    // remembers nodes that are not registered with the arena
+    private void addToNodeTable(Node node)
+    {
+        if ( nodes.contains( node ) ) {
+            return;
+        }
+        for (int i = 0; i < snapshotNodeCount; i++)
+        {
+            if ( snapshotNodes[i] == node ) {
+                return;
+            }
+        }
+        if ( snapshotNodeCount == snapshotNodes.length ) {
+            snapshotNodes = Arrays.copyOf( snapshotNodes, snapshotNodes.length * 2 );
+        }
+        snapshotNodes[snapshotNodeCount++] = node;
+    }
+
+    private int nodeIndex(Node node, int arenaSize)
+    {
+        if ( nodes.contains( node ) ) {
+            return node.id;
+        }
+        for (int i = 0; i < snapshotNodeCount; i++)
+        {
+            if ( snapshotNodes[i] == node ) {
+                return arenaSize + i;
+            }
+        }
+        throw new IllegalStateException( "Node is not part of the playfield or trail: " + node );
+    }
+
+    /**
+     * Replaces the whole game state with the contents of a snapshot.
+     *
+     * The node/line graph is re-created from scratch, the snapshot can be restored any
+     * number of times (and into any game state).
+     *
+     * @param snapshot snapshot to restore
+     */
+    public void restore(GameStateSnapshot snapshot)
+    {
+        snapshot.rewind();
+
+        // nodes, exits are wired up once all lines exist
+        final int arenaSize = snapshot.get();
+        final int nodeCount = arenaSize + snapshot.get();
+        final Node[] nodeTable = new Node[ nodeCount ];
+        final int[] exits = new int[ nodeCount * 4 ];
+        for (int i = 0, ptr = 0; i < nodeCount; i++)
+        {
+            nodeTable[i] = new Node( snapshot.get(), snapshot.get() );
+            exits[ptr++] = snapshot.get();
+            exits[ptr++] = snapshot.get();
+            exits[ptr++] = snapshot.get();
+            exits[ptr++] = snapshot.get();
+        }
+
+        // lines
+        final int playfieldCount = snapshot.get();
+        final int trailCount = snapshot.get();
+        final boolean drawing = snapshot.getBoolean();
+        final int lineCount = playfieldCount + trailCount + (drawing ? 1 : 0);
+        final Line[] lineTable = new Line[ lineCount ];
+        final Direction[] directions = Direction.values();
+        for (int i = 0; i < lineCount; i++)
+        {
+            final Node n0 = nodeTable[snapshot.get()];
+            final Node n1 = nodeTable[snapshot.get()];
+            final Direction direction = GameStateSnapshot.getEnum( snapshot.get(), directions );
+            final Line line = direction == null ? new Line( n0, n1 ) : new DirectedLine( direction, n0, n1 );
+            line.m = snapshot.getFloat();
+            lineTable[i] = line;
+        }
+        for (int i = 0, ptr = 0; i < nodeCount; i++)
+        {
+            final Node node = nodeTable[i];
+            node.up = lineOrNull( lineTable, exits[ptr++] );
+            node.left = lineOrNull( lineTable, exits[ptr++] );
+            node.right = lineOrNull( lineTable, exits[ptr++] );
+            node.down = lineOrNull( lineTable, exits[ptr++] );
+        }
+
+        // rebuild lookup structures, adding lines in their original
+        // order so the rasters end up with the same pixel ownership
+        nodes.reset( nodeTable, arenaSize );
+        playfieldLines.clear();
+        trailRaster.clear();
+        for (int i = 0; i < playfieldCount; i++) {
+            playfieldLines.add( lineTable[i] );
+        }
+        lastPath.clear();
+        for (int i = snapshot.get(); i > 0; i--) {
+            lastPath.add( lineTable[snapshot.get()] );
+        }
+        if ( drawing )
+        {
+            final Mode mode = GameStateSnapshot.getEnum( snapshot.get(), Mode.values() );
+            final Node firstNode = nodeTable[snapshot.get()];
+            final int lastNode = snapshot.get();
+            final List<Line> trail = Arrays.asList( lineTable ).subList( playfieldCount, playfieldCount + trailCount );
+            currentPoly = new IncompleteLineCollection(trailRaster, nodes, mode, firstNode,
+                lastNode == -1 ? null : nodeTable[lastNode], trail, (DirectedLine) lineTable[lineCount - 1])
+            {
+                @Override
+                protected void currentLineChanged(Line line)
+                {
+                    player.setCurrentLine( line );
+                }
+            };
+        } else {
+            currentPoly = null;
+        }
+
+        // entities
+        player = new Player();
+        player.set( snapshot.get(), snapshot.get() );
+        player.setCurrentLine( lineTable[snapshot.get()] );
+        player.area = snapshot.getFloat();
+        player.score = snapshot.get();
+        player.previousMovement = GameStateSnapshot.getEnum( snapshot.get(), directions );
+
+        difficulty = new Difficulty( snapshot.get(), 0 );
+        difficulty.quixLineCount = snapshot.get();
+        difficulty.enemyCount = snapshot.get();
+        difficulty.enemySpeed = snapshot.get();
+
+        enemies.clear();
+        for (int i = snapshot.get(); i > 0; i--)
+        {
+            final Enemy enemy = new Enemy( snapshot.getLong() );
+            enemy.set( snapshot.get(), snapshot.get() );
+            enemy.outOfBounds = snapshot.getBoolean();
+            enemy.direction = GameStateSnapshot.getEnum( snapshot.get(), directions );
+            enemy.setCurrentLine( lineTable[snapshot.get()] );
+            enemies.add( enemy );
+        }
+
+        quix = new Quix( quixSeed() );
+        quix.randomizationInterval = snapshot.get();
+        quix.currentTick = snapshot.get();
+        quix.getRandom().setState( snapshot.getLong() );
+        for (int i = snapshot.get(); i > 0; i--)
+        {
+            final QuixLine line = new QuixLine( snapshot.get(), snapshot.get(), snapshot.get(), snapshot.get() );
+            line.dx0 = snapshot.get();
+            line.dy0 = snapshot.get();
+            line.dx1 = snapshot.get();
+            line.dy1 = snapshot.get();
+            line.m = snapshot.getFloat();
+            // bypass Quix#add(), headings are already consistent
+            quix.getLines().add( line );
+        }
+
+        gameOver = snapshot.getBoolean();
+        floodFillClaims = snapshot.getBoolean();
+        rnd.setState( snapshot.getLong() );
+        seed = snapshot.getLong();
+        nextEnemyId = snapshot.getLong();
+
+        claimedArea.copyFrom( snapshot.getClaimed( claimedArea.getWordCount() ) );
+        playfieldVersion++;
+    }
+
+    private static Line lineOrNull(Line[] table, int idx) {
+        return idx == -1 ? null : table[idx];
+    }
+}
\ No newline at end of file
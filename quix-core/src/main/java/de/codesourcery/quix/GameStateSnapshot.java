@@ -0,0 +1,113 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+
+/**
+ * Flat copy of a {@link GameState}, created by {@link GameState#snapshot(GameStateSnapshot)}
+ * and applied using {@link GameState#restore(GameStateSnapshot)}.
+ *
+ * The node/line graph is stored as tables of plain ints where references
+ * are replaced by table indices, the claimed area is stored as raw bitmap words.
+ * Instances are meant to be re-used, the backing arrays only ever grow so taking
+ * a snapshot into an existing instance usually does not allocate.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class GameStateSnapshot
+{
+    private int[] data = new int[1024];
+    private int size;
+    private int readPtr;
+
+    private long[] claimed = new long[0];
+
+    /**
+     * Returns the number of ints used by this snapshot (excluding the claimed area).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether two snapshots describe exactly the same game state.
+     */
+    public boolean contentEquals(GameStateSnapshot other)
+    {
+        return Arrays.equals( data, 0, size, other.data, 0, other.size ) && Arrays.equals( claimed, other.claimed );
+    }
+
+    void clear()
+    {
+        size = 0;
+        readPtr = 0;
+    }
+
+    void put(int value)
+    {
+        if ( size == data.length ) {
+            data = Arrays.copyOf( data, data.length * 2 );
+        }
+        data[size++] = value;
+    }
+
+    void putLong(long value)
+    {
+        put( (int) (value >>> 32) );
+        put( (int) value );
+    }
+
+    void putFloat(float value) {
+        put( Float.floatToRawIntBits( value ) );
+    }
+
+    void putBoolean(boolean value) {
+        put( value ? 1 : 0 );
+    }
+
+    void putEnum(Enum<?> value) {
+        put( value == null ? -1 : value.ordinal() );
+    }
+
+    /**
+     * Makes sure the next read starts at the beginning of the snapshot.
+     */
+    void rewind() {
+        readPtr = 0;
+    }
+
+    int get()
+    {
+        if ( readPtr >= size ) {
+            throw new IllegalStateException( "Read past end of snapshot" );
+        }
+        return data[readPtr++];
+    }
+
+    long getLong()
+    {
+        final long hi = get();
+        return hi << 32 | ( get() & 0xffffffffL );
+    }
+
+    float getFloat() {
+        return Float.intBitsToFloat( get() );
+    }
+
+    boolean getBoolean() {
+        return get() != 0;
+    }
+
+    static <T extends Enum<T>> T getEnum(int ordinal, T[] values) {
+        return ordinal == -1 ? null : values[ordinal];
+    }
+
+    long[] getClaimed(int wordCount)
+    {
+        if ( claimed.length != wordCount ) {
+            claimed = new long[ wordCount ];
+        }
+        return claimed;
+    }
+}
@@ -0,0 +1,74 @@
+package de.codesourcery.quix;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Runs the game simulation without any display, steering the player
+ * with pseudo-random input.
+ *
+ * Usage: <code>HeadlessRunner [ticks] [seed] [recording]</code>
+ *
+ * If a recording file is given, the input gets recorded so it can be replayed using {@link InputReplayer}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class HeadlessRunner
+{
+    // number of ticks to keep the same (random) input
+    private static final int INPUT_HOLD_TICKS = 32;
+
+    public static void main(String[] args) throws IOException
+    {
+        final long ticks = args.length > 0 ? Long.parseLong( args[0] ) : 100_000L;
+        final long seed = args.length > 1 ? Long.parseLong( args[1] ) : 0xdeadbeefL;
+
+        final GameState gameState = new GameState();
+        final InputRecorder recorder = args.length > 2 ?
+            new InputRecorder( new FileOutputStream( args[2] ), GameLoop.DEFAULT_TICKS_PER_SECOND, gameState.getSeed() ) : null;
+
+        final long start = System.nanoTime();
+        final int games = simulate( gameState, ticks, seed, recorder );
+        final long elapsedNanos = System.nanoTime() - start;
+        if ( recorder != null ) {
+            recorder.close();
+        }
+        final double ticksPerSecond = ticks / ( elapsedNanos / 1_000_000_000d );
+        System.out.println( "Simulated " + ticks + " ticks (" + games + " games) in "
+                + ( elapsedNanos / 1_000_000 ) + " ms, " + (long) ticksPerSecond + " ticks/s" );
+    }
+
+    /**
+     * Simulates a game with pseudo-random input, restarting it whenever it is over.
+     *
+     * @param gameState game to simulate
+     * @param ticks number of ticks to simulate
+     * @param inputSeed seed used to generate the input
+     * @param recorder recorder to record the input with, may be <code>null</code>
+     * @return number of games played
+     */
+    public static int simulate(GameState gameState, long ticks, long inputSeed, InputRecorder recorder) throws IOException
+    {
+        final RandomInput input = new RandomInput( inputSeed, INPUT_HOLD_TICKS );
+
+        int games = 1;
+        for ( long tick = 0 ; tick < ticks ; tick++ )
+        {
+            final int controls = input.next();
+            if ( recorder != null ) {
+                recorder.tick( controls );
+            }
+            gameState.step( controls );
+
+            if ( gameState.gameOver )
+            {
+                if ( recorder != null ) {
+                    recorder.restart();
+                }
+                gameState.restart();
+                games++;
+            }
+        }
+        return games;
+    }
+}
@@ -1,6 +1,6 @@
 package de.codesourcery.quix;
 
-import java.awt.Graphics2D;
+import java.util.List;
 
 public abstract class IncompleteLineCollection extends LineCollection
 {
@@ -19,6 +19,12 @@ public abstract class IncompleteLineCollection extends LineCollection
 
     public IncompleteLineCollection(Mode mode, Direction currentDirection, Node newNode)
     {
+        this( null, null, mode, currentDirection, newNode );
+    }
+
+    public IncompleteLineCollection(LineRaster raster, NodeArena nodes, Mode mode, Direction currentDirection, Node newNode)
+    {
+        super( raster, nodes );
         if ( currentDirection == null ) {
             throw new IllegalArgumentException("currentDirection cannot be NULL");
         }
@@ -44,9 +50,36 @@ public abstract class IncompleteLineCollection extends LineCollection
                 newNode.setDown( currentLine );
                 break;
         }
+        if ( raster != null ) {
+            raster.add( currentLine );
+        }
         currentLineChanged( currentLine );
     }
 
+    /**
+     * Re-creates a collection from a snapshot.
+     *
+     * Unlike the other constructors this one does not touch the nodes' exits, these are expected
+     * to have been restored already.
+     *
+     * @param lines completed lines, in the order they were originally added
+     * @param currentLine line currently being drawn
+     */
+    protected IncompleteLineCollection(LineRaster raster, NodeArena nodes, Mode mode, Node firstNode, Node lastNode,
+                                       List<Line> lines, DirectedLine currentLine)
+    {
+        super( raster, nodes );
+        this.firstNode = firstNode;
+        this.lastNode = lastNode;
+        this.mode = mode;
+        this.currentLine = currentLine;
+        // same order as during the original drawing so pixel ownership in the raster is the same
+        lines.forEach( this::add );
+        if ( raster != null ) {
+            raster.add( currentLine );
+        }
+    }
+
     public MoveResult tryMove(Direction newDirection,ICollisionCheck check,boolean applyChanges)
     {
         if ( lastNode != null ) {
@@ -69,6 +102,9 @@ public abstract class IncompleteLineCollection extends LineCollection
                 {
                     // we keep moving in the same direction
                     currentLine.move();
+                    if ( raster != null ) {
+                        raster.set( x1, y1, currentLine );
+                    }
                 }
                 else
                 {
@@ -76,6 +112,9 @@ public abstract class IncompleteLineCollection extends LineCollection
                     // initialize a new one
                     add(currentLine);
                     currentLine = currentLine.changeDirection(newDirection);
+                    if ( raster != null ) {
+                        raster.add( currentLine );
+                    }
                 }
             }
             return MoveResult.MOVED;
@@ -90,8 +129,13 @@ public abstract class IncompleteLineCollection extends LineCollection
 
         if ( applyChanges )
         {
-            add(currentLine);
-
+            if ( newDirection != currentLine.direction )
+            {
+                // we hit the line right after changing direction,
+                // the last segment is the one in the new direction
+                add(currentLine);
+                currentLine = currentLine.changeDirection(newDirection);
+            }
             final Node newNode = check.split(line, x1, y1);
             lastNode = newNode;
 
@@ -110,22 +154,17 @@ public abstract class IncompleteLineCollection extends LineCollection
                     currentLine.setBottomNode(newNode);
                     break;
             }
-            System.out.println("*** Touched foreign line ***");
+            // add line only after its final endpoint
+            // has been set so it gets indexed correctly
+            add(currentLine);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.TRAIL_TOUCHED_LINE, line.x0(), line.y0(), line.x1(), line.y1() );
+            }
             currentLineChanged(line);
         }
         return MoveResult.TOUCHED_FOREIGN_LINE;
     }
 
-    @Override
-    public void draw(Graphics2D gfx)
-    {
-        super.draw(gfx);
-        if ( lastNode == null )
-        {
-            currentLine.draw(gfx);
-        }
-    }
-
     @Override
     public Line getLine(int x, int y) {
         Line result = super.getLine(x,y);
@@ -147,13 +186,8 @@ public abstract class IncompleteLineCollection extends LineCollection
     @Override
     public Line intersects(int x0,int y0,int x1,int y1) {
         Line result = super.intersects(x0,y0,x1,y1);
-        if ( result == null )
-        {
-            tmp.set(x0,y0,x1,y1);
-            if ( currentLine.intersects(tmp) )
-            {
-                result = currentLine;
-            }
+        if ( result == null && SegmentIntersection.intersects( currentLine.x0(), currentLine.y0(), currentLine.x1(), currentLine.y1(), x0, y0, x1, y1 ) ) {
+            result = currentLine;
         }
         return result;
     }
@@ -0,0 +1,117 @@
+package de.codesourcery.quix;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, preallocated single-producer/single-consumer queue of timestamped input events.
+ *
+ * Each event tells that a set of {@link Controls} flags got pressed or released.
+ * Exactly one thread (e.g. the Swing EDT) may offer events and exactly one thread
+ * (the simulation thread) may drain them. Neither side ever blocks, locks or allocates.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see GameLoop
+ */
+public final class InputQueue
+{
+    @FunctionalInterface
+    public interface Visitor
+    {
+        /**
+         * Invoked for each drained event.
+         *
+         * @param controls bit mask of {@link Controls} flags
+         * @param pressed whether the controls got pressed or released
+         * @param timestamp value of {@link System#nanoTime()} when the event was offered
+         */
+        void visit(int controls, boolean pressed, long timestamp);
+    }
+
+    private final int mask;
+
+    // event encoding: controls bit mask, sign bit set if pressed
+    private final int[] events;
+    private final long[] timestamps;
+
+    // next position to write, only written by the producer
+    private final AtomicLong head = new AtomicLong();
+    // next position to read, only written by the consumer
+    private final AtomicLong tail = new AtomicLong();
+
+    // producer-local copy of 'tail' to avoid reading the volatile field on every offer
+    private long cachedTail;
+
+    /**
+     * Create queue.
+     *
+     * @param capacity number of events the queue can hold, must be a power of two
+     */
+    public InputQueue(int capacity)
+    {
+        if ( capacity < 2 || Integer.bitCount( capacity ) != 1 ) {
+            throw new IllegalArgumentException( "Capacity must be a power of two, was " + capacity );
+        }
+        this.mask = capacity - 1;
+        this.events = new int[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an event.
+     *
+     * Must only be called by the producer thread.
+     *
+     * @param controls bit mask of {@link Controls} flags
+     * @param pressed whether the controls got pressed or released
+     * @param timestamp value of {@link System#nanoTime()}
+     * @return <code>false</code> if the queue was full and the event got dropped
+     */
+    public boolean offer(int controls, boolean pressed, long timestamp)
+    {
+        if ( controls < 0 ) {
+            throw new IllegalArgumentException( "Invalid controls: " + controls );
+        }
+        final long pos = head.get();
+        if ( pos - cachedTail > mask )
+        {
+            cachedTail = tail.get();
+            if ( pos - cachedTail > mask ) {
+                return false;
+            }
+        }
+        final int idx = (int) pos & mask;
+        events[idx] = pressed ? controls | Integer.MIN_VALUE : controls;
+        timestamps[idx] = timestamp;
+        // publish event to consumer
+        head.lazySet( pos + 1 );
+        return true;
+    }
+
+    /**
+     * Drains all available events in the order they were offered.
+     *
+     * Must only be called by the consumer thread.
+     *
+     * @return number of events drained
+     */
+    public int drain(Visitor visitor)
+    {
+        final long start = tail.get();
+        final long end = head.get();
+        for ( long pos = start ; pos < end ; pos++ )
+        {
+            final int idx = (int) pos & mask;
+            final int event = events[idx];
+            visitor.visit( event & Integer.MAX_VALUE, event < 0, timestamps[idx] );
+        }
+        if ( end != start ) {
+            // hand slots back to producer
+            tail.lazySet( end );
+        }
+        return (int) ( end - start );
+    }
+}
@@ -0,0 +1,142 @@
+package de.codesourcery.quix;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the controls applied in each tick to a compact binary stream
+ * that can be replayed using {@link InputReplayer}.
+ *
+ * Since a {@link GameState} is fully deterministic (all randomness is re-seeded on restart),
+ * recording its seed, the per-tick {@link Controls} and all restarts is enough to reproduce a session,
+ * provided the recording starts with a freshly created (or restarted) game state.
+ *
+ * Stream layout:
+ * <pre>
+ * header: magic (int), format version (byte), {@link GameState#getSeed() random seed} (long), ticks per second (int)
+ * body  : sequence of
+ *           controls (byte), run length (unsigned LEB128 varint)  - same controls for 'run length' ticks
+ *           {@link #RESTART} (byte)                                - game state got restarted before the next tick
+ *         terminated by {@link #END} (byte)
+ * </pre>
+ *
+ * Not thread-safe, must only be used by the simulation thread.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class InputRecorder implements AutoCloseable
+{
+    static final int MAGIC = 0x51554958; // 'QUIX'
+    static final int VERSION = 1;
+
+    static final int RESTART = 0xff;
+    static final int END = 0xfe;
+
+    private final DataOutputStream out;
+
+    private int currentControls = -1;
+    private int runLength;
+    private long tickCount;
+
+    /**
+     * Create recorder for a game using the {@link GameState#RANDOM_SEED default seed}.
+     *
+     * @param out stream to write to, gets closed when this recorder is closed
+     * @param ticksPerSecond tick rate the recording is made at
+     */
+    public InputRecorder(OutputStream out, int ticksPerSecond) throws IOException
+    {
+        this( out, ticksPerSecond, GameState.RANDOM_SEED );
+    }
+
+    /**
+     * Create recorder, writes the stream header right away.
+     *
+     * @param out stream to write to, gets closed when this recorder is closed
+     * @param ticksPerSecond tick rate the recording is made at
+     * @param seed random seed of the recorded game
+     */
+    public InputRecorder(OutputStream out, int ticksPerSecond, long seed) throws IOException
+    {
+        this.out = new DataOutputStream( new BufferedOutputStream( out ) );
+        this.out.writeInt( MAGIC );
+        this.out.writeByte( VERSION );
+        this.out.writeLong( seed );
+        this.out.writeInt( ticksPerSecond );
+    }
+
+    /**
+     * Records the controls applied in a tick.
+     *
+     * @param controls bit mask of {@link Controls} flags
+     */
+    public void tick(int controls) throws IOException
+    {
+        if ( ( controls & ~0x7f ) != 0 ) {
+            throw new IllegalArgumentException( "Invalid controls: " + controls );
+        }
+        if ( controls != currentControls )
+        {
+            flushRun();
+            currentControls = controls;
+        }
+        runLength++;
+        tickCount++;
+    }
+
+    /**
+     * Records that the game state got restarted before the next tick.
+     */
+    public void restart() throws IOException
+    {
+        flushRun();
+        out.writeByte( RESTART );
+    }
+
+    /**
+     * Returns the number of ticks recorded so far.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    private void flushRun() throws IOException
+    {
+        if ( runLength > 0 )
+        {
+            out.writeByte( currentControls );
+            writeVarInt( runLength );
+            runLength = 0;
+        }
+        currentControls = -1;
+    }
+
+    private void writeVarInt(int value) throws IOException
+    {
+        while ( ( value & ~0x7f ) != 0 )
+        {
+            out.writeByte( ( value & 0x7f ) | 0x80 );
+            value >>>= 7;
+        }
+        out.writeByte( value );
+    }
+
+    /**
+     * Writes the end marker and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flushRun();
+            out.writeByte( END );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replays a session recorded by {@link InputRecorder} as fast as possible.
+ *
+ * The whole recording is decoded into memory up-front so replaying it only
+ * measures the simulation itself.
+ *
+ * Usage: <code>InputReplayer &lt;recording&gt; [repetitions]</code>
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class InputReplayer
+{
+    // marks a restart in 'runs'
+    private static final int RESTART = -1;
+
+    private final int ticksPerSecond;
+    private final long seed;
+
+    // (controls,run length) pairs, controls == RESTART for restarts (run length is 0 then)
+    private final int[] runs;
+    private final long tickCount;
+
+    /**
+     * Decodes a recording.
+     *
+     * @param in stream to read from, is not closed by this method
+     * @throws IOException if the stream could not be read or is no valid recording
+     */
+    public InputReplayer(InputStream in) throws IOException
+    {
+        final DataInputStream data = new DataInputStream( new BufferedInputStream( in ) );
+        if ( data.readInt() != InputRecorder.MAGIC ) {
+            throw new IOException( "Not a recording" );
+        }
+        final int version = data.readUnsignedByte();
+        if ( version != InputRecorder.VERSION ) {
+            throw new IOException( "Unsupported recording format version " + version );
+        }
+        this.seed = data.readLong();
+        this.ticksPerSecond = data.readInt();
+
+        final IntArrayList list = new IntArrayList();
+        long ticks = 0;
+        while ( true )
+        {
+            final int controls;
+            try {
+                controls = data.readUnsignedByte();
+            } catch(EOFException e) {
+                throw new IOException( "Truncated recording, end marker is missing" );
+            }
+            if ( controls == InputRecorder.END ) {
+                break;
+            }
+            if ( controls == InputRecorder.RESTART )
+            {
+                list.add( RESTART );
+                list.add( 0 );
+                continue;
+            }
+            final int runLength = readVarInt( data );
+            list.add( controls );
+            list.add( runLength );
+            ticks += runLength;
+        }
+        this.runs = list.toIntArray();
+        this.tickCount = ticks;
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int result = 0;
+        for ( int shift = 0 ; shift < 32 ; shift += 7 )
+        {
+            final int b = in.readUnsignedByte();
+            result |= ( b & 0x7f ) << shift;
+            if ( ( b & 0x80 ) == 0 ) {
+                return result;
+            }
+        }
+        throw new IOException( "Malformed varint" );
+    }
+
+    /**
+     * Returns the tick rate the recording was made at.
+     */
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Returns the random seed of the recorded game.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of ticks in the recording.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Replays the recording.
+     *
+     * @param state game state to use, gets restarted first
+     * @return number of ticks simulated
+     * @throws IllegalArgumentException if the game state uses a different random seed than the recorded game
+     */
+    public long replay(GameState state)
+    {
+        if ( state.getSeed() != seed ) {
+            throw new IllegalArgumentException( "Recording was made with random seed " + seed + " but game uses " + state.getSeed() );
+        }
+        state.restart();
+        for ( int i = 0, len = runs.length ; i < len ; i += 2 )
+        {
+            final int controls = runs[i];
+            if ( controls == RESTART ) {
+                state.restart();
+                continue;
+            }
+            for ( int j = runs[i + 1] ; j > 0 ; j-- ) {
+                state.step( controls );
+            }
+        }
+        return tickCount;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if ( args.length < 1 ) {
+            throw new IllegalArgumentException( "Usage: InputReplayer <recording> [repetitions]" );
+        }
+        final int repetitions = args.length > 1 ? Integer.parseInt( args[1] ) : 1;
+
+        final InputReplayer replayer;
+        try ( InputStream in = new FileInputStream( args[0] ) ) {
+            replayer = new InputReplayer( in );
+        }
+
+        final GameState state = new GameState( replayer.getSeed() );
+        for ( int i = 1 ; i <= repetitions ; i++ )
+        {
+            final long start = System.nanoTime();
+            final long ticks = replayer.replay( state );
+            final long elapsedNanos = System.nanoTime() - start;
+            final double ticksPerSecond = ticks / ( elapsedNanos / 1_000_000_000d );
+            System.out.println( "Run " + i + ": replayed " + ticks + " ticks in "
+                + ( elapsedNanos / 1_000_000 ) + " ms, " + (long) ticksPerSecond + " ticks/s"
+                + " (score: " + state.player.score + ")" );
+        }
+    }
+}
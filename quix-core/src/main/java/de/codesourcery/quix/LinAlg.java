@@ -0,0 +1,82 @@
+package de.codesourcery.quix;
+
+public class LinAlg
+{
+    /*
+    *
+    * https://stackoverflow.com/questions/27161533/find-the-shortest-distance-between-a-point-and-line-segments-not-line
+    * Given a line with coordinates 'start' and 'end' and the
+    * coordinates of a point 'pnt' the proc returns the shortest
+    * distance from pnt to the line and the coordinates of the
+    * nearest point on the line.
+    *
+    * 1  Convert the line segment to a vector ('line_vec').
+    * 2  Create a vector connecting start to pnt ('pnt_vec').
+    * 3  Find the length of the line vector ('line_len').
+    * 4  Convert line_vec to a unit vector ('line_unitvec').
+    * 5  Scale pnt_vec by line_len ('pnt_vec_scaled').
+    * 6  Get the dot product of line_unitvec and pnt_vec_scaled ('t').
+    * 7  Ensure t is in the range 0 to 1.
+    * 8  Use t to get the nearest location on the line to the end
+    *    of vector pnt_vec_scaled ('nearest').
+    * 9  Calculate the distance from nearest to pnt_vec_scaled.
+    * 10 Translate nearest back to the start/end line.
+    * Malcolm Kesson 16 Dec 2012
+    *
+    * The methods below do the same using plain floats (dividing by the squared
+    * line length instead of normalizing twice) so they don't allocate.
+    */
+    public static float distToLineSegment(Line line, Vec2 pnt) {
+        return (float) Math.sqrt( dist2ToLineSegment( line, pnt ) );
+    }
+
+    public static float dist2ToLineSegment(Line line, Vec2 pnt)
+    {
+        return dist2ToSegment( pnt.x, pnt.y, line.x0(), line.y0(), line.x1(), line.y1() );
+    }
+
+    /**
+     * Returns the squared distance between a point and a line segment.
+     */
+    public static float dist2ToSegment(float px, float py, float x0, float y0, float x1, float y1)
+    {
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        final float t = projection( px, py, x0, y0, dx, dy );
+        return dist2( px, py, x0 + t * dx, y0 + t * dy );
+    }
+
+    /**
+     * Finds the point on a line segment that is closest to a given point.
+     *
+     * @param nearest receives the closest point
+     * @return squared distance between the point and the line segment
+     */
+    public static float nearestPointOnSegment(float px, float py, float x0, float y0, float x1, float y1, Vec2 nearest)
+    {
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        final float t = projection( px, py, x0, y0, dx, dy );
+        nearest.x = x0 + t * dx;
+        nearest.y = y0 + t * dy;
+        return dist2( px, py, nearest.x, nearest.y );
+    }
+
+    // position of the point projected onto the segment, clamped to [0,1]
+    private static float projection(float px, float py, float x0, float y0, float dx, float dy)
+    {
+        final float len2 = dx * dx + dy * dy;
+        if ( len2 == 0 ) {
+            return 0; // segment is a single point
+        }
+        final float t = ( ( px - x0 ) * dx + ( py - y0 ) * dy ) / len2;
+        return t < 0 ? 0 : t > 1 ? 1 : t;
+    }
+
+    public static float dist2(float x0, float y0, float x1, float y1)
+    {
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        return dx * dx + dy * dy;
+    }
+}
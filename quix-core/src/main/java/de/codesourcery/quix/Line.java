@@ -1,11 +1,6 @@
 package de.codesourcery.quix;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Point;
 import java.util.List;
-import java.util.Objects;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 import static java.lang.Math.max;
@@ -14,8 +9,6 @@ import static java.lang.Math.sqrt;
 
 public class Line
 {
-    private static final Random RND = new Random(0xdeadbeef);
-
     private static final float EPSILON = 0.00001f;
 
     public Node node0 = new Node();
@@ -23,6 +16,9 @@ public class Line
 
     public float m;
 
+    // scratch index used by GameState#snapshot(GameStateSnapshot), only valid while taking a snapshot
+    int snapshotIndex = -1;
+
     public Line(Node n0, Node n1)
     {
         this.node0 = n0;
@@ -36,44 +32,52 @@ public class Line
         return (float) Math.sqrt( dx*dx + dy*dy );
     }
 
+    /**
+     * Returns a copy of this line with both endpoints moved towards each other.
+     *
+     * @return shrunk line or <code>null</code> if this line is too short to be shrunk
+     * @see #shrink(int, int, int, int, Line)
+     */
     public Line shrink()
     {
-        final Vec2 a = node0.toVec2();
-        final Vec2 b = node1.toVec2();
-        final Line result = new Line(node0.copy(),node1.copy());
-        if ( result.isHorizontal() ) {
-            result.leftNode().x++;
-            result.rightNode().x--;
-        } else if ( result.isVertical() ) {
-            result.topNode().y++;
-            result.bottomNode().y--;
-        } else {
-            Vec2 dirAB = b.copy().subtract( a );
-            Vec2 dirBA = a.copy().subtract( b );
-
-            Vec2 newA = new Vec2();
-            Vec2 newB =  new Vec2();
-
-            while( true )
-            {
-                dirAB = dirAB.scl( 0.99f );
-                dirBA = dirBA.scl( 0.99f );
-
-                newB.set(a).add( dirAB );
-                newA.set(b).add( dirBA );
-
-                int dxa = Math.abs( (int) newA.x - (int) a.x );
-                int dya = Math.abs( (int) newA.y - (int) a.y );
-                int dxb = Math.abs( (int) newB.x - (int) b.x );
-                int dyb = Math.abs( (int) newB.x - (int) b.x );
-
-                if ( dxa >= 1 && dya >= 1 & dxb >= 1 && dyb != 1 ) {
-                    break;
-                }
-            }
-            result.node0.set( newA );
-            result.node1.set( newB );
+        return shrink( x0(), y0(), x1(), y1(), new Line( new Node(), new Node() ) );
+    }
+
+    /**
+     * Shrinks a line by moving both endpoints towards each other along the line until they
+     * have left their original pixel column and row.
+     *
+     * Diagonals advance one pixel along the minor axis and <code>floor(major / minor)</code> pixels along
+     * the major axis, so the shrunk endpoints stay on the line (within less than a pixel), lie strictly
+     * inside the original line's bounding box and never cross the middle. Orthogonal lines advance one
+     * pixel. Endpoints keep their order.
+     *
+     * @param result line to store the shrunk line in
+     * @return <code>result</code> or <code>null</code> (leaving <code>result</code> untouched) if the line
+     * is a single point or spans less than two pixels along an axis it is not parallel to
+     */
+    public static Line shrink(int x0, int y0, int x1, int y1, Line result)
+    {
+        final int dx = x1 - x0;
+        final int dy = y1 - y0;
+        final int absDx = Math.abs( dx );
+        final int absDy = Math.abs( dy );
+        if ( ( absDx == 0 && absDy == 0 ) || absDx == 1 || absDy == 1 ) {
+            return null;
+        }
+        final int stepX;
+        final int stepY;
+        if ( absDx >= absDy )
+        {
+            stepY = Integer.signum( dy );
+            stepX = absDy == 0 ? Integer.signum( dx ) : Integer.signum( dx ) * ( absDx / absDy );
         }
+        else
+        {
+            stepX = Integer.signum( dx );
+            stepY = absDx == 0 ? Integer.signum( dy ) : Integer.signum( dy ) * ( absDy / absDx );
+        }
+        result.set( x0 + stepX, y0 + stepY, x1 - stepX, y1 - stepY );
         return result;
     }
 
@@ -83,10 +87,6 @@ public class Line
         node1 = tmp;
     }
 
-    public Line(Point p0, Point p1) {
-        this(p0.x,p0.y,p1.x,p1.y);
-    }
-
     public Node getOther(Node n) {
         if ( n == node0 ) {
             return node1;
@@ -330,104 +330,14 @@ public class Line
         return x0() ^ y0() ^ x1() ^ y1() ^ Float.hashCode( m );
     }
 
+    /**
+     * Checks whether this line intersects another line (touching counts).
+     *
+     * @see SegmentIntersection#intersects(int, int, int, int, int, int, int, int)
+     */
     public boolean intersects(Line other)
     {
-        int thisX0 = this.x0();
-        int thisY0 = this.y0();
-        int thisX1 = this.x1();
-        int thisY1 = this.y1();
-
-        int otherX0 = other.x0();
-        int otherY0 = other.y0();
-        int otherX1 = other.x1();
-        int otherY1 = other.y1();
-
-        final boolean thisVertical = isVertical();
-        final boolean otherVertical = other.isVertical();
-        if ( thisVertical || otherVertical )
-        {
-            // these need special treatment to prevent division by zero
-            if ( thisVertical == otherVertical ) { // two vertical lines
-                if ( thisX0 != otherX0 ) // cannot possibly overlap
-                {
-                    return false;
-                }
-                // check overlapping Y interval
-                return max( thisY0, thisY1 ) >= min( otherY0, otherY1 );
-            }
-            // only one of the lines is vertical while the other is not
-            final Line vertLine;
-            final Line nonVertLine;
-            if ( thisVertical ) {
-                vertLine = this;
-                nonVertLine = other;
-            } else {
-                vertLine = other;
-                nonVertLine = this;
-            }
-            if ( min( nonVertLine.x0(), nonVertLine.x1() ) <= vertLine.x0() && max( nonVertLine.x0(), nonVertLine.x1() ) >= vertLine.x0() ) {
-                return min( nonVertLine.y0(), nonVertLine.y1() ) >= min( vertLine.y0(), vertLine.y1() ) &&
-                max( nonVertLine.y0(), nonVertLine.y1() ) <= max( vertLine.y0(), vertLine.y1() );
-            }
-            return false;
-        }
-
-        /*
-         *
-Segment1 = {(X1, Y1), (X2, Y2)}
-Segment2 = {(X3, Y3), (X4, Y4)}
-The X coordinate Xa of the potential point of intersection (Xa,Ya) must be contained in both interval I1 and I2, defined as follow :
-
-I1 = [min(X1,X2), max(X1,X2)] // [min(this.x0,this.x1),max(this.x0,this.x1)]
-I2 = [min(X3,X4), max(X3,X4)] // [min(other.x0,other.x1),max(other.x0,other.x1)]
-
-* And we could say that Xa is included into interval Ia like so:
-
-Ia = [max( min(X1,X2), min(X3,X4) ), min( max(X1,X2), max(X3,X4) )]
-*
-Now, we need to check that this interval Ia exists :
-*/
-
-        if ( max( thisX0, thisX1 ) < min( otherX0, otherX1 ) )
-        {
-            return false; // There is no mutual common X coordinate
-        }
-/*
-So, we have two line formula, and a mutual interval. Your line formulas are:
-
-f1(x) = A1*x + b1 = y
-f2(x) = A2*x + b2 = y
-As we got two points by segment, we are able to determine A1, A2, b1 and b2:
-*/
-        float slope1 = this.m;
-        float slope2 = other.m;
-        float b1 = thisY0 - slope1 * thisX0;
-        float b2 = otherY0 - slope2 * otherX0;
-/*
-If the segments are parallel, then A1 == A2 :
-*/
-        if ( Math.abs( slope1 - slope2 ) < EPSILON )
-        {
-            // parallel, horizontal lines
-            if ( this.y0() == other.y0() )
-            {
-                // check for overlapping X interval
-                return max( thisX0, thisX1 ) >= min( otherX0, otherX1 );
-            }
-            return false;
-        }
-/*
-A point (Xa,Ya) standing on both line must verify both formulas f1 and f2:
-*/
-        float Xa = ( b2 - b1 ) / ( slope1 - slope2 ); // Once again, pay attention to not dividing by zero
-/*
-The last thing to do is check that Xa is included into Ia:
-*/
-        if ( ( Xa < max( min( thisX0, thisX1 ), min( otherX0, otherX1 ) ) ) || ( Xa > min( max( thisX0, thisX1 ), max( otherX0, otherX1 ) ) ) )
-        {
-            return false; // intersection is out of bound
-        }
-        return true;
+        return SegmentIntersection.intersects( x0(), y0(), x1(), y1(), other.x0(), other.y0(), other.x1(), other.y1() );
     }
 
     public boolean isHorizontal() {
@@ -438,65 +348,6 @@ The last thing to do is check that Xa is included into Ia:
         return x0() == x1();
     }
 
-    public void draw(Graphics2D gfx) {
-        draw(gfx,false);
-    }
-
-    public void draw(Graphics2D gfx,boolean drawNodes)
-    {
-        gfx.drawLine( x0(), y0(), x1(), y1() );
-
-        if ( drawNodes )
-        {
-            final Color current = gfx.getColor();
-
-            gfx.setColor( Color.BLUE );
-            RND.setSeed( node0.id );
-            drawNode( node0, RND.nextInt( 4 ) , gfx );
-
-            gfx.setColor( Color.RED);
-            RND.setSeed( node1.id );
-            drawNode( node1, RND.nextInt( 4 ) , gfx );
-
-            gfx.setColor(current);
-        }
-    }
-
-    private void drawNode(Node node,int quadrant,Graphics2D gfx)
-    {
-        int x=node.x,y=node.y;
-        final int radius = 12;
-        gfx.fillArc( x - radius / 2, y - radius / 2, radius, radius, 0, 360 );
-
-        /*
-         * 0 | 1
-         * --+--
-         * 3 | 2
-         */
-        switch( quadrant )
-        {
-            case 0:
-                x -= radius;
-                y -= radius;
-                break;
-            case 1:
-                x += radius;
-                y -= radius;
-                break;
-            case 2:
-                x += radius;
-                y += radius;
-                break;
-            case 3:
-                x -= radius;
-                y += radius;
-                break;
-            default:
-                throw new IllegalStateException( "Unexpected value: " + quadrant );
-        }
-        gfx.drawString( node0.toShortString(), x, y );
-    }
-
     public Node getNodeForEndpoint(int x,int y) {
         if ( this.x0() == x & this.y0() == y) {
             return node0;
@@ -1,7 +1,5 @@
 package de.codesourcery.quix;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -9,15 +7,47 @@ import java.util.List;
 
 public class LineCollection implements ICollisionCheck
 {
-    protected final Line tmp = new Line(0,0,0,0);
-
     public List<Line> lines = new ArrayList<>();
 
-    public Color lineColor = Color.WHITE;
-    public Color fillColor = Color.WHITE;
+    // spatial index used to speed up getLine()/intersects() queries
+    private final LineIndex index;
+
+    // optional, used to answer getLine() queries with a single lookup
+    protected final LineRaster raster;
+
+    // optional, assigns IDs to the endpoints of all lines added to this collection
+    protected final NodeArena nodes;
+
+    // optional, kept up-to-date with all lines of this collection
+    protected final ProximityIndex proximity;
 
     public LineCollection()
     {
+        this( null, null );
+    }
+
+    public LineCollection(LineRaster raster, NodeArena nodes)
+    {
+        this( raster, nodes, null );
+    }
+
+    /**
+     * Create collection.
+     *
+     * @param raster raster to keep up-to-date with all lines of this collection (and to
+     *               use for point queries), may be <code>null</code>. Only horizontal
+     *               and vertical lines may be added when using a raster, these are then
+     *               indexed using an {@link OrthogonalLineIndex}.
+     * @param nodes arena to register the endpoints of all lines with, may be <code>null</code>
+     * @param proximity index to keep up-to-date with all lines of this collection, may be <code>null</code>
+     */
+    public LineCollection(LineRaster raster, NodeArena nodes, ProximityIndex proximity)
+    {
+        this.raster = raster;
+        this.nodes = nodes;
+        this.proximity = proximity;
+        this.index = raster != null ? new OrthogonalLineIndex() :
+            new LineGrid( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT, LineGrid.DEFAULT_CELL_SIZE );
     }
 
     public Line findLine(Node n0, Node n1)
@@ -35,6 +65,13 @@ public class LineCollection implements ICollisionCheck
 
     public void clear() {
         lines.clear();
+        index.clear();
+        if ( raster != null ) {
+            raster.clear();
+        }
+        if ( proximity != null ) {
+            proximity.clear();
+        }
     }
 
     @Override
@@ -45,44 +82,22 @@ public class LineCollection implements ICollisionCheck
 
     @Override
     public Line getLine(int x, int y) {
-        for (int i = 0, playfieldLinesSize = lines.size(); i < playfieldLinesSize; i++)
-        {
-            final Line l = lines.get( i );
-            if ( l.contains( x, y ) )
-            {
-                return l;
-            }
+        if ( raster != null ) {
+            return raster.get( x, y );
         }
-        return null;
+        return index.getLine( x, y );
     }
 
     @Override
     public Line intersects(Line line)
     {
-        for (int i = 0, len = lines.size(); i < len; i++)
-        {
-            final Line l = lines.get( i );
-            if ( l.intersects(line) )
-            {
-                return l;
-            }
-        }
-        return null;
+        return index.intersects( line );
     }
 
     @Override
     public Line intersects(int x0, int y0, int x1, int y1)
     {
-        tmp.set(x0,y0,x1,y1);
-        for (int i = 0, playfieldLinesSize = lines.size(); i < playfieldLinesSize; i++)
-        {
-            final Line l = lines.get( i );
-            if ( l.intersects(tmp) )
-            {
-                return l;
-            }
-        }
-        return null;
+        return index.intersects( x0, y0, x1, y1 );
     }
 
     public int size() {
@@ -132,39 +147,38 @@ public class LineCollection implements ICollisionCheck
     public void add(Line line)
     {
         this.lines.add(line);
+        this.index.add(line);
+        if ( raster != null ) {
+            raster.add(line);
+        }
+        if ( proximity != null ) {
+            proximity.add(line);
+        }
+        if ( nodes != null ) {
+            nodes.register(line.node0);
+            nodes.register(line.node1);
+        }
     }
 
-    public void draw(Graphics2D gfx,boolean fillIfPossible) {
-        draw(gfx,fillIfPossible,false);
-    }
-
-    public void draw(Graphics2D gfx,boolean fillIfPossible,boolean drawNodes)
+    /**
+     * Needs to be invoked after the endpoints of a line
+     * that is part of this collection have been changed.
+     *
+     * @param line
+     */
+    public void update(Line line)
     {
-        if ( fillIfPossible && Poly.isValidPolygon(this.lines) )
-        {
-            gfx.setColor( fillColor );
-
-            final List<Node> points = Poly.getPoints( this.lines );
-            final int[] x = new int[points.size()];
-            final int[] y = new int[points.size()];
-            for (int i = 0, len = points.size(); i < len; i++)
-            {
-                final Node n = points.get( i );
-                x[i] = n.x;
-                y[i] = n.y;
-            }
-            gfx.fillPolygon(x,y,x.length);
+        index.update(line);
+        if ( raster != null ) {
+            raster.add(line);
         }
-        gfx.setColor( lineColor );
-        for ( Line l : lines )
-        {
-            l.assertValid(); // TODO: Remove debug code
-            l.draw( gfx, drawNodes );
+        if ( proximity != null ) {
+            proximity.update(line);
+        }
+        if ( nodes != null ) {
+            nodes.register(line.node0);
+            nodes.register(line.node1);
         }
-    }
-    public void draw(Graphics2D gfx)
-    {
-        draw(gfx,false);
     }
 
     public boolean isEmpty() {
@@ -190,7 +204,9 @@ public class LineCollection implements ICollisionCheck
                 return line.rightNode();
             }
 
-            System.out.println("Splitting "+line+"...");
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.LINE_SPLIT, line.x0(), line.y0(), line.x1(), line.y1(), xSplit, ySplit );
+            }
             middle = new Node(xSplit,ySplit);
             final Node right = line.rightNode();
 
@@ -198,8 +214,8 @@ public class LineCollection implements ICollisionCheck
             right.setLeft( newLine );
             middle.setRight( newLine );
             line.setRightNode( middle );
+            collection.update( line );
             collection.add( newLine );
-            System.out.println("new line: "+newLine);
         }
         else if ( line.isVertical() )
         {
@@ -208,13 +224,16 @@ public class LineCollection implements ICollisionCheck
             }  if ( line.isBottomEndpoint(xSplit,ySplit ) ) {
             return line.bottomNode();
         }
-            System.out.println("Splitting "+line+"...");
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.LINE_SPLIT, line.x0(), line.y0(), line.x1(), line.y1(), xSplit, ySplit );
+            }
             middle = new Node(xSplit,ySplit);
             final Node bottom = line.bottomNode();
             final Line newLine = new Line(middle, bottom);
             line.setBottomNode( middle );
             middle.setDown( newLine );
             bottom.setUp( newLine );
+            collection.update( line );
             collection.add( newLine );
         } else {
             throw new IllegalStateException("Line is neither vertical nor horizontal? "+line);
@@ -227,7 +246,9 @@ public class LineCollection implements ICollisionCheck
         if ( lines.size() < 3 ) {
             throw new IllegalStateException("Less than 3 lines, cannot convert to a polygon");
         }
-        System.out.println("toPolygon(): \n"+Line.toShortString(lines));
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.TO_POLYGON, lines.size() );
+        }
 
 
         // swap line endpoints if necessary
@@ -0,0 +1,221 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid that buckets lines by the cells their bounding box overlaps.
+ *
+ * Point and segment queries only need to test the lines registered with
+ * the cells they touch instead of every line.
+ *
+ * Coordinates outside of the grid's extent are clamped to the outermost
+ * cells, so lines of arbitrary size/position still work (they just end up
+ * sharing the border cells).
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class LineGrid implements LineIndex
+{
+    public static final int DEFAULT_CELL_SIZE = 32;
+
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    final int cellShift;
+    final int columns;
+    final int rows;
+
+    // lines per cell, cell index is (row * columns + column)
+    final Line[][] cells;
+    final int[] cellSizes;
+
+    // cell range each line was registered with so it can be
+    // unregistered even after its endpoints have been changed,
+    // packed as 4 x 16 bit (minColumn,minRow,maxColumn,maxRow)
+    private final Reference2LongOpenHashMap<Line> registeredRanges = new Reference2LongOpenHashMap<>();
+
+    /**
+     * Create grid.
+     *
+     * @param width width of the area covered by the grid, coordinates are in the range [0,width]
+     * @param height height of the area covered by the grid, coordinates are in the range [0,height]
+     * @param cellSize cell size, must be a power of two
+     */
+    public LineGrid(int width,int height,int cellSize)
+    {
+        if ( width <= 0 || height <= 0 ) {
+            throw new IllegalArgumentException( "Width and height must be > 0" );
+        }
+        if ( cellSize <= 0 || Integer.bitCount( cellSize ) != 1 ) {
+            throw new IllegalArgumentException( "Cell size must be a power of two, was: " + cellSize );
+        }
+        this.cellShift = Integer.numberOfTrailingZeros( cellSize );
+        this.columns = (width >> cellShift) + 1;
+        this.rows = (height >> cellShift) + 1;
+        this.cells = new Line[ columns * rows ][];
+        this.cellSizes = new int[ columns * rows ];
+    }
+
+    int column(int x)
+    {
+        final int col = x >> cellShift;
+        return col < 0 ? 0 : col >= columns ? columns - 1 : col;
+    }
+
+    int row(int y)
+    {
+        final int row = y >> cellShift;
+        return row < 0 ? 0 : row >= rows ? rows - 1 : row;
+    }
+
+    private static long pack(int minCol,int minRow,int maxCol,int maxRow) {
+        return (long) minCol << 48 | (long) minRow << 32 | (long) maxCol << 16 | maxRow;
+    }
+
+    @Override
+    public void add(Line line)
+    {
+        final int minCol = column( line.minX() );
+        final int maxCol = column( line.maxX() );
+        final int minRow = row( line.minY() );
+        final int maxRow = row( line.maxY() );
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int col = minCol ; col <= maxCol ; col++ )
+            {
+                addToCell( row * columns + col, line );
+            }
+        }
+        registeredRanges.put( line, pack( minCol, minRow, maxCol, maxRow ) );
+    }
+
+    /**
+     * Re-registers a line after its endpoints have been changed.
+     *
+     * @param line
+     */
+    @Override
+    public void update(Line line)
+    {
+        remove( line );
+        add( line );
+    }
+
+    @Override
+    public void remove(Line line)
+    {
+        if ( ! registeredRanges.containsKey( line ) ) {
+            return;
+        }
+        final long range = registeredRanges.removeLong( line );
+        final int minCol = (int) (range >>> 48) & 0xffff;
+        final int minRow = (int) (range >>> 32) & 0xffff;
+        final int maxCol = (int) (range >>> 16) & 0xffff;
+        final int maxRow = (int) range & 0xffff;
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int col = minCol ; col <= maxCol ; col++ )
+            {
+                removeFromCell( row * columns + col, line );
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        for (int i = 0, len = cells.length; i < len; i++)
+        {
+            final Line[] cell = cells[i];
+            if ( cell != null ) {
+                Arrays.fill( cell, 0, cellSizes[i], null );
+                cellSizes[i] = 0;
+            }
+        }
+        registeredRanges.clear();
+    }
+
+    private void addToCell(int cellIdx, Line line)
+    {
+        Line[] cell = cells[cellIdx];
+        final int size = cellSizes[cellIdx];
+        if ( cell == null ) {
+            cell = cells[cellIdx] = new Line[ INITIAL_CELL_CAPACITY ];
+        } else if ( size == cell.length ) {
+            cell = cells[cellIdx] = Arrays.copyOf( cell, size * 2 );
+        }
+        cell[size] = line;
+        cellSizes[cellIdx] = size + 1;
+    }
+
+    private void removeFromCell(int cellIdx, Line line)
+    {
+        final Line[] cell = cells[cellIdx];
+        final int size = cellSizes[cellIdx];
+        for ( int i = 0 ; i < size ; i++ )
+        {
+            if ( cell[i] == line )
+            {
+                // shift remaining elements so lines stay in insertion order
+                System.arraycopy( cell, i + 1, cell, i, size - i - 1 );
+                cell[size - 1] = null;
+                cellSizes[cellIdx] = size - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the first line that contains a given point.
+     *
+     * @param x
+     * @param y
+     * @return line or <code>null</code>
+     */
+    @Override
+    public Line getLine(int x, int y)
+    {
+        final int cellIdx = row( y ) * columns + column( x );
+        final Line[] cell = cells[cellIdx];
+        for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+        {
+            final Line l = cell[i];
+            if ( l.contains( x, y ) ) {
+                return l;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Line intersects(Line line)
+    {
+        return intersects( line.x0(), line.y0(), line.x1(), line.y1() );
+    }
+
+    @Override
+    public Line intersects(int x0, int y0, int x1, int y1)
+    {
+        final int minCol = column( Math.min( x0, x1 ) );
+        final int maxCol = column( Math.max( x0, x1 ) );
+        final int minRow = row( Math.min( y0, y1 ) );
+        final int maxRow = row( Math.max( y0, y1 ) );
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int col = minCol ; col <= maxCol ; col++ )
+            {
+                final int cellIdx = row * columns + col;
+                final Line[] cell = cells[cellIdx];
+                for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+                {
+                    final Line l = cell[i];
+                    if ( SegmentIntersection.intersects( l.x0(), l.y0(), l.x1(), l.y1(), x0, y0, x1, y1 ) ) {
+                        return l;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package de.codesourcery.quix;
+
+/**
+ * Spatial index used by {@link LineCollection} to answer point and segment queries.
+ *
+ * Implementations need to be told about lines whose endpoints change
+ * using {@link #update(Line)}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public interface LineIndex
+{
+    void add(Line line);
+
+    /**
+     * Re-registers a line after its endpoints have been changed.
+     *
+     * @param line
+     */
+    void update(Line line);
+
+    void remove(Line line);
+
+    void clear();
+
+    /**
+     * Returns a line that contains a given point.
+     *
+     * @param x
+     * @param y
+     * @return line or <code>null</code>
+     */
+    Line getLine(int x, int y);
+
+    /**
+     * Returns a line that {@link Line#intersects(Line) intersects} a given line.
+     *
+     * @param line
+     * @return line or <code>null</code>
+     */
+    Line intersects(Line line);
+
+    Line intersects(int x0, int y0, int x1, int y1);
+}
@@ -0,0 +1,183 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Pixel raster that maps each point covered by a horizontal or vertical line
+ * to the line covering it, turning "which line contains (x,y)" into
+ * a single array lookup.
+ *
+ * Each registered line gets a (16-bit) ID, the raster itself just holds these IDs.
+ * Where lines overlap (shared endpoints), the line that was rasterized first wins
+ * unless it no longer contains the point (because it got shortened by a split).
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class LineRaster
+{
+    // ID 0 is reserved for 'no line'
+    private static final int MAX_LINES = 0xffff;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+
+    private final short[] pixels;
+
+    private Line[] linesById = new Line[64];
+    private int nextId = 1;
+
+    private final Reference2IntOpenHashMap<Line> ids = new Reference2IntOpenHashMap<>();
+
+    /**
+     * Create raster.
+     *
+     * @param width coordinates are in the range [0,width]
+     * @param height coordinates are in the range [0,height]
+     */
+    public LineRaster(int width, int height)
+    {
+        if ( width <= 0 || height <= 0 ) {
+            throw new IllegalArgumentException( "Width and height must be > 0" );
+        }
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        this.pixels = new short[ stride * (height + 1) ];
+    }
+
+    /**
+     * Returns the line covering a given point.
+     *
+     * @param x
+     * @param y
+     * @return line or <code>null</code>
+     */
+    public Line get(int x, int y)
+    {
+        if ( x < 0 || y < 0 || x > width || y > height ) {
+            return null;
+        }
+        return linesById[ pixels[ y * stride + x ] & 0xffff ];
+    }
+
+    /**
+     * Returns whether a given point is covered by any line.
+     *
+     * @param x
+     * @param y
+     * @return <code>true</code> if the point is covered, <code>false</code> if it
+     * is not or lies outside of the raster
+     */
+    public boolean isSet(int x, int y)
+    {
+        if ( x < 0 || y < 0 || x > width || y > height ) {
+            return false;
+        }
+        return pixels[ y * stride + x ] != 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Rasterizes a line.
+     *
+     * Needs to be called again for lines that have been changed (split)
+     * so that pixels previously owned by another line are updated.
+     *
+     * @param line horizontal or vertical line
+     */
+    public void add(Line line)
+    {
+        final short id = (short) getOrAssignId( line );
+        if ( line.isHorizontal() )
+        {
+            final int y = line.y0();
+            if ( y < 0 || y > height ) {
+                return;
+            }
+            final int minX = Math.max( 0, line.minX() );
+            final int maxX = Math.min( width, line.maxX() );
+            for ( int x = minX, ptr = y * stride + minX ; x <= maxX ; x++, ptr++ ) {
+                set( ptr, x, y, id );
+            }
+        }
+        else if ( line.isVertical() )
+        {
+            final int x = line.x0();
+            if ( x < 0 || x > width ) {
+                return;
+            }
+            final int minY = Math.max( 0, line.minY() );
+            final int maxY = Math.min( height, line.maxY() );
+            for ( int y = minY, ptr = minY * stride + x ; y <= maxY ; y++, ptr += stride ) {
+                set( ptr, x, y, id );
+            }
+        } else {
+            throw new IllegalArgumentException( "Only horizontal or vertical lines can be rasterized: " + line );
+        }
+    }
+
+    /**
+     * Marks a single point as being covered by a line.
+     *
+     * Used to incrementally update the raster while a line is growing.
+     *
+     * @param x
+     * @param y
+     * @param line
+     */
+    public void set(int x, int y, Line line)
+    {
+        if ( x < 0 || y < 0 || x > width || y > height ) {
+            return;
+        }
+        set( y * stride + x, x, y, (short) getOrAssignId( line ) );
+    }
+
+    private void set(int ptr, int x, int y, short id)
+    {
+        final Line existing = linesById[ pixels[ptr] & 0xffff ];
+        if ( existing == null || ! existing.contains( x, y ) ) {
+            pixels[ptr] = id;
+        }
+    }
+
+    private int getOrAssignId(Line line)
+    {
+        int id = ids.getInt( line );
+        if ( id == 0 )
+        {
+            if ( nextId > MAX_LINES ) {
+                throw new IllegalStateException( "Raster can hold at most " + MAX_LINES + " lines" );
+            }
+            id = nextId++;
+            if ( id == linesById.length ) {
+                linesById = Arrays.copyOf( linesById, linesById.length * 2 );
+            }
+            linesById[id] = line;
+            ids.put( line, id );
+        }
+        return id;
+    }
+
+    public void clear()
+    {
+        if ( nextId == 1 ) {
+            // nothing was ever rasterized, skip touching the whole pixel array
+            return;
+        }
+        Arrays.fill( pixels, (short) 0 );
+        Arrays.fill( linesById, 0, nextId, null );
+        nextId = 1;
+        ids.clear();
+    }
+}
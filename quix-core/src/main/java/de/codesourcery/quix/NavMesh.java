@@ -45,6 +45,24 @@ public interface NavMesh
      * @param visitedNodeIds Close list containing IDs of already visited nodes
      * @param result array where to store neighbour node IDs in
      * @return number of neighbour node IDs written to the result list
+     * @deprecated Use {@link #getNeighbours(int, NodeMarkers, int[])} instead, this method copies the close list on every invocation
      */
-    int getNeighbours(int node, IntOpenHashSet visitedNodeIds, int[] result);
+    @Deprecated
+    default int getNeighbours(int node, IntOpenHashSet visitedNodeIds, int[] result)
+    {
+        final NodeMarkers markers = new NodeMarkers();
+        visitedNodeIds.forEach( (int id) -> markers.markClosed( id ) );
+        return getNeighbours( node, markers, result );
+    }
+
+    /**
+     * Returns all neighbours for a given node that are walkable
+     * and NOT on the close list.
+     *
+     * @param node ID of node to check neighbours of
+     * @param markers open/close list markers, nodes for which {@link NodeMarkers#isClosed(int)} returns <code>true</code> have already been visited
+     * @param result array where to store neighbour node IDs in
+     * @return number of neighbour node IDs written to the result list
+     */
+    int getNeighbours(int node, NodeMarkers markers, int[] result);
 }
@@ -1,8 +1,5 @@
 package de.codesourcery.quix;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-
 import java.util.List;
 import java.util.Objects;
 import java.util.function.BiConsumer;
@@ -10,9 +7,8 @@ import java.util.stream.Collectors;
 
 public class Node
 {
-    private static int ID = 0;
-
-    public final int id=ID++;
+    // assigned by NodeArena#register(), -1 if not registered
+    public int id = -1;
     public int x,y;
 
     public Line up;
@@ -20,11 +16,7 @@ public class Node
     public Line right;
     public Line down;
 
-    public static Int2ObjectMap<Node> ALL_NODES =
-            new Int2ObjectArrayMap<>();
-
     public Node() {
-        ALL_NODES.put(id,this);
     }
 
     public static Node of(int x,int y) {
@@ -35,10 +27,6 @@ public class Node
         return new Vec2(this);
     }
 
-    public static Node get(int nodeId) {
-        return ALL_NODES.get( nodeId );
-    }
-
     public Node(Node other) {
         this();
         this.x = other.x;
@@ -206,7 +194,9 @@ public class Node
         int dy = other.y - this.y;
         float angle = (float) Math.toDegrees(Math.atan2(dy, dx));
         angle = angle < 0 ? angle + 360 : angle;
-        System.out.println("ANGLE "+angle+" for ("+x+","+y+") -> ("+other.x+","+other.y+")");
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.NODE_ANGLE, Float.floatToRawIntBits( angle ), x, y, other.x, other.y );
+        }
         return angle;
     }
 
@@ -0,0 +1,99 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+
+/**
+ * Hands out dense node IDs and resolves them back to {@link Node} instances
+ * using a plain array lookup.
+ *
+ * Each game owns its own arena, IDs are recycled when the arena gets cleared.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class NodeArena
+{
+    private Node[] nodes = new Node[256];
+    private int size;
+
+    /**
+     * Assigns an ID to a node (if it doesn't have one in this arena yet).
+     *
+     * @param node
+     * @return the node's ID
+     */
+    public int register(Node node)
+    {
+        if ( contains( node ) ) {
+            return node.id;
+        }
+        if ( size == nodes.length ) {
+            nodes = Arrays.copyOf( nodes, nodes.length * 2 );
+        }
+        final int id = size++;
+        nodes[id] = node;
+        node.id = id;
+        return id;
+    }
+
+    public boolean contains(Node node)
+    {
+        final int id = node.id;
+        return id >= 0 && id < size && nodes[id] == node;
+    }
+
+    /**
+     * Look up a node by ID.
+     *
+     * @param nodeId
+     * @return node
+     * @throws ArrayIndexOutOfBoundsException if no node with this ID has been registered
+     */
+    public Node get(int nodeId)
+    {
+        if ( nodeId >= size ) {
+            throw new ArrayIndexOutOfBoundsException( "No node with ID " + nodeId );
+        }
+        return nodes[nodeId];
+    }
+
+    /**
+     * Returns the number of IDs handed out so far.
+     *
+     * IDs are always in the range [0,size()).
+     *
+     * @return
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Replaces all nodes, the node at index <code>i</code> gets ID <code>i</code>.
+     *
+     * @param nodes nodes to register
+     * @param count number of nodes to register
+     */
+    public void reset(Node[] nodes, int count)
+    {
+        clear();
+        if ( count > this.nodes.length ) {
+            this.nodes = Arrays.copyOf( this.nodes, Math.max( count, this.nodes.length * 2 ) );
+        }
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            nodes[i].id = i;
+            this.nodes[i] = nodes[i];
+        }
+        size = count;
+    }
+
+    /**
+     * Forgets all nodes, IDs will be re-used starting from zero.
+     */
+    public void clear()
+    {
+        Arrays.fill( nodes, 0, size, null );
+        size = 0;
+    }
+}
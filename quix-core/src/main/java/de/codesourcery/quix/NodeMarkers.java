@@ -0,0 +1,94 @@
+package de.codesourcery.quix;
+
+import java.util.Arrays;
+
+/**
+ * Open/closed list membership of path-finding nodes, indexed by node ID.
+ *
+ * Node IDs are expected to be small, dense integers. Instead of clearing
+ * the tables before each search, every search uses a new generation number and
+ * a node is only considered to be marked if its entry matches the current generation.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see AStar
+ * @see NavMesh#getNeighbours(int, NodeMarkers, int[])
+ */
+public final class NodeMarkers
+{
+    private static final int INITIAL_SIZE = 256;
+
+    private int generation = 1;
+
+    private int[] open = new int[INITIAL_SIZE];
+    private int[] closed = new int[INITIAL_SIZE];
+
+    // internal (AStar) node ID for each node on the open list
+    private int[] internalIds = new int[INITIAL_SIZE];
+
+    /**
+     * Discards all markers.
+     */
+    public void reset()
+    {
+        generation++;
+        if ( generation == Integer.MAX_VALUE )
+        {
+            // stale entries could collide with future generations
+            Arrays.fill( open, 0 );
+            Arrays.fill( closed, 0 );
+            generation = 1;
+        }
+    }
+
+    private void ensureCapacity(int nodeId)
+    {
+        if ( nodeId >= open.length )
+        {
+            final int newSize = Math.max( nodeId + 1, open.length * 2 );
+            open = Arrays.copyOf( open, newSize );
+            closed = Arrays.copyOf( closed, newSize );
+            internalIds = Arrays.copyOf( internalIds, newSize );
+        }
+    }
+
+    public boolean isClosed(int nodeId)
+    {
+        return nodeId < closed.length && closed[nodeId] == generation;
+    }
+
+    public void markClosed(int nodeId)
+    {
+        ensureCapacity( nodeId );
+        closed[nodeId] = generation;
+        open[nodeId] = 0;
+    }
+
+    public boolean isOpen(int nodeId)
+    {
+        return nodeId < open.length && open[nodeId] == generation;
+    }
+
+    /**
+     * Marks a node as being on the open list.
+     *
+     * @param nodeId
+     * @param internalId internal ID to associate with this node, retrieved using {@link #getInternalId(int)}
+     */
+    public void markOpen(int nodeId,int internalId)
+    {
+        ensureCapacity( nodeId );
+        open[nodeId] = generation;
+        internalIds[nodeId] = internalId;
+    }
+
+    /**
+     * Returns the internal ID of a node on the open list.
+     *
+     * @param nodeId
+     * @return internal ID passed to {@link #markOpen(int, int)}, undefined if the node is not on the open list
+     */
+    public int getInternalId(int nodeId)
+    {
+        return internalIds[nodeId];
+    }
+}
@@ -0,0 +1,34 @@
+package de.codesourcery.quix;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a {@link GameState} into a fixed-size observation for an agent.
+ *
+ * Observations are written into caller-supplied buffers using absolute puts (the buffer's
+ * position and limit are left untouched), so that several environments can share a single
+ * buffer and encoding does not need to allocate. Multi-byte values use the buffer's byte order.
+ *
+ * Implementations may keep per-game state between calls, so each {@link GameEnvironment}
+ * needs its own encoder instance.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see GameEnvironment
+ */
+public interface ObservationEncoder
+{
+    /**
+     * Returns the size of an observation in bytes.
+     */
+    int size();
+
+    /**
+     * Writes an observation.
+     *
+     * @param state game to observe
+     * @param dest buffer to write to
+     * @param offset offset in bytes to start writing at, <code>dest</code> needs to hold at least
+     *               {@link #size()} bytes starting at this offset
+     */
+    void encode(GameState state, ByteBuffer dest, int offset);
+}
@@ -0,0 +1,319 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes the playfield as a downsampled multi-channel byte grid.
+ *
+ * Each cell covers <code>factor x factor</code> playfield pixels. The observation is laid out
+ * channel-major (<code>[channel][row][column]</code>), one unsigned byte per cell:
+ * <pre>
+ * {@link #BORDER}   255 if any settled playfield line passes through the cell
+ * {@link #CLAIMED}  fraction of the cell's pixels that have been claimed, scaled to [0,255]
+ * {@link #TRAIL}    255 if the trail the player is currently drawing passes through the cell
+ * {@link #ENEMY}    255 if an enemy is inside the cell
+ * {@link #QUIX}     255 if a Quix line passes through the cell
+ * {@link #PLAYER}   255 if the player is inside the cell
+ * </pre>
+ *
+ * The grid is kept up-to-date incrementally: only playfield lines added since the previous
+ * call get rasterized, the claimed channel is only recomputed when the claimed area changed,
+ * the trail is extended as it grows and only the cells of moving entities are cleared and re-set.
+ * A restarted or restored game is detected and triggers a full rebuild.
+ * When the observation is written to the same buffer and offset as the previous one,
+ * only cells that changed since are written.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class OccupancyGridEncoder implements ObservationEncoder
+{
+    public static final int BORDER = 0;
+    public static final int CLAIMED = 1;
+    public static final int TRAIL = 2;
+    public static final int ENEMY = 3;
+    public static final int QUIX = 4;
+    public static final int PLAYER = 5;
+
+    public static final int CHANNELS = 6;
+
+    private static final byte SET = (byte) 0xff;
+
+    private final int factor;
+    private final int columns;
+    private final int rows;
+    private final int channelSize;
+
+    private final byte[] grid;
+
+    // indices of cells changed since the last call to encode()
+    private final IntArrayList dirty = new IntArrayList();
+    private boolean fullCopy = true;
+    private ByteBuffer lastDest;
+    private int lastOffset;
+
+    // settled playfield
+    private Line firstPlayfieldLine;
+    private int playfieldLineCount;
+    private int claimedCount = -1;
+    private final int[] claimedPerCell;
+
+    // trail
+    private IncompleteLineCollection trail;
+    private int trailLineCount;
+    private final IntArrayList trailCells = new IntArrayList();
+
+    // cells of entities that move every tick
+    private final IntArrayList entityCells = new IntArrayList();
+
+    /**
+     * Create encoder.
+     *
+     * @param factor downsampling factor, each cell covers <code>factor x factor</code> playfield pixels
+     */
+    public OccupancyGridEncoder(int factor)
+    {
+        if ( factor <= 0 ) {
+            throw new IllegalArgumentException( "Downsampling factor must be > 0" );
+        }
+        this.factor = factor;
+        // coordinates are in the range [0,width] / [0,height]
+        this.columns = GameState.PLAYFIELD_WIDTH / factor + 1;
+        this.rows = GameState.PLAYFIELD_HEIGHT / factor + 1;
+        this.channelSize = columns * rows;
+        this.grid = new byte[ CHANNELS * channelSize ];
+        this.claimedPerCell = new int[ channelSize ];
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int size() {
+        return grid.length;
+    }
+
+    /**
+     * Returns the byte offset of a cell relative to the start of an observation.
+     *
+     * @param channel channel
+     * @param x playfield x coordinate
+     * @param y playfield y coordinate
+     */
+    public int offsetOf(int channel, int x, int y) {
+        return channel * channelSize + ( y / factor ) * columns + x / factor;
+    }
+
+    @Override
+    public void encode(GameState state, ByteBuffer dest, int offset)
+    {
+        update( state );
+
+        if ( fullCopy || dest != lastDest || offset != lastOffset )
+        {
+            for ( int i = 0, len = grid.length ; i < len ; i++ ) {
+                dest.put( offset + i, grid[i] );
+            }
+            fullCopy = false;
+            lastDest = dest;
+            lastOffset = offset;
+        }
+        else
+        {
+            for ( int i = 0, len = dirty.size() ; i < len ; i++ )
+            {
+                final int idx = dirty.getInt( i );
+                dest.put( offset + idx, grid[idx] );
+            }
+        }
+        dirty.clear();
+    }
+
+    private void update(GameState state)
+    {
+        final List<Line> lines = state.playfieldLines.lines;
+        if ( lines.isEmpty() || lines.get( 0 ) != firstPlayfieldLine || lines.size() < playfieldLineCount ) {
+            rebuild( lines );
+        }
+
+        // lines only ever get appended or split, splitting does not change the pixels covered
+        for ( int i = playfieldLineCount, len = lines.size() ; i < len ; i++ ) {
+            rasterize( BORDER, lines.get( i ), null );
+        }
+        playfieldLineCount = lines.size();
+
+        final ClaimedRaster claimed = state.getClaimedArea();
+        if ( claimed.getClaimedCount() != claimedCount )
+        {
+            updateClaimed( claimed );
+            claimedCount = claimed.getClaimedCount();
+        }
+
+        updateTrail( state.getCurrentPoly() );
+
+        for ( int i = 0, len = entityCells.size() ; i < len ; i++ ) {
+            set( entityCells.getInt( i ), (byte) 0 );
+        }
+        entityCells.clear();
+        final List<Enemy> enemies = state.getEnemies();
+        for ( int i = 0, len = enemies.size() ; i < len ; i++ )
+        {
+            final Enemy enemy = enemies.get( i );
+            mark( ENEMY, enemy.x, enemy.y, entityCells );
+        }
+        final List<QuixLine> quixLines = state.getQuix().getLines();
+        for ( int i = 0, len = quixLines.size() ; i < len ; i++ ) {
+            rasterizeDiagonal( quixLines.get( i ) );
+        }
+        mark( PLAYER, state.player.x, state.player.y, entityCells );
+    }
+
+    private void rebuild(List<Line> lines)
+    {
+        Arrays.fill( grid, (byte) 0 );
+        Arrays.fill( claimedPerCell, 0 );
+        dirty.clear();
+        fullCopy = true;
+
+        firstPlayfieldLine = lines.isEmpty() ? null : lines.get( 0 );
+        playfieldLineCount = 0;
+        claimedCount = -1;
+        trail = null;
+        trailLineCount = 0;
+        trailCells.clear();
+        entityCells.clear();
+    }
+
+    private void updateTrail(IncompleteLineCollection current)
+    {
+        if ( current != trail )
+        {
+            for ( int i = 0, len = trailCells.size() ; i < len ; i++ ) {
+                set( trailCells.getInt( i ), (byte) 0 );
+            }
+            trailCells.clear();
+            trail = current;
+            trailLineCount = 0;
+        }
+        if ( current == null ) {
+            return;
+        }
+        for ( int i = trailLineCount, len = current.lines.size() ; i < len ; i++ ) {
+            rasterize( TRAIL, current.lines.get( i ), trailCells );
+        }
+        trailLineCount = current.lines.size();
+        // cells that are already set are skipped, so this only touches the newly drawn part
+        rasterize( TRAIL, current.currentLine, trailCells );
+    }
+
+    private void updateClaimed(ClaimedRaster claimed)
+    {
+        final int[] counts = claimedPerCell;
+        Arrays.fill( counts, 0 );
+        final int width = claimed.getWidth();
+        for ( int y = 0, height = claimed.getHeight() ; y <= height ; y++ )
+        {
+            final int rowStart = ( y / factor ) * columns;
+            int x0 = claimed.nextClaimed( 0, y );
+            while ( x0 != -1 )
+            {
+                final int end = claimed.nextUnclaimed( x0, y );
+                final int x1 = end == -1 || end > width ? width : end - 1;
+                // distribute span [x0,x1] across the cells it covers
+                int x = x0;
+                while ( x <= x1 )
+                {
+                    final int column = x / factor;
+                    final int cellEnd = Math.min( x1, column * factor + factor - 1 );
+                    counts[rowStart + column] += cellEnd - x + 1;
+                    x = cellEnd + 1;
+                }
+                x0 = x1 >= width ? -1 : claimed.nextClaimed( x1 + 1, y );
+            }
+        }
+
+        final int base = CLAIMED * channelSize;
+        for ( int row = 0 ; row < rows ; row++ )
+        {
+            final int cellHeight = Math.min( factor, GameState.PLAYFIELD_HEIGHT + 1 - row * factor );
+            for ( int column = 0 ; column < columns ; column++ )
+            {
+                final int cellWidth = Math.min( factor, GameState.PLAYFIELD_WIDTH + 1 - column * factor );
+                final int cell = row * columns + column;
+                set( base + cell, (byte) ( counts[cell] * 255 / ( cellWidth * cellHeight ) ) );
+            }
+        }
+    }
+
+    // horizontal or vertical lines only
+    private void rasterize(int channel, Line line, IntArrayList newlySet)
+    {
+        final int base = channel * channelSize;
+        final int minColumn = column( line.minX() );
+        final int maxColumn = column( line.maxX() );
+        final int minRow = row( line.minY() );
+        final int maxRow = row( line.maxY() );
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int column = minColumn ; column <= maxColumn ; column++ )
+            {
+                final int idx = base + row * columns + column;
+                if ( grid[idx] != SET )
+                {
+                    set( idx, SET );
+                    if ( newlySet != null ) {
+                        newlySet.add( idx );
+                    }
+                }
+            }
+        }
+    }
+
+    private void rasterizeDiagonal(Line line)
+    {
+        final int x0 = line.x0();
+        final int y0 = line.y0();
+        final int dx = line.x1() - x0;
+        final int dy = line.y1() - y0;
+        // sample often enough to hit every cell the line passes through
+        final int steps = Math.max( 1, 2 * Math.max( Math.abs( dx ), Math.abs( dy ) ) / factor );
+        for ( int i = 0 ; i <= steps ; i++ ) {
+            mark( QUIX, x0 + dx * i / steps, y0 + dy * i / steps, entityCells );
+        }
+    }
+
+    private void mark(int channel, int x, int y, IntArrayList cells)
+    {
+        final int idx = channel * channelSize + row( y ) * columns + column( x );
+        if ( grid[idx] != SET )
+        {
+            set( idx, SET );
+            cells.add( idx );
+        }
+    }
+
+    private void set(int idx, byte value)
+    {
+        if ( grid[idx] != value )
+        {
+            grid[idx] = value;
+            dirty.add( idx );
+        }
+    }
+
+    private int column(int x) {
+        return x < 0 ? 0 : x > GameState.PLAYFIELD_WIDTH ? columns - 1 : x / factor;
+    }
+
+    private int row(int y) {
+        return y < 0 ? 0 : y > GameState.PLAYFIELD_HEIGHT ? rows - 1 : y / factor;
+    }
+}
@@ -0,0 +1,265 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Index for horizontal and vertical lines only.
+ *
+ * Vertical lines are bucketed by their x coordinate and horizontal lines by their
+ * y coordinate. Buckets are kept sorted by coordinate so the buckets a query touches can be
+ * found using binary search, and each bucket is an interval tree over the lines' other coordinate.
+ * Point queries and segment queries both take O(log n + k) time (with k being the number of
+ * lines whose bounding box overlaps the query), independent of how large the lines are.
+ *
+ * Lines that are a single point are treated as vertical lines.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class OrthogonalLineIndex implements LineIndex
+{
+    private static final long VERTICAL = 1L << 32;
+
+    // vertical lines keyed by x, intervals over y
+    private final Axis verticals = new Axis();
+    // horizontal lines keyed by y, intervals over x
+    private final Axis horizontals = new Axis();
+
+    // bucket each line was registered with so it can be
+    // unregistered even after its endpoints have been changed,
+    // packed as (VERTICAL flag | key)
+    private final Reference2LongOpenHashMap<Line> registered = new Reference2LongOpenHashMap<>();
+
+    @Override
+    public void add(Line line)
+    {
+        if ( line.isVertical() )
+        {
+            verticals.add( line.x0(), line.minY(), line.maxY(), line );
+            registered.put( line, VERTICAL | ( line.x0() & 0xffffffffL ) );
+        }
+        else if ( line.isHorizontal() )
+        {
+            horizontals.add( line.y0(), line.minX(), line.maxX(), line );
+            registered.put( line, line.y0() & 0xffffffffL );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Only horizontal and vertical lines are supported: " + line );
+        }
+    }
+
+    @Override
+    public void update(Line line)
+    {
+        remove( line );
+        add( line );
+    }
+
+    @Override
+    public void remove(Line line)
+    {
+        if ( ! registered.containsKey( line ) ) {
+            return;
+        }
+        final long packed = registered.removeLong( line );
+        final Axis axis = ( packed & VERTICAL ) != 0 ? verticals : horizontals;
+        axis.remove( (int) packed, line );
+    }
+
+    @Override
+    public void clear()
+    {
+        verticals.clear();
+        horizontals.clear();
+        registered.clear();
+    }
+
+    @Override
+    public Line getLine(int x, int y) {
+        return intersects( x, y, x, y );
+    }
+
+    @Override
+    public Line intersects(Line line)
+    {
+        return intersects( line.x0(), line.y0(), line.x1(), line.y1() );
+    }
+
+    @Override
+    public Line intersects(int x0, int y0, int x1, int y1)
+    {
+        final int minX = Math.min( x0, x1 );
+        final int maxX = Math.max( x0, x1 );
+        final int minY = Math.min( y0, y1 );
+        final int maxY = Math.max( y0, y1 );
+        final Line result = verticals.find( minX, maxX, minY, maxY, x0, y0, x1, y1 );
+        return result != null ? result : horizontals.find( minY, maxY, minX, maxX, x0, y0, x1, y1 );
+    }
+
+    /**
+     * Buckets sorted by key.
+     *
+     * Buckets are kept when they become empty, playfields tend to
+     * re-use the same coordinates across games.
+     */
+    private static final class Axis
+    {
+        private int[] keys = new int[ 16 ];
+        private Bucket[] buckets = new Bucket[ 16 ];
+        private int size;
+
+        public void add(int key, int start, int end, Line line)
+        {
+            int idx = Arrays.binarySearch( keys, 0, size, key );
+            if ( idx < 0 )
+            {
+                idx = -idx - 1;
+                if ( size == keys.length )
+                {
+                    keys = Arrays.copyOf( keys, size * 2 );
+                    buckets = Arrays.copyOf( buckets, size * 2 );
+                }
+                System.arraycopy( keys, idx, keys, idx + 1, size - idx );
+                System.arraycopy( buckets, idx, buckets, idx + 1, size - idx );
+                keys[idx] = key;
+                buckets[idx] = new Bucket();
+                size++;
+            }
+            buckets[idx].add( start, end, line );
+        }
+
+        public void remove(int key, Line line)
+        {
+            final int idx = Arrays.binarySearch( keys, 0, size, key );
+            if ( idx >= 0 ) {
+                buckets[idx].remove( line );
+            }
+        }
+
+        public void clear()
+        {
+            for ( int i = 0 ; i < size ; i++ ) {
+                buckets[i].clear();
+            }
+        }
+
+        /**
+         * Returns the first line in buckets [minKey,maxKey] that overlaps the interval [start,end]
+         * and intersects the query segment.
+         */
+        public Line find(int minKey, int maxKey, int start, int end, int x0, int y0, int x1, int y1)
+        {
+            int idx = Arrays.binarySearch( keys, 0, size, minKey );
+            if ( idx < 0 ) {
+                idx = -idx - 1;
+            }
+            for ( ; idx < size && keys[idx] <= maxKey ; idx++ )
+            {
+                final Line result = buckets[idx].find( 0, buckets[idx].size, start, end, x0, y0, x1, y1 );
+                if ( result != null ) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Interval tree stored as arrays sorted by interval start, the tree is implicit
+     * (the root of range [from,to) is its middle element) and each node knows
+     * the largest interval end within its subtree.
+     */
+    private static final class Bucket
+    {
+        private int[] starts = new int[ 4 ];
+        private int[] ends = new int[ 4 ];
+        private int[] maxEnds = new int[ 4 ];
+        private Line[] lines = new Line[ 4 ];
+        private int size;
+
+        public void add(int start, int end, Line line)
+        {
+            if ( size == starts.length )
+            {
+                starts = Arrays.copyOf( starts, size * 2 );
+                ends = Arrays.copyOf( ends, size * 2 );
+                maxEnds = Arrays.copyOf( maxEnds, size * 2 );
+                lines = Arrays.copyOf( lines, size * 2 );
+            }
+            // insert after intervals with the same start so lines stay in insertion order
+            int idx = size;
+            while ( idx > 0 && starts[idx - 1] > start ) {
+                idx--;
+            }
+            System.arraycopy( starts, idx, starts, idx + 1, size - idx );
+            System.arraycopy( ends, idx, ends, idx + 1, size - idx );
+            System.arraycopy( lines, idx, lines, idx + 1, size - idx );
+            starts[idx] = start;
+            ends[idx] = end;
+            lines[idx] = line;
+            size++;
+            updateMaxEnds( 0, size );
+        }
+
+        public void remove(Line line)
+        {
+            for ( int i = 0 ; i < size ; i++ )
+            {
+                if ( lines[i] == line )
+                {
+                    System.arraycopy( starts, i + 1, starts, i, size - i - 1 );
+                    System.arraycopy( ends, i + 1, ends, i, size - i - 1 );
+                    System.arraycopy( lines, i + 1, lines, i, size - i - 1 );
+                    lines[--size] = null;
+                    updateMaxEnds( 0, size );
+                    return;
+                }
+            }
+        }
+
+        public void clear()
+        {
+            Arrays.fill( lines, 0, size, null );
+            size = 0;
+        }
+
+        private int updateMaxEnds(int from, int to)
+        {
+            if ( from >= to ) {
+                return Integer.MIN_VALUE;
+            }
+            final int mid = ( from + to ) >>> 1;
+            final int max = Math.max( ends[mid], Math.max( updateMaxEnds( from, mid ), updateMaxEnds( mid + 1, to ) ) );
+            maxEnds[mid] = max;
+            return max;
+        }
+
+        public Line find(int from, int to, int start, int end, int x0, int y0, int x1, int y1)
+        {
+            if ( from >= to ) {
+                return null;
+            }
+            final int mid = ( from + to ) >>> 1;
+            if ( maxEnds[mid] < start ) {
+                return null; // no interval in this subtree reaches the query
+            }
+            final Line result = find( from, mid, start, end, x0, y0, x1, y1 );
+            if ( result != null ) {
+                return result;
+            }
+            if ( starts[mid] > end ) {
+                return null; // everything to the right starts even later
+            }
+            if ( ends[mid] >= start )
+            {
+                final Line candidate = lines[mid];
+                if ( SegmentIntersection.intersects( candidate.x0(), candidate.y0(), candidate.x1(), candidate.y1(), x0, y0, x1, y1 ) ) {
+                    return candidate;
+                }
+            }
+            return find( mid + 1, to, start, end, x0, y0, x1, y1 );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.codesourcery.quix;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Simulates several independently seeded games in parallel, like {@link HeadlessRunner} does
+ * for a single game, and reports the combined throughput.
+ *
+ * Each game gets its own {@link GameState} and is simulated by a single task on a {@link ForkJoinPool}.
+ * Game <code>i</code> uses seed <code>seed+i</code> for both the game and its input, so results
+ * are reproducible regardless of the number of threads used.
+ *
+ * Usage: <code>ParallelRunner [games] [ticks per game] [threads] [seed]</code>
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class ParallelRunner
+{
+    /**
+     * Outcome of simulating a single game.
+     */
+    public static final class Result
+    {
+        public final long seed;
+        public final long ticks;
+        public final int games;
+        public final long elapsedNanos;
+        public final GameState state;
+
+        Result(long seed, long ticks, int games, long elapsedNanos, GameState state)
+        {
+            this.seed = seed;
+            this.ticks = ticks;
+            this.games = games;
+            this.elapsedNanos = elapsedNanos;
+            this.state = state;
+        }
+
+        public double getTicksPerSecond() {
+            return ticks / ( elapsedNanos / 1_000_000_000d );
+        }
+    }
+
+    private ParallelRunner() {
+    }
+
+    /**
+     * Simulates games in parallel.
+     *
+     * @param gameCount number of games
+     * @param ticksPerGame number of ticks to simulate per game
+     * @param seed seed of the first game
+     * @param parallelism number of threads to use
+     * @return results, in order of the games' seeds
+     */
+    public static List<Result> run(int gameCount, long ticksPerGame, long seed, int parallelism)
+    {
+        if ( gameCount <= 0 ) {
+            throw new IllegalArgumentException( "Game count must be > 0" );
+        }
+        final ForkJoinPool pool = new ForkJoinPool( parallelism );
+        try
+        {
+            final List<ForkJoinTask<Result>> tasks = new ArrayList<>( gameCount );
+            for ( int i = 0 ; i < gameCount ; i++ )
+            {
+                final long gameSeed = seed + i;
+                tasks.add( pool.submit( () -> simulate( gameSeed, ticksPerGame ) ) );
+            }
+            final List<Result> results = new ArrayList<>( gameCount );
+            for ( ForkJoinTask<Result> task : tasks ) {
+                results.add( task.join() );
+            }
+            return results;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static Result simulate(long seed, long ticks)
+    {
+        final GameState state = new GameState( seed );
+        final long start = System.nanoTime();
+        final int games;
+        try {
+            games = HeadlessRunner.simulate( state, ticks, seed, null );
+        } catch (IOException e) {
+            // can't happen without a recorder
+            throw new UncheckedIOException( e );
+        }
+        return new Result( seed, ticks, games, System.nanoTime() - start, state );
+    }
+
+    public static void main(String[] args)
+    {
+        final int gameCount = args.length > 0 ? Integer.parseInt( args[0] ) : Runtime.getRuntime().availableProcessors();
+        final long ticks = args.length > 1 ? Long.parseLong( args[1] ) : 100_000L;
+        final int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 3 ? Long.parseLong( args[3] ) : GameState.RANDOM_SEED;
+
+        final long start = System.nanoTime();
+        final List<Result> results = run( gameCount, ticks, seed, threads );
+        final long elapsedNanos = System.nanoTime() - start;
+
+        long totalTicks = 0;
+        int totalGames = 0;
+        for ( Result result : results )
+        {
+            System.out.println( "Seed " + result.seed + ": " + result.ticks + " ticks (" + result.games + " games) in "
+                + ( result.elapsedNanos / 1_000_000 ) + " ms, " + (long) result.getTicksPerSecond() + " ticks/s" );
+            totalTicks += result.ticks;
+            totalGames += result.games;
+        }
+        final double ticksPerSecond = totalTicks / ( elapsedNanos / 1_000_000_000d );
+        System.out.println( "Simulated " + totalTicks + " ticks (" + totalGames + " games) on " + threads + " threads in "
+            + ( elapsedNanos / 1_000_000 ) + " ms, " + (long) ticksPerSecond + " ticks/s" );
+    }
+}
@@ -1,53 +1,16 @@
 package de.codesourcery.quix;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class Poly
 {
-    public static int ID = 0;
-
     public final List<Node> vertices = new ArrayList<>();
     public final List<Line> edges = new ArrayList<>();
 
-    public int id = Poly.ID++;
-
-    public void draw(Graphics2D gfx)
-    {
-        if ( edges.isEmpty() ) {
-            return;
-        }
-        List<Node> nodes = new ArrayList<>();
-        nodes.add( edges.get(0).node0 );
-        nodes.add( edges.get(0).node1 );
-
-        for (int i = 1, edgesSize = edges.size(); i < edgesSize; i++)
-        {
-            final Line node = edges.get( i );
-            if ( ! nodes.contains( node.node0 ) ) {
-                nodes.add( node.node0 );
-            }
-            if ( ! nodes.contains( node.node0 ) ) {
-                nodes.add( node.node0 );
-            }
-        }
-        final int[] x = new int[ nodes.size() ];
-        final int[] y = new int[ nodes.size() ];
-        int ptr = 0;
-        for ( var n : nodes ) {
-            x[ptr] = n.x;
-            y[ptr++] = n.y;
-        }
-        gfx.setColor( Color.RED );
-        gfx.fillPolygon( x,y,x.length );
-        gfx.setColor( Color.WHITE );
-        gfx.drawPolygon( x,y,x.length );
-    }
-
+    // only used for debug output, triangles get numbered by triangulate()
+    public int id;
     public float area() {
         if ( this.edges.size() != 3 ) {
             throw new IllegalArgumentException("Can only calculate area of triangles (was: "+this.edges.toString()+")");
@@ -84,13 +47,18 @@ public class Poly
         }
 
         List<Node> nodes = Poly.getPoints( edges );
-        System.out.println("TRIANGULATE:");
-        nodes.forEach(  n -> System.out.println( n ) );
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.POLY_TRIANGULATE, id, nodes.size() );
+        }
+
+        // every ear test scans all edges, so scan a struct-of-arrays copy of them instead of the lines
+        final SegmentTable table = toTable( edges );
+        final BoundingBox bb = calculateBoundingBox( edges );
 
         final List<Poly> result = new ArrayList<>();
-        if ( ! triangulateClockwise( nodes, result ) )
+        if ( ! triangulateClockwise( nodes, table, bb, result ) )
         {
-            if ( ! triangulateCounterClockwise( nodes, result ) ) {
+            if ( ! triangulateCounterClockwise( nodes, table, bb, result ) ) {
                 throw new RuntimeException("triangulation failed");
             }
         }
@@ -105,11 +73,15 @@ public class Poly
                     .add( new Line(p2,p0) );
             result.add( poly );
         }
+        for ( int i = 0, len = result.size() ; i < len ; i++ ) {
+            result.get( i ).id = i;
+        }
         return result;
     }
 
-    private boolean triangulateCounterClockwise(List<Node> nodes,List<Poly> result)
+    private static boolean triangulateCounterClockwise(List<Node> nodes,SegmentTable edges,BoundingBox bb,List<Poly> result)
     {
+        final Line shrunk = new Line( new Node(), new Node() );
 outer:
         while(true)
         {
@@ -122,8 +94,8 @@ outer:
                 int l = ((p0.x - p1.x) * (p2.y - p1.y) - (p0.y - p1.y) * (p2.x - p1.x));
                 if ( l < 0 )
                 {
-                    final Line shrunk = new Line(p0,p2).shrink();
-                    if ( isInsidePoly( shrunk, edges ))
+                    // diagonals too short to be shrunk always touch the edges at their endpoints
+                    if ( Line.shrink( p0.x, p0.y, p2.x, p2.y, shrunk ) != null && isInsidePoly( shrunk, edges, bb ))
                     {
                         // we found an 'ear', remove it
                         final Poly poly = new Poly()
@@ -144,8 +116,9 @@ outer:
         return true;
     }
 
-    private boolean triangulateClockwise(List<Node> nodes,List<Poly> result)
+    private static boolean triangulateClockwise(List<Node> nodes,SegmentTable edges,BoundingBox bb,List<Poly> result)
     {
+        final Line shrunk = new Line( new Node(), new Node() );
 outer:
         while(true)
         {
@@ -158,8 +131,8 @@ outer:
                 int l = ((p0.x - p1.x) * (p2.y - p1.y) - (p0.y - p1.y) * (p2.x - p1.x));
                 if ( l < 0 )
                 {
-                    final Line shrunk = new Line(p0,p2).shrink();
-                    if ( isInsidePoly( shrunk, edges ))
+                    // diagonals too short to be shrunk always touch the edges at their endpoints
+                    if ( Line.shrink( p0.x, p0.y, p2.x, p2.y, shrunk ) != null && isInsidePoly( shrunk, edges, bb ))
                     {
                         // we found an 'ear', remove it
                         final Poly poly = new Poly()
@@ -180,74 +153,93 @@ outer:
         return true;
     }
 
-    private boolean isInsidePoly(Line e, List<Line> edges)
+    private static boolean isInsidePoly(Line e, SegmentTable edges, BoundingBox bb)
     {
-        System.out.println("Checking "+e);
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.POLY_EAR_CHECK, e.x0(), e.y0(), e.x1(), e.y1() );
+        }
         // make sure the line does not intersect with any of the other edges
-        for ( Line l : edges )
+        final int hit = edges.firstHit( e );
+        if ( hit != -1 )
         {
-            if ( e.intersects( l ) ) {
-                System.out.println("--- INTERSECTS "+l);
-                return false;
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.POLY_EAR_INTERSECTS,
+                    edges.getX0( hit ), edges.getY0( hit ), edges.getX1( hit ), edges.getY1( hit ) );
             }
+            return false;
         }
 
         // make sure both points are inside
         // the polygon
-        final Rectangle bb = calculateBoundingBox( edges );
-
-        System.out.println("Bounding box: "+bb);
         if ( ! contains( e.node0.x, e.node0.y, bb, edges )  ) {
-            System.out.println("--- Outside BB for node0: "+e.node0);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.POLY_EAR_OUTSIDE, e.x0(), e.y0() );
+            }
             return false;
         }
         if ( ! contains( e.node1.x, e.node1.y, bb, edges )  ) {
-            System.out.println("--- Outside BB for node1: "+e.node1);
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.POLY_EAR_OUTSIDE, e.x1(), e.y1() );
+            }
             return false;
         }
         return true;
     }
 
-    private static int getIntersectionCount(Line line, List<Line> edges)
+    private static int getIntersectionCount(int x0, int y0, int x1, int y1, SegmentTable edges)
     {
         int count = 0;
-        for ( Line l : edges )
-        {
-            if ( l.intersects( line ) ) {
-                count++;
-            }
+        for ( int row = edges.firstHit( x0, y0, x1, y1, 0 ) ; row != -1 ; row = edges.firstHit( x0, y0, x1, y1, row + 1 ) ) {
+            count++;
         }
         return count;
     }
 
+    private static SegmentTable toTable(List<Line> edges)
+    {
+        final SegmentTable result = new SegmentTable();
+        for ( int i = 0, len = edges.size() ; i < len ; i++ ) {
+            result.add( edges.get( i ) );
+        }
+        return result;
+    }
+
     public boolean contains(int x,int y) {
         final boolean result = contains( x, y, calculateBoundingBox( this.edges ), this.edges );
-        System.out.println( "CONTAINS = "+result+" FOR "+this );
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.POLY_CONTAINS, id, x, y, result ? 1 : 0 );
+        }
         return result;
     }
 
-    public static boolean contains(int x,int y,Rectangle bb,List<Line> edges)
+    public static boolean contains(int x,int y,BoundingBox bb,List<Line> edges)
+    {
+        return contains( x, y, bb, toTable( edges ) );
+    }
+
+    private static boolean contains(int x,int y,BoundingBox bb,SegmentTable edges)
     {
         if ( ! bb.contains( x,y ) ) {
-            System.out.println("OUTSIDE BOUNDING BOX");
+            if ( Trace.ENABLED ) {
+                Trace.record( TraceEvent.POLY_OUTSIDE_BOUNDING_BOX, x, y, bb.x, bb.y, bb.width, bb.height );
+            }
             return false;
         }
-        Line ray = new Line( bb.x - 1000, y, x, y );
-        System.out.println("RAY: "+ray);
-
-        int intersectionCount = getIntersectionCount( ray, edges );
-        System.out.println("--- Intersection count "+intersectionCount+" for p0: ("+x+","+y+")");
+        int intersectionCount = getIntersectionCount( bb.x - 1000, y, x, y, edges );
+        if ( Trace.ENABLED ) {
+            Trace.record( TraceEvent.POLY_RAY_CROSSINGS, x, y, intersectionCount );
+        }
         if ( (intersectionCount % 2) == 0 ) { // 0 or even number of intersections -> outside
             return false;
         }
         return true;
     }
 
-    public Rectangle getBoundingBox() {
+    public BoundingBox getBoundingBox() {
         return calculateBoundingBox( this.edges );
     }
 
-    private static Rectangle calculateBoundingBox(List<Line> edges)
+    private static BoundingBox calculateBoundingBox(List<Line> edges)
     {
         int xmin=0,xmax=0;
         int ymin=0,ymax=0;
@@ -274,7 +266,7 @@ outer:
         if ( w < 0 || h < 0 ) {
             throw new IllegalStateException("BB side negative ?");
         }
-        return new Rectangle( xmin, ymin, w, h );
+        return new BoundingBox( xmin, ymin, w, h );
     }
 
     public static void assertValidPolygon(List<Line> tmp)
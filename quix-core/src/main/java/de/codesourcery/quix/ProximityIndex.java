@@ -0,0 +1,310 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+import java.util.List;
+
+/**
+ * {@link LineGrid} that also answers proximity queries for lines and their endpoint nodes.
+ *
+ * Nearest-neighbour queries visit the cells in square rings around the query point's cell,
+ * stopping as soon as nothing outside the rings visited so far can be closer than the
+ * k-th best candidate (or the maximum distance). Radius queries only visit the cells
+ * overlapping the query circle's bounding box.
+ *
+ * A node is only considered in the cell that contains it (while a line is registered
+ * with every cell its bounding box overlaps), so nodes need no bookkeeping of their own
+ * and the index stays up-to-date through {@link #add(Line)} / {@link #update(Line)} alone.
+ *
+ * Distances are euclidean, results include candidates exactly at the maximum distance / radius.
+ * Instances are not thread-safe, queries use internal scratch buffers.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class ProximityIndex extends LineGrid
+{
+    // results of nearestLine() / nearestNode()
+    private final Object[] nearest = new Object[1];
+    private final float[] nearestDist2 = new float[1];
+
+    // nodes reported by the current radius query, nodes shared by
+    // several lines of a cell would get reported more than once otherwise
+    private final ReferenceOpenHashSet<Node> seen = new ReferenceOpenHashSet<>();
+
+    /**
+     * Create index.
+     *
+     * @param width width of the area covered by the grid, coordinates are in the range [0,width]
+     * @param height height of the area covered by the grid, coordinates are in the range [0,height]
+     * @param cellSize cell size, must be a power of two
+     */
+    public ProximityIndex(int width, int height, int cellSize)
+    {
+        super( width, height, cellSize );
+    }
+
+    /**
+     * Returns the line closest to a point.
+     *
+     * @param maxDistance lines further away are ignored
+     * @return line or <code>null</code>
+     */
+    public Line nearestLine(float x, float y, float maxDistance)
+    {
+        final Line result = nearest( x, y, 1, maxDistance, nearest, nearestDist2, false ) == 0 ? null : (Line) nearest[0];
+        nearest[0] = null;
+        return result;
+    }
+
+    /**
+     * Returns the line endpoint closest to a point.
+     *
+     * @param maxDistance nodes further away are ignored
+     * @return node or <code>null</code>
+     */
+    public Node nearestNode(float x, float y, float maxDistance)
+    {
+        final Node result = nearest( x, y, 1, maxDistance, nearest, nearestDist2, true ) == 0 ? null : (Node) nearest[0];
+        nearest[0] = null;
+        return result;
+    }
+
+    /**
+     * Finds the k lines closest to a point.
+     *
+     * @param k max. number of lines to find
+     * @param maxDistance lines further away are ignored
+     * @param result array to store the lines in, ordered by ascending distance. Must hold at least <code>k</code> elements.
+     * @param distances2 array to store the squared distances of the lines in, may be <code>null</code>
+     * @return number of lines found
+     */
+    public int nearestLines(float x, float y, int k, float maxDistance, Line[] result, float[] distances2)
+    {
+        return nearest( x, y, k, maxDistance, result, distances2, false );
+    }
+
+    /**
+     * Finds the k line endpoints closest to a point.
+     *
+     * @param k max. number of nodes to find
+     * @param maxDistance nodes further away are ignored
+     * @param result array to store the nodes in, ordered by ascending distance. Must hold at least <code>k</code> elements.
+     * @param distances2 array to store the squared distances of the nodes in, may be <code>null</code>
+     * @return number of nodes found
+     */
+    public int nearestNodes(float x, float y, int k, float maxDistance, Node[] result, float[] distances2)
+    {
+        return nearest( x, y, k, maxDistance, result, distances2, true );
+    }
+
+    /**
+     * Adds all lines within a given distance of a point to a list.
+     *
+     * @param result list to add lines to (in no particular order)
+     * @return number of lines added
+     */
+    public int linesWithin(float x, float y, float radius, List<Line> result)
+    {
+        final float radius2 = radius * radius;
+        final int minCol = column( (int) Math.floor( x - radius ) );
+        final int maxCol = column( (int) Math.ceil( x + radius ) );
+        final int minRow = row( (int) Math.floor( y - radius ) );
+        final int maxRow = row( (int) Math.ceil( y + radius ) );
+        int count = 0;
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int col = minCol ; col <= maxCol ; col++ )
+            {
+                final int cellIdx = row * columns + col;
+                final Line[] cell = cells[cellIdx];
+                for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+                {
+                    final Line l = cell[i];
+                    // lines spanning several cells are only looked at in the
+                    // top-left cell they share with the query
+                    if ( col == Math.max( minCol, column( l.minX() ) ) && row == Math.max( minRow, row( l.minY() ) ) &&
+                        LinAlg.dist2ToSegment( x, y, l.x0(), l.y0(), l.x1(), l.y1() ) <= radius2 )
+                    {
+                        result.add( l );
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds all line endpoints within a given distance of a point to a list.
+     *
+     * @param result list to add nodes to (in no particular order)
+     * @return number of nodes added
+     */
+    public int nodesWithin(float x, float y, float radius, List<Node> result)
+    {
+        final float radius2 = radius * radius;
+        final int minCol = column( (int) Math.floor( x - radius ) );
+        final int maxCol = column( (int) Math.ceil( x + radius ) );
+        final int minRow = row( (int) Math.floor( y - radius ) );
+        final int maxRow = row( (int) Math.ceil( y + radius ) );
+        int count = 0;
+        seen.clear();
+        for ( int row = minRow ; row <= maxRow ; row++ )
+        {
+            for ( int col = minCol ; col <= maxCol ; col++ )
+            {
+                final int cellIdx = row * columns + col;
+                final Line[] cell = cells[cellIdx];
+                for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+                {
+                    final Line l = cell[i];
+                    for ( int end = 0 ; end < 2 ; end++ )
+                    {
+                        final Node n = end == 0 ? l.node0 : l.node1;
+                        if ( column( n.x ) == col && row( n.y ) == row &&
+                            LinAlg.dist2( x, y, n.x, n.y ) <= radius2 && seen.add( n ) )
+                        {
+                            result.add( n );
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        seen.clear();
+        return count;
+    }
+
+    private int nearest(float x, float y, int k, float maxDistance, Object[] result, float[] distances2, boolean nodes)
+    {
+        if ( k < 0 || result.length < k || ( distances2 != null && distances2.length < k ) ) {
+            throw new IllegalArgumentException( "Result arrays must hold at least k = " + k + " elements" );
+        }
+        if ( k == 0 ) {
+            return 0;
+        }
+        final float[] dist2 = distances2 != null ? distances2 : new float[ k ];
+        final float maxDist2 = maxDistance * maxDistance;
+        final int cellSize = 1 << cellShift;
+        final int cx = column( (int) Math.floor( x ) );
+        final int cy = row( (int) Math.floor( y ) );
+
+        int count = 0;
+        for ( int r = 0 ; ; r++ )
+        {
+            final int minCol = cx - r;
+            final int maxCol = cx + r;
+            final int minRow = cy - r;
+            final int maxRow = cy + r;
+            if ( r > 0 )
+            {
+                // lower bound for the distance of anything not within the rings visited so far,
+                // sides where the visited rings already reach the edge of the grid do not count
+                // (the outermost cells hold everything beyond the grid's extent)
+                float bound = Float.POSITIVE_INFINITY;
+                if ( minCol + 1 > 0 ) {
+                    bound = Math.min( bound, x - ( minCol + 1 ) * cellSize );
+                }
+                if ( maxCol - 1 < columns - 1 ) {
+                    bound = Math.min( bound, maxCol * cellSize - x );
+                }
+                if ( minRow + 1 > 0 ) {
+                    bound = Math.min( bound, y - ( minRow + 1 ) * cellSize );
+                }
+                if ( maxRow - 1 < rows - 1 ) {
+                    bound = Math.min( bound, maxRow * cellSize - y );
+                }
+                if ( bound == Float.POSITIVE_INFINITY ) {
+                    break; // visited the whole grid
+                }
+                final float limit2 = count == k ? Math.min( maxDist2, dist2[k - 1] ) : maxDist2;
+                if ( bound > 0 && bound * bound > limit2 ) {
+                    break;
+                }
+            }
+            for ( int row = Math.max( 0, minRow ), lastRow = Math.min( rows - 1, maxRow ) ; row <= lastRow ; row++ )
+            {
+                if ( row == minRow || row == maxRow )
+                {
+                    for ( int col = Math.max( 0, minCol ), lastCol = Math.min( columns - 1, maxCol ) ; col <= lastCol ; col++ ) {
+                        count = scan( row, col, x, y, k, maxDist2, result, dist2, count, nodes );
+                    }
+                }
+                else
+                {
+                    if ( minCol >= 0 ) {
+                        count = scan( row, minCol, x, y, k, maxDist2, result, dist2, count, nodes );
+                    }
+                    if ( maxCol < columns ) {
+                        count = scan( row, maxCol, x, y, k, maxDist2, result, dist2, count, nodes );
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int scan(int row, int col, float x, float y, int k, float maxDist2, Object[] result, float[] dist2, int count, boolean nodes)
+    {
+        return nodes ? scanNodes( row, col, x, y, k, maxDist2, result, dist2, count ) :
+            scanLines( row * columns + col, x, y, k, maxDist2, result, dist2, count );
+    }
+
+    private int scanLines(int cellIdx, float x, float y, int k, float maxDist2, Object[] result, float[] dist2, int count)
+    {
+        final Line[] cell = cells[cellIdx];
+        for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+        {
+            final Line l = cell[i];
+            count = offer( l, LinAlg.dist2ToSegment( x, y, l.x0(), l.y0(), l.x1(), l.y1() ), k, maxDist2, result, dist2, count );
+        }
+        return count;
+    }
+
+    private int scanNodes(int row, int col, float x, float y, int k, float maxDist2, Object[] result, float[] dist2, int count)
+    {
+        final int cellIdx = row * columns + col;
+        final Line[] cell = cells[cellIdx];
+        for ( int i = 0, len = cellSizes[cellIdx] ; i < len ; i++ )
+        {
+            final Line l = cell[i];
+            final Node n0 = l.node0;
+            if ( column( n0.x ) == col && row( n0.y ) == row ) {
+                count = offer( n0, LinAlg.dist2( x, y, n0.x, n0.y ), k, maxDist2, result, dist2, count );
+            }
+            final Node n1 = l.node1;
+            if ( column( n1.x ) == col && row( n1.y ) == row ) {
+                count = offer( n1, LinAlg.dist2( x, y, n1.x, n1.y ), k, maxDist2, result, dist2, count );
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts a candidate into the (sorted) result if it is among the k closest ones found so far.
+     *
+     * @return new number of results
+     */
+    private static int offer(Object candidate, float d2, int k, float maxDist2, Object[] result, float[] dist2, int count)
+    {
+        if ( d2 > maxDist2 || ( count == k && d2 >= dist2[k - 1] ) ) {
+            return count;
+        }
+        // lines spanning several cells / nodes shared by several lines are seen more than once
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            if ( result[i] == candidate ) {
+                return count;
+            }
+        }
+        int idx = count < k ? count++ : k - 1;
+        for ( ; idx > 0 && dist2[idx - 1] > d2 ; idx-- )
+        {
+            result[idx] = result[idx - 1];
+            dist2[idx] = dist2[idx - 1];
+        }
+        result[idx] = candidate;
+        dist2[idx] = d2;
+        return count;
+    }
+}
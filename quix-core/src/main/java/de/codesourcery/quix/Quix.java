@@ -1,21 +1,28 @@
 package de.codesourcery.quix;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 public class Quix
 {
     private final List<QuixLine> lines = new ArrayList<>();
 
-    public Color lineColor = Color.BLUE;
-
     public int randomizationInterval = 2*60;
     public int currentTick = 0;
 
-    private final Random RND = new Random(0xdeadbeef);
+    public static final long DEFAULT_SEED = 0xdeadbeef;
+
+    private final DeterministicRandom RND;
+
+    public Quix()
+    {
+        this( DEFAULT_SEED );
+    }
+
+    public Quix(long seed)
+    {
+        RND = new DeterministicRandom( seed );
+    }
 
     public void tick(GameState state)
     {
@@ -76,14 +83,13 @@ public class Quix
         lines.add( line );
     }
 
-    public void draw(Graphics2D gfx)
+    DeterministicRandom getRandom()
     {
-        gfx.setColor( lineColor );
+        return RND;
+    }
 
-        for (int i = 0, linesSize = lines.size(); i < linesSize; i++)
-        {
-            final QuixLine line = lines.get( i );
-            line.draw( gfx );
-        }
+    public List<QuixLine> getLines()
+    {
+        return lines;
     }
 }
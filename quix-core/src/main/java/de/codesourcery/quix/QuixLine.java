@@ -1,17 +1,10 @@
 package de.codesourcery.quix;
 
-import java.awt.Point;
-
 public class QuixLine extends Line
 {
     public int dx0=1,dy0=1;
     public int dx1=1,dy1=1;
 
-    public QuixLine(Point p0, Point p1)
-    {
-        super( p0, p1 );
-    }
-
     public QuixLine(int x0, int y0, int x1, int y1)
     {
         super( x0, y0, x1, y1 );
@@ -0,0 +1,50 @@
+package de.codesourcery.quix;
+
+import java.util.Random;
+
+/**
+ * Pseudo-random player input: picks at most one direction at a time (like a player
+ * pressing a single key), optionally moving fast, and holds it for a number of ticks.
+ *
+ * The same seed always yields the same sequence of controls.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class RandomInput
+{
+    private final Random rnd;
+    private final int holdTicks;
+
+    private int controls = Controls.NONE;
+    private long tick;
+
+    /**
+     * Create input.
+     *
+     * @param seed seed used to generate the input
+     * @param holdTicks number of ticks to keep the same input, must be positive
+     */
+    public RandomInput(long seed, int holdTicks)
+    {
+        if ( holdTicks <= 0 ) {
+            throw new IllegalArgumentException( "Hold ticks must be positive, was: " + holdTicks );
+        }
+        this.rnd = new Random( seed );
+        this.holdTicks = holdTicks;
+    }
+
+    /**
+     * Returns the controls for the next tick.
+     *
+     * @return bit mask of {@link Controls} flags
+     */
+    public int next()
+    {
+        if ( ( tick++ % holdTicks ) == 0 )
+        {
+            final int direction = rnd.nextInt( 5 );
+            controls = Controls.of( direction == 1, direction == 2, direction == 3, direction == 4, rnd.nextBoolean() );
+        }
+        return controls;
+    }
+}
@@ -0,0 +1,98 @@
+package de.codesourcery.quix;
+
+/**
+ * Exact intersection tests for segments given by integer coordinates.
+ *
+ * Segments are closed (touching endpoints count as intersection) and may be degenerate (a single point).
+ * All tests work on raw coordinates using integer arithmetic only, products are computed using
+ * longs so any <code>int</code> coordinates within a range of 2^30 work without overflow.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class SegmentIntersection
+{
+    private SegmentIntersection() {
+    }
+
+    /**
+     * Returns on which side of the directed line A-&gt;B a point C is.
+     *
+     * @return 1 if C is left of A-&gt;B (counter-clockwise when y points up), -1 if right of it, 0 if A, B and C are collinear
+     */
+    public static int orientation(int ax, int ay, int bx, int by, int cx, int cy) {
+        return Long.signum( cross( ax, ay, bx, by, cx, cy ) );
+    }
+
+    private static long cross(int ax, int ay, int bx, int by, int cx, int cy) {
+        return (long) ( bx - ax ) * ( cy - ay ) - (long) ( by - ay ) * ( cx - ax );
+    }
+
+    /**
+     * Checks whether segments A and B intersect.
+     */
+    public static boolean intersects(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1)
+    {
+        // bounding boxes need to overlap in any case
+        if ( ( Math.max( ax0, ax1 ) < Math.min( bx0, bx1 ) ) | ( Math.max( bx0, bx1 ) < Math.min( ax0, ax1 ) ) |
+             ( Math.max( ay0, ay1 ) < Math.min( by0, by1 ) ) | ( Math.max( by0, by1 ) < Math.min( ay0, ay1 ) ) )
+        {
+            return false;
+        }
+        final boolean aOrthogonal = ( ax0 == ax1 ) | ( ay0 == ay1 );
+        final boolean bOrthogonal = ( bx0 == bx1 ) | ( by0 == by1 );
+        if ( aOrthogonal )
+        {
+            if ( bOrthogonal ) {
+                return true; // axis-aligned segments are their own bounding boxes
+            }
+            return intersectsOrthogonal( ax0, ay0, ax1, ay1, bx0, by0, bx1, by1 );
+        }
+        if ( bOrthogonal ) {
+            return intersectsOrthogonal( bx0, by0, bx1, by1, ax0, ay0, ax1, ay1 );
+        }
+        return intersectsOverlapping( ax0, ay0, ax1, ay1, bx0, by0, bx1, by1 );
+    }
+
+    /**
+     * Checks whether a horizontal or vertical segment A and an arbitrary segment B intersect,
+     * <b>assuming their bounding boxes overlap</b>.
+     */
+    static boolean intersectsOrthogonal(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1)
+    {
+        final long dx = bx1 - bx0;
+        final long dy = by1 - by0;
+        if ( ax0 == ax1 )
+        {
+            if ( dx == 0 ) {
+                return true;
+            }
+            // B crosses x = ax0 (guaranteed by the bounding boxes) at y = by0 + (ax0 - bx0) * dy / dx,
+            // check that y is within A without dividing
+            final long sign = Long.signum( dx );
+            final long y = ( by0 * dx + ( ax0 - bx0 ) * dy ) * sign;
+            final long scale = dx * sign;
+            return y >= Math.min( ay0, ay1 ) * scale && y <= Math.max( ay0, ay1 ) * scale;
+        }
+        if ( dy == 0 ) {
+            return true;
+        }
+        final long sign = Long.signum( dy );
+        final long x = ( bx0 * dy + ( ay0 - by0 ) * dx ) * sign;
+        final long scale = dy * sign;
+        return x >= Math.min( ax0, ax1 ) * scale && x <= Math.max( ax0, ax1 ) * scale;
+    }
+
+    /**
+     * Checks whether two arbitrary segments intersect, <b>assuming their bounding boxes overlap</b>.
+     */
+    static boolean intersectsOverlapping(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1)
+    {
+        // the endpoints of each segment must not lie strictly on the same side of the other segment;
+        // collinear segments with overlapping bounding boxes always intersect
+        final int o1 = orientation( ax0, ay0, ax1, ay1, bx0, by0 );
+        final int o2 = orientation( ax0, ay0, ax1, ay1, bx1, by1 );
+        final int o3 = orientation( bx0, by0, bx1, by1, ax0, ay0 );
+        final int o4 = orientation( bx0, by0, bx1, by1, ax1, ay1 );
+        return ( o1 * o2 <= 0 ) & ( o3 * o4 <= 0 );
+    }
+}
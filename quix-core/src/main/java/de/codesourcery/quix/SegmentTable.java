@@ -0,0 +1,174 @@
+package de.codesourcery.quix;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays copy of the endpoints of a list of lines.
+ *
+ * Row <code>i</code> holds the coordinates of the i-th line that got added, so scanning all
+ * segments only touches four flat <code>int</code> arrays instead of following two
+ * node references per line.
+ *
+ * {@link #firstHit(int, int, int, int, int)} scans in blocks: a branch-free bounding box test over
+ * the whole block (simple enough for the JIT to vectorize) is followed by the exact
+ * {@link SegmentIntersection intersection test} for the few candidates.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class SegmentTable
+{
+    private static final int BLOCK_SIZE = 64;
+
+    private int[] x0 = new int[ 16 ];
+    private int[] y0 = new int[ 16 ];
+    private int[] x1 = new int[ 16 ];
+    private int[] y1 = new int[ 16 ];
+    private Line[] lines = new Line[ 16 ];
+    private int size;
+
+    private final Reference2IntOpenHashMap<Line> rows = new Reference2IntOpenHashMap<>();
+
+    // bounding box test results of the current block, 0 = overlaps
+    private final int[] misses = new int[ BLOCK_SIZE ];
+
+    public SegmentTable() {
+        rows.defaultReturnValue( -1 );
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the line stored in a given row.
+     */
+    public Line getLine(int row) {
+        return lines[row];
+    }
+
+    /**
+     * Returns the row of a line.
+     *
+     * @return row or -1 if the line has not been added
+     */
+    public int getRow(Line line) {
+        return rows.getInt( line );
+    }
+
+    public int getX0(int row) {
+        return x0[row];
+    }
+
+    public int getY0(int row) {
+        return y0[row];
+    }
+
+    public int getX1(int row) {
+        return x1[row];
+    }
+
+    public int getY1(int row) {
+        return y1[row];
+    }
+
+    public void add(Line line)
+    {
+        if ( size == x0.length )
+        {
+            final int newSize = size * 2;
+            x0 = Arrays.copyOf( x0, newSize );
+            y0 = Arrays.copyOf( y0, newSize );
+            x1 = Arrays.copyOf( x1, newSize );
+            y1 = Arrays.copyOf( y1, newSize );
+            lines = Arrays.copyOf( lines, newSize );
+        }
+        lines[size] = line;
+        rows.put( line, size );
+        set( size++, line );
+    }
+
+    /**
+     * Copies the current endpoints of a line, does nothing if the line has not been added.
+     *
+     * @param line
+     */
+    public void update(Line line)
+    {
+        final int row = rows.getInt( line );
+        if ( row != -1 ) {
+            set( row, line );
+        }
+    }
+
+    private void set(int row, Line line)
+    {
+        x0[row] = line.x0();
+        y0[row] = line.y0();
+        x1[row] = line.x1();
+        y1[row] = line.y1();
+    }
+
+    public void clear()
+    {
+        Arrays.fill( lines, 0, size, null );
+        rows.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the first row at or after a given one whose segment intersects a segment.
+     *
+     * @param from row to start at
+     * @return row or -1
+     */
+    public int firstHit(int qx0, int qy0, int qx1, int qy1, int from)
+    {
+        final int qMinX = Math.min( qx0, qx1 );
+        final int qMaxX = Math.max( qx0, qx1 );
+        final int qMinY = Math.min( qy0, qy1 );
+        final int qMaxY = Math.max( qy0, qy1 );
+
+        final int[] x0 = this.x0;
+        final int[] y0 = this.y0;
+        final int[] x1 = this.x1;
+        final int[] y1 = this.y1;
+        final int[] misses = this.misses;
+        for ( int start = Math.max( 0, from ) ; start < size ; start += BLOCK_SIZE )
+        {
+            final int len = Math.min( BLOCK_SIZE, size - start );
+            // sign bit is set if any of the differences is negative (= the boxes do not overlap),
+            // coordinates are assumed to stay far enough away from overflowing
+            for ( int i = 0 ; i < len ; i++ )
+            {
+                final int ax0 = x0[start + i];
+                final int ay0 = y0[start + i];
+                final int ax1 = x1[start + i];
+                final int ay1 = y1[start + i];
+                misses[i] = ( ( qMaxX - Math.min( ax0, ax1 ) ) | ( Math.max( ax0, ax1 ) - qMinX ) |
+                              ( qMaxY - Math.min( ay0, ay1 ) ) | ( Math.max( ay0, ay1 ) - qMinY ) ) >>> 31;
+            }
+            for ( int i = 0 ; i < len ; i++ )
+            {
+                if ( misses[i] == 0 )
+                {
+                    final int row = start + i;
+                    if ( SegmentIntersection.intersects( x0[row], y0[row], x1[row], y1[row], qx0, qy0, qx1, qy1 ) ) {
+                        return row;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first row whose segment intersects a given line.
+     *
+     * @return row or -1
+     */
+    public int firstHit(Line line) {
+        return firstHit( line.x0(), line.y0(), line.x1(), line.y1(), 0 );
+    }
+}
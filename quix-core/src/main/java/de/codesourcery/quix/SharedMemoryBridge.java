@@ -0,0 +1,249 @@
+package de.codesourcery.quix;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves a {@link VectorEnvironment} to another process through a memory-mapped file.
+ *
+ * The trainer writes actions (or reset requests) into the file and bumps a request sequence counter,
+ * the bridge steps all environments, with observations encoded straight into the mapped file, and
+ * answers by publishing the same value as response sequence. Counters are written with release and
+ * read with acquire semantics, so the plain data written before a counter update is visible to the
+ * other side once it sees the new counter value. Both sides spin briefly and then back off to
+ * parking while waiting.
+ *
+ * File layout (all values little-endian):
+ * <pre>
+ * 0    magic (int), {@link #VERSION} (int), environment count (int), observation size in bytes (int)
+ * 16   offset of environment blocks (int), offset of observations (int)
+ * 24   command (int, {@link #COMMAND_STEP} or {@link #COMMAND_RESET}), closed flag (int)
+ * 32   status of the last request (int, {@link #STATUS_OK} or {@link #STATUS_UNKNOWN_COMMAND}), written by the bridge
+ * 64   request sequence (long), written by the trainer
+ * 128  response sequence (long), written by the bridge
+ * 192  one {@link #ENV_BLOCK_SIZE} byte block per environment:
+ *        action (int), flags (int, {@link #FLAG_RESET}), seed (long) - written by the trainer
+ *        reward (float), done (int)                                 - written by the bridge
+ * then one observation per environment, see {@link ObservationEncoder}
+ * </pre>
+ *
+ * {@link #COMMAND_STEP} steps all environments, {@link #COMMAND_RESET} resets all
+ * environments whose block has {@link #FLAG_RESET} set, using the seed from the block.
+ * Unknown commands are answered with {@link #STATUS_UNKNOWN_COMMAND}. Either side may set the closed flag
+ * to shut down the bridge, the bridge also sets it when it stops serving because a request failed.
+ *
+ * Usage: <code>SharedMemoryBridge &lt;file&gt; [environments] [threads] [grid factor]</code>
+ * (a grid factor of 0 uses the {@link StateVectorEncoder}).
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see SharedMemoryClient
+ */
+public class SharedMemoryBridge implements AutoCloseable
+{
+    static final int MAGIC = 0x5158534d; // 'QXSM'
+    static final int VERSION = 2;
+
+    public static final int COMMAND_STEP = 1;
+    public static final int COMMAND_RESET = 2;
+
+    public static final int FLAG_RESET = 1;
+
+    public static final int STATUS_OK = 0;
+    public static final int STATUS_UNKNOWN_COMMAND = 1;
+
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_ENV_COUNT = 8;
+    static final int OFFSET_OBSERVATION_SIZE = 12;
+    static final int OFFSET_ENV_BLOCKS = 16;
+    static final int OFFSET_OBSERVATIONS = 20;
+    static final int OFFSET_COMMAND = 24;
+    static final int OFFSET_CLOSED = 28;
+    static final int OFFSET_STATUS = 32;
+    // counters live on separate cache lines
+    static final int OFFSET_REQUEST_SEQUENCE = 64;
+    static final int OFFSET_RESPONSE_SEQUENCE = 128;
+    static final int HEADER_SIZE = 192;
+
+    static final int ENV_BLOCK_SIZE = 32;
+    static final int ENV_ACTION = 0;
+    static final int ENV_FLAGS = 4;
+    static final int ENV_SEED = 8;
+    static final int ENV_REWARD = 16;
+    static final int ENV_DONE = 20;
+
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle( long[].class, ByteOrder.LITTLE_ENDIAN );
+    static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle( int[].class, ByteOrder.LITTLE_ENDIAN );
+
+    private static final int SPIN_ITERATIONS = 100;
+    private static final int YIELD_ITERATIONS = 200;
+    private static final long PARK_NANOS = 20_000;
+
+    private final VectorEnvironment environment;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer observations;
+
+    private final int[] actions;
+    private final float[] rewards;
+    private final boolean[] dones;
+
+    /**
+     * Create bridge, creating (or overwriting) the file.
+     *
+     * @param file file to map
+     * @param environment environments to serve
+     */
+    public SharedMemoryBridge(Path file, VectorEnvironment environment) throws IOException
+    {
+        this.environment = environment;
+        final int count = environment.getCount();
+        final int observationSize = environment.getObservationSize();
+        final int observationsOffset = align( HEADER_SIZE + count * ENV_BLOCK_SIZE );
+        final long size = observationsOffset + (long) count * observationSize;
+
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) )
+        {
+            buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, size );
+        }
+        buffer.order( ByteOrder.LITTLE_ENDIAN );
+        observations = buffer.duplicate().position( observationsOffset ).slice().order( ByteOrder.LITTLE_ENDIAN );
+
+        actions = new int[ count ];
+        rewards = new float[ count ];
+        dones = new boolean[ count ];
+
+        buffer.putInt( OFFSET_VERSION, VERSION );
+        buffer.putInt( OFFSET_ENV_COUNT, count );
+        buffer.putInt( OFFSET_OBSERVATION_SIZE, observationSize );
+        buffer.putInt( OFFSET_ENV_BLOCKS, HEADER_SIZE );
+        buffer.putInt( OFFSET_OBSERVATIONS, observationsOffset );
+        // publish header last, clients wait for the magic
+        INTS.setRelease( buffer, OFFSET_MAGIC, MAGIC );
+    }
+
+    private static int align(int offset) {
+        return ( offset + 63 ) & ~63;
+    }
+
+    /**
+     * Serves requests until the bridge gets closed by either side.
+     *
+     * If stepping/resetting the environments fails, the bridge gets closed
+     * (so the client stops waiting) and the exception is rethrown.
+     */
+    public void run()
+    {
+        try
+        {
+            long handled = (long) LONGS.getAcquire( buffer, OFFSET_RESPONSE_SEQUENCE );
+            int idle = 0;
+            while ( ! isClosed( buffer ) )
+            {
+                final long request = (long) LONGS.getAcquire( buffer, OFFSET_REQUEST_SEQUENCE );
+                if ( request == handled )
+                {
+                    backOff( idle++ );
+                    continue;
+                }
+                idle = 0;
+                buffer.putInt( OFFSET_STATUS, handle( buffer.getInt( OFFSET_COMMAND ) ) );
+                handled = request;
+                LONGS.setRelease( buffer, OFFSET_RESPONSE_SEQUENCE, request );
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Executes a command.
+     *
+     * @return status to report to the client
+     */
+    private int handle(int command)
+    {
+        final int count = actions.length;
+        switch( command )
+        {
+            case COMMAND_STEP:
+                for ( int i = 0, ptr = HEADER_SIZE ; i < count ; i++, ptr += ENV_BLOCK_SIZE ) {
+                    actions[i] = buffer.getInt( ptr + ENV_ACTION );
+                }
+                environment.step( actions, rewards, dones, observations );
+                for ( int i = 0, ptr = HEADER_SIZE ; i < count ; i++, ptr += ENV_BLOCK_SIZE )
+                {
+                    buffer.putFloat( ptr + ENV_REWARD, rewards[i] );
+                    buffer.putInt( ptr + ENV_DONE, dones[i] ? 1 : 0 );
+                }
+                break;
+            case COMMAND_RESET:
+                for ( int i = 0, ptr = HEADER_SIZE ; i < count ; i++, ptr += ENV_BLOCK_SIZE )
+                {
+                    if ( ( buffer.getInt( ptr + ENV_FLAGS ) & FLAG_RESET ) != 0 )
+                    {
+                        environment.reset( i, buffer.getLong( ptr + ENV_SEED ), observations );
+                        buffer.putFloat( ptr + ENV_REWARD, 0 );
+                        buffer.putInt( ptr + ENV_DONE, 0 );
+                    }
+                }
+                break;
+            default:
+                return STATUS_UNKNOWN_COMMAND;
+        }
+        return STATUS_OK;
+    }
+
+    static boolean isClosed(ByteBuffer buffer) {
+        return (int) INTS.getAcquire( buffer, OFFSET_CLOSED ) != 0;
+    }
+
+    static void backOff(int iteration)
+    {
+        if ( iteration < SPIN_ITERATIONS ) {
+            Thread.onSpinWait();
+        } else if ( iteration < YIELD_ITERATIONS ) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos( PARK_NANOS );
+        }
+    }
+
+    /**
+     * Makes {@link #run()} return and tells the client that the bridge has shut down.
+     */
+    @Override
+    public void close()
+    {
+        INTS.setRelease( buffer, OFFSET_CLOSED, 1 );
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if ( args.length < 1 ) {
+            throw new IllegalArgumentException( "Usage: SharedMemoryBridge <file> [environments] [threads] [grid factor]" );
+        }
+        final int count = args.length > 1 ? Integer.parseInt( args[1] ) : 16;
+        final int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        final int gridFactor = args.length > 3 ? Integer.parseInt( args[3] ) : 0;
+
+        try ( VectorEnvironment environment = new VectorEnvironment( count, threads,
+            () -> gridFactor == 0 ? new StateVectorEncoder() : new OccupancyGridEncoder( gridFactor ) );
+              SharedMemoryBridge bridge = new SharedMemoryBridge( Paths.get( args[0] ), environment ) )
+        {
+            System.out.println( "Serving " + count + " environments through " + args[0] );
+            bridge.run();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package de.codesourcery.quix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static de.codesourcery.quix.SharedMemoryBridge.*;
+
+/**
+ * Trainer side of a {@link SharedMemoryBridge}.
+ *
+ * Mostly serves as reference implementation of the protocol (and for testing), trainers
+ * written in other languages map the file and follow the same steps.
+ *
+ * Not thread-safe.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class SharedMemoryClient implements AutoCloseable
+{
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer observations;
+    private final int count;
+    private final int observationSize;
+
+    private long sequence;
+
+    /**
+     * Connect to a bridge.
+     *
+     * @param file file the bridge has created
+     * @throws IOException if the file can't be mapped or has not been initialized by a bridge
+     */
+    public SharedMemoryClient(Path file) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ, StandardOpenOption.WRITE ) ) {
+            buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, channel.size() );
+        }
+        buffer.order( ByteOrder.LITTLE_ENDIAN );
+        if ( buffer.capacity() < HEADER_SIZE || (int) INTS.getAcquire( buffer, OFFSET_MAGIC ) != MAGIC ) {
+            throw new IOException( "File has not been initialized by a bridge" );
+        }
+        if ( buffer.getInt( OFFSET_VERSION ) != VERSION ) {
+            throw new IOException( "Unsupported version " + buffer.getInt( OFFSET_VERSION ) );
+        }
+        count = buffer.getInt( OFFSET_ENV_COUNT );
+        observationSize = buffer.getInt( OFFSET_OBSERVATION_SIZE );
+        observations = buffer.duplicate().position( buffer.getInt( OFFSET_OBSERVATIONS ) ).slice().order( ByteOrder.LITTLE_ENDIAN );
+        sequence = (long) LONGS.getAcquire( buffer, OFFSET_RESPONSE_SEQUENCE );
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getObservationSize() {
+        return observationSize;
+    }
+
+    /**
+     * Returns the observations of all environments, the observation of environment
+     * <code>i</code> starts at byte offset <code>i * getObservationSize()</code>.
+     *
+     * The buffer is a view of the shared file, its contents change with every request.
+     */
+    public ByteBuffer getObservations() {
+        return observations;
+    }
+
+    public void setAction(int env, int action) {
+        buffer.putInt( block( env ) + ENV_ACTION, action );
+    }
+
+    public float getReward(int env) {
+        return buffer.getFloat( block( env ) + ENV_REWARD );
+    }
+
+    public boolean isDone(int env) {
+        return buffer.getInt( block( env ) + ENV_DONE ) != 0;
+    }
+
+    /**
+     * Marks an environment to be reset by the next {@link #reset()}.
+     *
+     * @param env environment
+     * @param seed random seed to reset the environment with
+     */
+    public void requestReset(int env, long seed)
+    {
+        final int ptr = block( env );
+        buffer.putInt( ptr + ENV_FLAGS, FLAG_RESET );
+        buffer.putLong( ptr + ENV_SEED, seed );
+    }
+
+    /**
+     * Resets all environments marked using {@link #requestReset(int, long)} and waits for the result.
+     */
+    public void reset()
+    {
+        request( COMMAND_RESET );
+        for ( int i = 0 ; i < count ; i++ ) {
+            buffer.putInt( block( i ) + ENV_FLAGS, 0 );
+        }
+    }
+
+    /**
+     * Steps all environments using the actions set by {@link #setAction(int, int)} and waits for the result.
+     */
+    public void step() {
+        request( COMMAND_STEP );
+    }
+
+    // package-private for testing
+    void request(int command)
+    {
+        buffer.putInt( OFFSET_COMMAND, command );
+        final long expected = ++sequence;
+        LONGS.setRelease( buffer, OFFSET_REQUEST_SEQUENCE, expected );
+
+        int idle = 0;
+        while ( (long) LONGS.getAcquire( buffer, OFFSET_RESPONSE_SEQUENCE ) != expected )
+        {
+            if ( isClosed( buffer ) ) {
+                throw new IllegalStateException( "Bridge has been closed" );
+            }
+            backOff( idle++ );
+        }
+        final int status = buffer.getInt( OFFSET_STATUS );
+        if ( status != STATUS_OK ) {
+            throw new IllegalStateException( "Bridge rejected command " + command + " with status " + status );
+        }
+    }
+
+    private int block(int env)
+    {
+        if ( env < 0 || env >= count ) {
+            throw new IndexOutOfBoundsException( "Environment " + env + " out of range [0," + count + ")" );
+        }
+        return HEADER_SIZE + env * ENV_BLOCK_SIZE;
+    }
+
+    /**
+     * Shuts down the bridge.
+     */
+    @Override
+    public void close() {
+        INTS.setRelease( buffer, OFFSET_CLOSED, 1 );
+    }
+}
@@ -0,0 +1,78 @@
+package de.codesourcery.quix;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes a small vector of normalized features as 32-bit floats.
+ *
+ * Layout (each entry is a float, coordinates are divided by the playfield size):
+ * <pre>
+ * 0     player x
+ * 1     player y
+ * 2     1 if the player is drawing a trail, 0 otherwise
+ * 3     claimed area (fraction of the playfield)
+ * 4-7   first Quix line (x0,y0,x1,y1)
+ * 8-    per enemy slot: 1 if present (0 otherwise), x, y ({@link #MAX_ENEMIES} slots)
+ * </pre>
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class StateVectorEncoder implements ObservationEncoder
+{
+    public static final int MAX_ENEMIES = 4;
+
+    private static final int ENEMY_OFFSET = 8;
+    private static final int FLOATS = ENEMY_OFFSET + MAX_ENEMIES * 3;
+
+    private static final float SCALE_X = 1f / GameState.PLAYFIELD_WIDTH;
+    private static final float SCALE_Y = 1f / GameState.PLAYFIELD_HEIGHT;
+
+    @Override
+    public int size() {
+        return FLOATS * Float.BYTES;
+    }
+
+    @Override
+    public void encode(GameState state, ByteBuffer dest, int offset)
+    {
+        dest.putFloat( offset, state.player.x * SCALE_X );
+        dest.putFloat( offset + 4, state.player.y * SCALE_Y );
+        dest.putFloat( offset + 8, state.isDrawingPoly() ? 1 : 0 );
+        dest.putFloat( offset + 12, state.getClaimedArea().getClaimedPercentage() / 100f );
+
+        final List<QuixLine> quixLines = state.getQuix().getLines();
+        if ( quixLines.isEmpty() )
+        {
+            for ( int i = 4 ; i < 8 ; i++ ) {
+                dest.putFloat( offset + i * 4, 0 );
+            }
+        }
+        else
+        {
+            final QuixLine line = quixLines.get( 0 );
+            dest.putFloat( offset + 16, line.x0() * SCALE_X );
+            dest.putFloat( offset + 20, line.y0() * SCALE_Y );
+            dest.putFloat( offset + 24, line.x1() * SCALE_X );
+            dest.putFloat( offset + 28, line.y1() * SCALE_Y );
+        }
+
+        final List<Enemy> enemies = state.getEnemies();
+        for ( int i = 0, ptr = offset + ENEMY_OFFSET * 4 ; i < MAX_ENEMIES ; i++, ptr += 12 )
+        {
+            if ( i < enemies.size() )
+            {
+                final Enemy enemy = enemies.get( i );
+                dest.putFloat( ptr, 1 );
+                dest.putFloat( ptr + 4, enemy.x * SCALE_X );
+                dest.putFloat( ptr + 8, enemy.y * SCALE_Y );
+            }
+            else
+            {
+                dest.putFloat( ptr, 0 );
+                dest.putFloat( ptr + 4, 0 );
+                dest.putFloat( ptr + 8, 0 );
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package de.codesourcery.quix;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Low-overhead event tracing.
+ *
+ * Tracing is disabled unless the JVM is started with <code>-Dquix.trace=true</code>,
+ * the minimum level to record defaults to {@link Level#INFO} and can be changed using
+ * <code>-Dquix.trace.level=DEBUG|INFO|WARN</code>.
+ *
+ * Call sites must be guarded by {@link #ENABLED} so that no arguments get evaluated when tracing
+ * is off. As both settings are read only once into static final fields, the JIT removes disabled
+ * call sites completely.
+ *
+ * Events are recorded into a preallocated {@link TraceBuffer} and printed to {@link System#out}
+ * by a background thread, so recording never blocks the caller. Events get dropped if the
+ * background thread can't keep up.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class Trace
+{
+    public enum Level
+    {
+        DEBUG,
+        INFO,
+        WARN
+    }
+
+    public static final boolean ENABLED = Boolean.getBoolean( "quix.trace" );
+
+    public static final Level LEVEL = parseLevel( System.getProperty( "quix.trace.level" ) );
+
+    // number of events the trace buffer can hold, must be a power of two
+    private static final int CAPACITY = 64 * 1024;
+
+    private Trace() {
+    }
+
+    /**
+     * Parses a trace level, falling back to {@link Level#INFO} (with a warning on {@link System#err})
+     * if the value is invalid so that a mistyped system property does not break class initialization.
+     *
+     * @param value level name (case-insensitive), may be <code>null</code>
+     */
+    static Level parseLevel(String value)
+    {
+        if ( value == null ) {
+            return Level.INFO;
+        }
+        for ( Level level : Level.values() )
+        {
+            if ( level.name().equalsIgnoreCase( value.trim() ) ) {
+                return level;
+            }
+        }
+        System.err.println( "Invalid trace level '" + value + "', using " + Level.INFO );
+        return Level.INFO;
+    }
+
+    // lazily initialized so that the buffer and the draining thread only exist when tracing is used
+    private static final class Holder
+    {
+        static final TraceBuffer BUFFER = new TraceBuffer( CAPACITY );
+
+        static final Drainer DRAINER = new Drainer( BUFFER, System.out );
+
+        static {
+            DRAINER.start();
+            Runtime.getRuntime().addShutdownHook( new Thread( DRAINER::terminate, "quix-trace-shutdown" ) );
+        }
+    }
+
+    private static final class Drainer extends Thread
+    {
+        private final TraceBuffer buffer;
+        private final PrintStream out;
+        private final StringBuilder line = new StringBuilder();
+        private volatile boolean running = true;
+        private long reportedDrops;
+
+        Drainer(TraceBuffer buffer, PrintStream out)
+        {
+            super( "quix-trace" );
+            setDaemon( true );
+            this.buffer = buffer;
+            this.out = out;
+        }
+
+        @Override
+        public void run()
+        {
+            while ( running )
+            {
+                if ( drain() == 0 ) {
+                    LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 1 ) );
+                }
+            }
+            drain();
+            out.flush();
+        }
+
+        private int drain()
+        {
+            final int count = buffer.drain( (event, timestamp, args, offset) ->
+            {
+                line.setLength( 0 );
+                line.append( timestamp ).append( ' ' ).append( event.level ).append( ' ' ).append( event ).append( ": " );
+                event.format( args, offset, line );
+                out.println( line );
+            } );
+            final long drops = buffer.getDroppedCount();
+            if ( drops != reportedDrops )
+            {
+                out.println( "Trace buffer full, dropped " + ( drops - reportedDrops ) + " events" );
+                reportedDrops = drops;
+            }
+            return count;
+        }
+
+        void terminate()
+        {
+            running = false;
+            try {
+                join( 1000 );
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return ENABLED && level.compareTo( LEVEL ) >= 0;
+    }
+
+    public static void record(TraceEvent event) {
+        record( event, 0, 0, 0, 0, 0, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0) {
+        record( event, a0, 0, 0, 0, 0, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1) {
+        record( event, a0, a1, 0, 0, 0, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1, int a2) {
+        record( event, a0, a1, a2, 0, 0, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1, int a2, int a3) {
+        record( event, a0, a1, a2, a3, 0, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1, int a2, int a3, int a4) {
+        record( event, a0, a1, a2, a3, a4, 0, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1, int a2, int a3, int a4, int a5) {
+        record( event, a0, a1, a2, a3, a4, a5, 0, 0 );
+    }
+
+    public static void record(TraceEvent event, int a0, int a1, int a2, int a3, int a4, int a5, int a6, int a7)
+    {
+        if ( isEnabled( event.level ) ) {
+            Holder.BUFFER.record( event, System.nanoTime(), a0, a1, a2, a3, a4, a5, a6, a7 );
+        }
+    }
+}
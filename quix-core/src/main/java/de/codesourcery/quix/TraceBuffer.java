@@ -0,0 +1,150 @@
+package de.codesourcery.quix;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, preallocated ring buffer of trace events.
+ *
+ * Any number of threads may record events concurrently, a single thread
+ * drains them. Recording never blocks or allocates, events are dropped
+ * (and counted) when the buffer is full.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ * @see Trace
+ */
+public final class TraceBuffer
+{
+    public static final int MAX_ARGS = 8;
+
+    @FunctionalInterface
+    public interface Visitor
+    {
+        /**
+         * Invoked for each drained event.
+         *
+         * @param event the event
+         * @param timestamp value of {@link System#nanoTime()} when the event was recorded
+         * @param args array holding the event arguments, only valid during this call
+         * @param offset offset of the first argument in <code>args</code>
+         */
+        void visit(TraceEvent event, long timestamp, int[] args, int offset);
+    }
+
+    private final int mask;
+
+    // slot i is free for writing position p when sequences[i] == p
+    // and readable for position p when sequences[i] == p+1
+    private final AtomicLongArray sequences;
+    private final TraceEvent[] events;
+    private final long[] timestamps;
+    private final int[] args;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // only accessed by the draining thread
+    private long tail;
+
+    /**
+     * Create buffer.
+     *
+     * @param capacity number of events the buffer can hold, must be a power of two
+     */
+    public TraceBuffer(int capacity)
+    {
+        if ( capacity < 2 || Integer.bitCount( capacity ) != 1 ) {
+            throw new IllegalArgumentException( "Capacity must be a power of two, was " + capacity );
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray( capacity );
+        for ( int i = 0 ; i < capacity ; i++ ) {
+            sequences.set( i, i );
+        }
+        this.events = new TraceEvent[capacity];
+        this.timestamps = new long[capacity];
+        this.args = new int[capacity * MAX_ARGS];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Records an event.
+     *
+     * @return <code>false</code> if the buffer was full and the event got dropped
+     */
+    public boolean record(TraceEvent event, long timestamp, int a0, int a1, int a2, int a3, int a4, int a5, int a6, int a7)
+    {
+        long pos = head.get();
+        while ( true )
+        {
+            final long delta = sequences.getAcquire( (int) pos & mask ) - pos;
+            if ( delta == 0 )
+            {
+                if ( head.compareAndSet( pos, pos + 1 ) ) {
+                    break;
+                }
+                pos = head.get();
+            }
+            else if ( delta < 0 )
+            {
+                // slot still holds an event that has not been drained yet
+                dropped.incrementAndGet();
+                return false;
+            }
+            else
+            {
+                // another thread claimed this position
+                pos = head.get();
+            }
+        }
+
+        final int slot = (int) pos & mask;
+        events[slot] = event;
+        timestamps[slot] = timestamp;
+        final int offset = slot * MAX_ARGS;
+        args[offset]     = a0;
+        args[offset + 1] = a1;
+        args[offset + 2] = a2;
+        args[offset + 3] = a3;
+        args[offset + 4] = a4;
+        args[offset + 5] = a5;
+        args[offset + 6] = a6;
+        args[offset + 7] = a7;
+        sequences.setRelease( slot, pos + 1 );
+        return true;
+    }
+
+    /**
+     * Drains all events that have been completely recorded so far.
+     *
+     * Must only ever be called by one thread at a time.
+     *
+     * @param visitor invoked for each event in recording order
+     * @return number of drained events
+     */
+    public int drain(Visitor visitor)
+    {
+        int count = 0;
+        while ( true )
+        {
+            final int slot = (int) tail & mask;
+            if ( sequences.getAcquire( slot ) != tail + 1 ) {
+                return count;
+            }
+            visitor.visit( events[slot], timestamps[slot], args, slot * MAX_ARGS );
+            sequences.setRelease( slot, tail + mask + 1 );
+            tail++;
+            count++;
+        }
+    }
+
+    /**
+     * Returns the number of events that got dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
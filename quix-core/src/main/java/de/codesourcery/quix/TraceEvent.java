@@ -0,0 +1,84 @@
+package de.codesourcery.quix;
+
+/**
+ * Events that can be recorded using {@link Trace}.
+ *
+ * Messages use <code>{}</code> placeholders for plain integer arguments and
+ * <code>{dir}</code>, <code>{bool}</code> and <code>{float}</code> for arguments
+ * that were recorded as {@link Direction#ordinal()}, <code>0/1</code>
+ * or {@link Float#floatToRawIntBits(float)} respectively.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public enum TraceEvent
+{
+    ENTITY_LINE_SWITCH(Trace.Level.DEBUG, "Entity @ ({},{}) switching to line ({},{}) -> ({},{})"),
+    ENTITY_NOT_ON_LINE(Trace.Level.WARN, "Entity @ ({},{}) not on current line ({},{}) -> ({},{})"),
+    ENEMY_AT_NODE(Trace.Level.DEBUG, "Enemy #{} @ ({},{}) reached a node, picking new direction"),
+    ENEMY_CONTINUE(Trace.Level.DEBUG, "Enemy #{} continues {dir} along ({},{}) -> ({},{})"),
+    ENEMY_BLOCKED(Trace.Level.DEBUG, "Enemy #{} can not continue {dir}, got {} exits and picked #{}"),
+    ENEMY_TURN(Trace.Level.DEBUG, "Enemy #{} picked new direction {dir}, new line ({},{}) -> ({},{})"),
+    LINE_SPLIT(Trace.Level.DEBUG, "Splitting line ({},{}) -> ({},{}) at ({},{})"),
+    TO_POLYGON(Trace.Level.DEBUG, "Converting {} lines to a polygon"),
+    TRAIL_TOUCHED_LINE(Trace.Level.DEBUG, "Trail touched foreign line ({},{}) -> ({},{})"),
+    PATH_SEARCH(Trace.Level.INFO, "Searching path from #{} ({},{}) to #{} ({},{})"),
+    PATH_FOUND(Trace.Level.INFO, "Found path with {} nodes"),
+    MESH_NEIGHBOURS(Trace.Level.DEBUG, "Getting neighbours of #{} ({},{})"),
+    MESH_NEIGHBOUR(Trace.Level.DEBUG, "Adding {dir} neighbour #{} ({},{})"),
+    NODE_ANGLE(Trace.Level.DEBUG, "Angle {float} for ({},{}) -> ({},{})"),
+    POLY_TRIANGULATE(Trace.Level.DEBUG, "Triangulating polygon #{} with {} vertices"),
+    POLY_EAR_CHECK(Trace.Level.DEBUG, "Checking diagonal ({},{}) -> ({},{})"),
+    POLY_EAR_INTERSECTS(Trace.Level.DEBUG, "Diagonal intersects edge ({},{}) -> ({},{})"),
+    POLY_EAR_OUTSIDE(Trace.Level.DEBUG, "Diagonal endpoint ({},{}) is outside of polygon"),
+    POLY_OUTSIDE_BOUNDING_BOX(Trace.Level.DEBUG, "({},{}) is outside of bounding box ({},{}) {}x{}"),
+    POLY_RAY_CROSSINGS(Trace.Level.DEBUG, "Ray to ({},{}) crosses {} edges"),
+    POLY_CONTAINS(Trace.Level.DEBUG, "Polygon #{} contains ({},{}): {bool}"),
+    INPUT_DROPPED(Trace.Level.WARN, "Input queue full, dropped controls {} (pressed: {bool})"),
+    FRAME_STATS(Trace.Level.INFO, "Frame interval {float} ms avg, {float} ms p99, {float} ms max, render time {float} ms avg");
+
+    public final Trace.Level level;
+    private final String message;
+
+    TraceEvent(Trace.Level level, String message)
+    {
+        this.level = level;
+        this.message = message;
+    }
+
+    /**
+     * Appends the message of this event with all placeholders replaced.
+     *
+     * @param args event arguments
+     * @param offset offset of first argument
+     * @param out buffer to append to
+     */
+    public void format(int[] args, int offset, StringBuilder out)
+    {
+        int argIdx = offset;
+        for ( int i = 0, len = message.length() ; i < len ; i++ )
+        {
+            final char c = message.charAt( i );
+            final int end;
+            if ( c != '{' || ( end = message.indexOf( '}', i ) ) == -1 ) {
+                out.append( c );
+                continue;
+            }
+            final int value = args[argIdx++];
+            switch( message.substring( i + 1, end ) )
+            {
+                case "dir":
+                    out.append( Direction.values()[value] );
+                    break;
+                case "bool":
+                    out.append( value != 0 );
+                    break;
+                case "float":
+                    out.append( Float.intBitsToFloat( value ) );
+                    break;
+                default:
+                    out.append( value );
+            }
+            i = end;
+        }
+    }
+}
@@ -55,7 +55,7 @@ public class Vec2
     public Vec2 norm() {
         final float len2 = len2();
         if ( len2 == 0 ) {
-            return new Vec2(x,y);
+            return this;
         }
         final float len = (float) Math.sqrt( len2 );
         this.x /= len;
@@ -87,6 +87,13 @@ public class Vec2
         return this;
     }
 
+    public Vec2 set(float x, float y)
+    {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
     public Vec2 set(int x, int y)
     {
         this.x = x;
@@ -0,0 +1,240 @@
+package de.codesourcery.quix;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Steps a fixed number of {@link GameEnvironment}s at once, spreading them across worker threads.
+ *
+ * Environments are split into one contiguous chunk per thread. The calling thread steps the first
+ * chunk itself while dedicated worker threads step the remaining ones, batches are handed over using
+ * a volatile generation counter and {@link LockSupport} so stepping does not allocate.
+ *
+ * Observations of all environments go into a single buffer, the observation of environment
+ * <code>i</code> starts at byte offset <code>i * getObservationSize()</code>.
+ *
+ * Must only be used by a single thread at a time.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class VectorEnvironment implements AutoCloseable
+{
+    private final GameEnvironment[] envs;
+    private final int observationSize;
+
+    // chunk i covers environments [chunkStart[i],chunkStart[i+1])
+    private final int[] chunkStart;
+    private final Thread[] workers;
+
+    // current batch, published to the workers by incrementing 'generation'
+    private int[] actions;
+    private float[] rewards;
+    private boolean[] dones;
+    private ByteBuffer observations;
+
+    private volatile long generation;
+    private volatile boolean running = true;
+    private volatile Thread caller;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile Throwable failure;
+
+    /**
+     * Create environments.
+     *
+     * @param count number of environments
+     * @param threads number of threads to use (including the calling thread)
+     * @param encoders creates the observation encoder for each environment
+     */
+    public VectorEnvironment(int count, int threads, Supplier<ObservationEncoder> encoders)
+    {
+        if ( count <= 0 ) {
+            throw new IllegalArgumentException( "Environment count must be > 0" );
+        }
+        if ( threads <= 0 ) {
+            throw new IllegalArgumentException( "Thread count must be > 0" );
+        }
+        envs = new GameEnvironment[ count ];
+        for ( int i = 0 ; i < count ; i++ ) {
+            envs[i] = new GameEnvironment( encoders.get() );
+        }
+        observationSize = envs[0].getObservationSize();
+
+        final int chunks = Math.min( count, threads );
+        chunkStart = new int[ chunks + 1 ];
+        for ( int i = 0 ; i <= chunks ; i++ ) {
+            chunkStart[i] = (int) ( (long) count * i / chunks );
+        }
+        workers = new Thread[ chunks - 1 ];
+        for ( int i = 0 ; i < workers.length ; i++ )
+        {
+            final int chunk = i + 1;
+            workers[i] = new Thread( () -> work( chunk ), "quix-env-" + chunk );
+            workers[i].setDaemon( true );
+            workers[i].start();
+        }
+    }
+
+    public int getCount() {
+        return envs.length;
+    }
+
+    /**
+     * Returns the size of a single environment's observation in bytes.
+     */
+    public int getObservationSize() {
+        return observationSize;
+    }
+
+    public GameEnvironment getEnvironment(int index) {
+        return envs[index];
+    }
+
+    /**
+     * Resets all environments, environment <code>i</code> uses seed <code>seed+i</code>.
+     *
+     * @param seed seed of the first environment
+     * @param observations buffer to write the initial observations to
+     */
+    public void reset(long seed, ByteBuffer observations)
+    {
+        checkCapacity( observations );
+        for ( int i = 0 ; i < envs.length ; i++ ) {
+            envs[i].reset( seed + i, observations, i * observationSize );
+        }
+    }
+
+    /**
+     * Resets a single environment (usually one that is {@link GameEnvironment#isDone() done}).
+     *
+     * @param index environment to reset
+     * @param seed random seed
+     * @param observations buffer to write the initial observation to
+     */
+    public void reset(int index, long seed, ByteBuffer observations)
+    {
+        checkCapacity( observations );
+        envs[index].reset( seed, observations, index * observationSize );
+    }
+
+    /**
+     * Steps all environments.
+     *
+     * @param actions action for each environment
+     * @param rewards receives the reward of each environment
+     * @param dones receives whether each environment's game is over
+     * @param observations receives the observations of all environments
+     */
+    public void step(int[] actions, float[] rewards, boolean[] dones, ByteBuffer observations)
+    {
+        if ( actions.length < envs.length || rewards.length < envs.length || dones.length < envs.length ) {
+            throw new IllegalArgumentException( "Arrays need to hold at least " + envs.length + " elements" );
+        }
+        checkCapacity( observations );
+        if ( ! running ) {
+            throw new IllegalStateException( "Already closed" );
+        }
+
+        this.actions = actions;
+        this.rewards = rewards;
+        this.dones = dones;
+        this.observations = observations;
+        this.caller = Thread.currentThread();
+        pending.set( workers.length );
+        generation++;
+        for ( Thread worker : workers ) {
+            LockSupport.unpark( worker );
+        }
+
+        try
+        {
+            step( 0 );
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+        }
+
+        // always wait for the workers, they are still writing to the caller's arrays/buffer
+        // and must not see the next batch's 'pending' count before they are done
+        while ( pending.get() != 0 ) {
+            LockSupport.park( this );
+        }
+        final Throwable t = failure;
+        if ( t != null )
+        {
+            failure = null;
+            throw new IllegalStateException( "Stepping environments failed", t );
+        }
+    }
+
+    private void step(int chunk)
+    {
+        for ( int i = chunkStart[chunk], end = chunkStart[chunk + 1] ; i < end ; i++ )
+        {
+            final GameEnvironment env = envs[i];
+            rewards[i] = env.step( actions[i], observations, i * observationSize );
+            dones[i] = env.isDone();
+        }
+    }
+
+    private void work(int chunk)
+    {
+        long seen = 0;
+        while ( true )
+        {
+            long current;
+            while ( ( current = generation ) == seen && running ) {
+                LockSupport.park( this );
+            }
+            if ( ! running ) {
+                return;
+            }
+            seen = current;
+            try
+            {
+                step( chunk );
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+            if ( pending.decrementAndGet() == 0 ) {
+                LockSupport.unpark( caller );
+            }
+        }
+    }
+
+    private void checkCapacity(ByteBuffer observations)
+    {
+        if ( observations.capacity() < envs.length * observationSize ) {
+            throw new IllegalArgumentException( "Observation buffer needs to hold at least " + envs.length * observationSize + " bytes" );
+        }
+    }
+
+    /**
+     * Stops all worker threads and waits for them to terminate.
+     *
+     * If the calling thread gets interrupted while waiting, the remaining workers are left
+     * to terminate on their own and the thread's interrupt flag is set again.
+     */
+    @Override
+    public void close()
+    {
+        running = false;
+        for ( Thread worker : workers ) {
+            LockSupport.unpark( worker );
+        }
+        try
+        {
+            for ( Thread worker : workers ) {
+                worker.join();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AStarTest
+{
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 200;
+
+    // 4-connected grid with a wall at x = 100 that has a gap at the bottom
+    private final NavMesh gridMesh = new NavMesh()
+    {
+        @Override
+        public Vec2 getCoordinates(int nodeId)
+        {
+            return new Vec2( nodeId % WIDTH, nodeId / WIDTH );
+        }
+
+        @Override
+        public int calcH(int nodeStart, int nodeEnd)
+        {
+            return Math.abs( nodeStart % WIDTH - nodeEnd % WIDTH ) + Math.abs( nodeStart / WIDTH - nodeEnd / WIDTH );
+        }
+
+        @Override
+        public int calcG(int nodeA, int nodeB)
+        {
+            return calcH( nodeA, nodeB );
+        }
+
+        @Override
+        public int getNeighbours(int node, NodeMarkers markers, int[] result)
+        {
+            final int x = node % WIDTH;
+            final int y = node / WIDTH;
+            int count = 0;
+            count = add( x - 1, y, markers, result, count );
+            count = add( x + 1, y, markers, result, count );
+            count = add( x, y - 1, markers, result, count );
+            count = add( x, y + 1, markers, result, count );
+            return count;
+        }
+
+        private int add(int x,int y,NodeMarkers markers, int[] result,int count)
+        {
+            if ( x < 0 || y < 0 || x >= WIDTH || y >= HEIGHT || ( x == 100 && y < HEIGHT - 10 ) ) {
+                return count;
+            }
+            final int id = y * WIDTH + x;
+            if ( ! markers.isClosed( id ) ) {
+                result[count++] = id;
+            }
+            return count;
+        }
+    };
+
+    @Test
+    public void findsShortestPathOnLargeMesh()
+    {
+        final AStar astar = new AStar();
+        final int start = 0;
+        final int end = (HEIGHT - 1) * WIDTH + 149;
+
+        // run twice to make sure internal state gets reset properly
+        for ( int i = 0 ; i < 2 ; i++ )
+        {
+            final List<Integer> path = astar.findPath( start, end, gridMesh, null );
+            assertEquals( 149 + (HEIGHT - 1) + 1, path.size() );
+            assertEquals( start, path.get( 0 ).intValue() );
+            assertEquals( end, path.get( path.size() - 1 ).intValue() );
+            for ( int j = 1 ; j < path.size() ; j++ ) {
+                assertEquals( 1, gridMesh.calcH( path.get( j - 1 ), path.get( j ) ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClaimEngineTest
+{
+    private static final int SIZE = 100;
+
+    private final LineRaster raster = new LineRaster( SIZE, SIZE );
+    private final ClaimedRaster claimed = new ClaimedRaster( SIZE, SIZE );
+    private final ClaimEngine engine = new ClaimEngine( raster, claimed );
+
+    public ClaimEngineTest()
+    {
+        raster.add( new Line( 0, 0, SIZE, 0 ) );
+        raster.add( new Line( SIZE, 0, SIZE, SIZE ) );
+        raster.add( new Line( SIZE, SIZE, 0, SIZE ) );
+        raster.add( new Line( 0, SIZE, 0, 0 ) );
+    }
+
+    private int claim(Line trail, QuixLine quix)
+    {
+        raster.add( trail );
+        return engine.claim( List.of( trail ), List.of( quix ) );
+    }
+
+    @Test
+    public void claimsSideWithoutQuix()
+    {
+        assertEquals( 29 * 99, claim( new Line( 30, 0, 30, SIZE ), new QuixLine( 60, 50, 70, 40 ) ) );
+
+        assertTrue( claimed.isClaimed( 1, 1 ) );
+        assertTrue( claimed.isClaimed( 29, 99 ) );
+        assertFalse( claimed.isClaimed( 30, 50 ) ); // trail
+        assertFalse( claimed.isClaimed( 31, 50 ) );
+        assertFalse( claimed.isClaimed( 0, 50 ) ); // border
+    }
+
+    @Test
+    public void doesNotClaimAreaTwice()
+    {
+        assertEquals( 29 * 99, claim( new Line( 30, 0, 30, SIZE ), new QuixLine( 60, 20, 70, 30 ) ) );
+        assertEquals( 69 * 49, claim( new Line( 30, 50, SIZE, 50 ), new QuixLine( 60, 20, 70, 30 ) ) );
+        assertTrue( claimed.isClaimed( 99, 99 ) );
+        assertFalse( claimed.isClaimed( 99, 49 ) );
+
+        assertEquals( 29 * 99 + 69 * 49, claimed.getClaimedCount() );
+    }
+
+    @Test
+    public void claimsTriangles()
+    {
+        assertEquals( 861, engine.claimTriangle( 10, 10, 10, 50, 50, 10 ) );
+        // shares the diagonal with the first one
+        assertEquals( 820, engine.claimTriangle( 50, 10, 10, 50, 50, 50 ) );
+        assertEquals( 41 * 41, claimed.getClaimedCount() );
+        assertTrue( claimed.isClaimed( 30, 30 ) );
+        assertFalse( claimed.isClaimed( 51, 30 ) );
+        assertEquals( 0, engine.claimTriangle( 50, 50, 10, 10, 10, 50 ) );
+    }
+
+    @Test
+    public void triangleDoesNotClaimLines()
+    {
+        // 21 rows, minus the border pixels
+        assertEquals( 190, engine.claimTriangle( 0, 0, 0, 20, 20, 0 ) );
+        assertFalse( claimed.isClaimed( 0, 10 ) );
+        assertTrue( claimed.isClaimed( 1, 1 ) );
+    }
+
+    @Test
+    public void triangulatedClaimsStayWithinFloodFilledArea()
+    {
+        int claimed = 0;
+        for ( long seed = 1 ; seed <= 5 ; seed++ )
+        {
+            final GameState floodFill = new GameState();
+            final GameState triangulated = new GameState();
+            triangulated.floodFillClaims = false;
+            final RandomInput input = new RandomInput( seed, 15 );
+            for ( int tick = 0 ; tick < 1500 && ! floodFill.gameOver && ! triangulated.gameOver ; tick++ )
+            {
+                final int controls = input.next();
+                floodFill.step( controls );
+                triangulated.step( controls );
+            }
+            // triangulation does not always succeed, so the area may be smaller
+            claimed += triangulated.getClaimedArea().getClaimedCount();
+            for ( int y = 0 ; y <= GameState.PLAYFIELD_HEIGHT ; y++ )
+            {
+                for ( int x = 0 ; x <= GameState.PLAYFIELD_WIDTH ; x++ )
+                {
+                    if ( triangulated.getClaimedArea().isClaimed( x, y ) ) {
+                        assertTrue( "Seed " + seed + ", " + x + "," + y, floodFill.getClaimedArea().isClaimed( x, y ) );
+                    }
+                }
+            }
+        }
+        assertTrue( claimed > 0 );
+    }
+}
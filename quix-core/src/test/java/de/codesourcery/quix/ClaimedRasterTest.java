@@ -0,0 +1,62 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClaimedRasterTest
+{
+    private final ClaimedRaster raster = new ClaimedRaster( 200, 10 );
+
+    @Test
+    public void claimSpanAcrossWordBoundaries()
+    {
+        raster.claimSpan( 3, 60, 130 );
+        assertEquals( 71, raster.getClaimedCount() );
+        assertFalse( raster.isClaimed( 59, 3 ) );
+        assertTrue( raster.isClaimed( 60, 3 ) );
+        assertTrue( raster.isClaimed( 64, 3 ) );
+        assertTrue( raster.isClaimed( 130, 3 ) );
+        assertFalse( raster.isClaimed( 131, 3 ) );
+        assertFalse( raster.isClaimed( 60, 2 ) );
+        assertFalse( raster.isClaimed( 60, 4 ) );
+
+        // overlapping spans must not be counted twice
+        raster.claimSpan( 3, 0, 100 );
+        assertEquals( 131, raster.getClaimedCount() );
+
+        raster.claimSpan( 10, 0, 200 );
+        assertEquals( 332, raster.getClaimedCount() );
+        assertTrue( raster.isClaimed( 200, 10 ) );
+        assertFalse( raster.isClaimed( 201, 10 ) );
+
+        raster.clear();
+        assertEquals( 0, raster.getClaimedCount() );
+        assertFalse( raster.isClaimed( 60, 3 ) );
+    }
+
+    @Test
+    public void scanForSpans()
+    {
+        raster.claimSpan( 5, 10, 20 );
+        raster.claimSpan( 5, 150, 200 );
+
+        assertEquals( 10, raster.nextClaimed( 0, 5 ) );
+        assertEquals( 21, raster.nextUnclaimed( 10, 5 ) );
+        assertEquals( 150, raster.nextClaimed( 21, 5 ) );
+        assertEquals( -1, raster.nextUnclaimed( 150, 5 ) );
+        assertEquals( -1, raster.nextClaimed( 201, 5 ) );
+        assertEquals( -1, raster.nextClaimed( 0, 4 ) );
+        assertEquals( 0, raster.nextUnclaimed( 0, 4 ) );
+    }
+
+    @Test
+    public void percentageExcludesBorder()
+    {
+        final ClaimedRaster small = new ClaimedRaster( 11, 11 );
+        for ( int y = 1 ; y <= 5 ; y++ ) {
+            small.claimSpan( y, 1, 10 );
+        }
+        assertEquals( 50f, small.getClaimedPercentage(), 0.001f );
+    }
+}
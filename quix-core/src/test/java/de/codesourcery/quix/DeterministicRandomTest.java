@@ -0,0 +1,51 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DeterministicRandomTest
+{
+    @Test
+    public void sameSequenceAsRandom()
+    {
+        for ( long seed : new long[] { 0, 1, 42, -7, Long.MAX_VALUE } )
+        {
+            final Random expected = new Random( seed );
+            final DeterministicRandom actual = new DeterministicRandom( seed );
+            for ( int i = 0 ; i < 1000 ; i++ )
+            {
+                // powers of two and bounds that need rejection sampling
+                assertEquals( expected.nextInt( 16 ), actual.nextInt( 16 ) );
+                assertEquals( expected.nextInt( 0x40000001 ), actual.nextInt( 0x40000001 ) );
+                assertEquals( expected.nextInt( 640 ), actual.nextInt( 640 ) );
+                assertEquals( expected.nextInt(), actual.nextInt() );
+                assertEquals( expected.nextLong(), actual.nextLong() );
+                assertEquals( expected.nextBoolean(), actual.nextBoolean() );
+                assertEquals( expected.nextFloat(), actual.nextFloat(), 0 );
+                assertEquals( expected.nextDouble(), actual.nextDouble(), 0 );
+            }
+            expected.setSeed( seed + 1 );
+            actual.setSeed( seed + 1 );
+            assertEquals( expected.nextLong(), actual.nextLong() );
+        }
+    }
+
+    @Test
+    public void restoresState()
+    {
+        final DeterministicRandom rnd = new DeterministicRandom( 5 );
+        rnd.nextInt( 100 );
+        final long state = rnd.getState();
+        final int[] values = new int[ 10 ];
+        for ( int i = 0 ; i < values.length ; i++ ) {
+            values[i] = rnd.nextInt( 1000 );
+        }
+        rnd.setState( state );
+        for ( int value : values ) {
+            assertEquals( value, rnd.nextInt( 1000 ) );
+        }
+    }
+}
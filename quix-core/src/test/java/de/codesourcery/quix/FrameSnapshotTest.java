@@ -0,0 +1,59 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameSnapshotTest
+{
+    private final GameState state = new GameState();
+
+    private static boolean covers(List<Line> lines, int x, int y)
+    {
+        for ( Line l : lines )
+        {
+            if ( l.contains( x, y ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void trailIncludesSegmentBeingDrawn()
+    {
+        // walk along the top border, draw downwards, then turn right
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            state.step( Controls.RIGHT );
+        }
+        for ( int i = 0 ; i < 10 ; i++ ) {
+            state.step( Controls.DOWN | Controls.FAST );
+        }
+        for ( int i = 0 ; i < 5 ; i++ ) {
+            state.step( Controls.RIGHT | Controls.FAST );
+        }
+        assertTrue( state.isDrawingPoly() );
+
+        final FrameSnapshot snapshot = new FrameSnapshot( state, 0, null );
+        final List<Line> trail = new ArrayList<>();
+        snapshot.visitTrail( (x0, y0, x1, y1, node0, node1) -> trail.add( new Line( x0, y0, x1, y1 ) ) );
+        final List<Line> current = new ArrayList<>();
+        snapshot.visitCurrentTrailLine( (x0, y0, x1, y1, node0, node1) -> current.add( new Line( x0, y0, x1, y1 ) ) );
+
+        assertEquals( 1, trail.size() );
+        assertEquals( 1, current.size() );
+        assertFalse( covers( trail, snapshot.getPlayerX(), snapshot.getPlayerY() ) );
+        assertTrue( covers( current, snapshot.getPlayerX(), snapshot.getPlayerY() ) );
+    }
+
+    @Test
+    public void noTrailWhenNotDrawing()
+    {
+        final FrameSnapshot snapshot = new FrameSnapshot( state, 0, null );
+        snapshot.visitTrail( (x0, y0, x1, y1, node0, node1) -> fail() );
+        snapshot.visitCurrentTrailLine( (x0, y0, x1, y1, node0, node1) -> fail() );
+    }
+}
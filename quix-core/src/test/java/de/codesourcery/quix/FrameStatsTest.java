@@ -0,0 +1,46 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameStatsTest
+{
+    @Test
+    public void measuresIntervalsBetweenFrames()
+    {
+        final FrameStats stats = new FrameStats( 8 );
+        stats.frameFinished( 1000 );
+        assertEquals( 0, stats.getSampleCount() );
+
+        stats.frameFinished( 1010 );
+        stats.frameFinished( 1030 );
+        assertEquals( 2, stats.getSampleCount() );
+        assertEquals( 15, stats.getAverageNanos() );
+        assertEquals( 20, stats.getMaxNanos() );
+    }
+
+    @Test
+    public void keepsOnlyMostRecentSamples()
+    {
+        final FrameStats stats = new FrameStats( 4 );
+        for ( int i = 1 ; i <= 6 ; i++ ) {
+            stats.record( i * 10 );
+        }
+        assertEquals( 4, stats.getSampleCount() );
+        assertEquals( 45, stats.getAverageNanos() );
+        assertEquals( 60, stats.getMaxNanos() );
+        assertEquals( 30, stats.getPercentileNanos( 0 ) );
+        assertEquals( 40, stats.getPercentileNanos( 50 ) );
+        assertEquals( 60, stats.getPercentileNanos( 99 ) );
+    }
+
+    @Test
+    public void computesRate()
+    {
+        final FrameStats stats = new FrameStats( 4 );
+        assertEquals( 0, stats.getRatePerSecond(), 0 );
+        stats.record( 16_666_667 );
+        assertEquals( 60, stats.getRatePerSecond(), 0.01f );
+    }
+}
@@ -0,0 +1,165 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameEnvironmentTest
+{
+    // same input for 15 ticks in a row so that trails actually get closed
+    private static final int INPUT_HOLD_TICKS = 15;
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocateDirect( size ).order( ByteOrder.nativeOrder() );
+    }
+
+    @Test
+    public void writesObservations()
+    {
+        final GameEnvironment env = new GameEnvironment( new StateVectorEncoder() );
+        final ByteBuffer obs = buffer( env.getObservationSize() );
+        env.reset( 1, obs );
+        assertEquals( 0f, obs.getFloat( 0 ), 0 );
+        assertEquals( 0f, obs.getFloat( 8 ), 0 );
+
+        assertEquals( 0f, env.step( Controls.RIGHT, obs ), 0 );
+        assertEquals( 2f / GameState.PLAYFIELD_WIDTH, obs.getFloat( 0 ), 0.00001f );
+        assertEquals( 0, obs.position() );
+    }
+
+    @Test
+    public void rewardsAddUpToScore()
+    {
+        final GameEnvironment env = new GameEnvironment( new StateVectorEncoder() );
+        final ByteBuffer obs = buffer( env.getObservationSize() );
+
+        boolean scored = false;
+        for ( int seed = 1 ; seed <= 5 ; seed++ )
+        {
+            env.reset( seed, obs );
+            final RandomInput input = new RandomInput( seed, INPUT_HOLD_TICKS );
+            float totalReward = 0;
+            for ( int tick = 0 ; tick < 1000 && ! env.isDone() ; tick++ ) {
+                totalReward += env.step( input.next(), obs );
+            }
+            assertEquals( env.getState().player.score, totalReward, 0 );
+            scored |= totalReward > 0;
+        }
+        assertTrue( scored );
+    }
+
+    @Test
+    public void trailMayHitLineRightAfterTurning()
+    {
+        // changing direction every tick used to bend the previous trail segment
+        // when the first pixel in the new direction was on another line
+        final int[] actions = { Controls.LEFT, Controls.RIGHT, Controls.UP, Controls.DOWN, Controls.LEFT | Controls.FAST,
+            Controls.RIGHT | Controls.FAST, Controls.UP | Controls.FAST, Controls.DOWN | Controls.FAST, Controls.NONE };
+        final GameEnvironment env = new GameEnvironment( new StateVectorEncoder() );
+        final ByteBuffer obs = buffer( env.getObservationSize() );
+        for ( long seed : new long[] { 9, 13, 17 } )
+        {
+            env.reset( seed, obs );
+            final Random rnd = new Random( seed );
+            for ( int tick = 0 ; tick < 200 ; tick++ )
+            {
+                if ( env.isDone() ) {
+                    env.reset( seed, obs );
+                }
+                env.step( actions[ rnd.nextInt( actions.length ) ], obs );
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidActions()
+    {
+        final GameEnvironment env = new GameEnvironment( new StateVectorEncoder() );
+        env.step( Controls.ALL + 1, buffer( env.getObservationSize() ) );
+    }
+
+    @Test
+    public void vectorEnvironmentMatchesSingleEnvironments()
+    {
+        final int count = 3;
+        final int steps = 300;
+        try ( VectorEnvironment vector = new VectorEnvironment( count, 2, StateVectorEncoder::new ) )
+        {
+            final int size = vector.getObservationSize();
+            final ByteBuffer observations = buffer( count * size );
+            vector.reset( 10, observations );
+
+            final GameEnvironment[] singles = new GameEnvironment[count];
+            final ByteBuffer single = buffer( size );
+            for ( int i = 0 ; i < count ; i++ )
+            {
+                singles[i] = new GameEnvironment( new StateVectorEncoder() );
+                singles[i].reset( 10 + i, single );
+            }
+
+            final RandomInput[] inputs = new RandomInput[count];
+            for ( int i = 0 ; i < count ; i++ ) {
+                inputs[i] = new RandomInput( 5 + i, INPUT_HOLD_TICKS );
+            }
+            final int[] actions = new int[count];
+            final float[] rewards = new float[count];
+            final boolean[] dones = new boolean[count];
+            for ( int tick = 0 ; tick < steps ; tick++ )
+            {
+                for ( int i = 0 ; i < count ; i++ ) {
+                    actions[i] = inputs[i].next();
+                }
+                vector.step( actions, rewards, dones, observations );
+                for ( int i = 0 ; i < count ; i++ )
+                {
+                    assertEquals( singles[i].step( actions[i], single ), rewards[i], 0 );
+                    assertEquals( singles[i].isDone(), dones[i] );
+                    final ByteBuffer observation = observations.duplicate().position( i * size ).limit( ( i + 1 ) * size );
+                    assertEquals( single, observation.slice().order( ByteOrder.nativeOrder() ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void vectorEnvironmentWaitsForWorkersWhenCallerFails()
+    {
+        final int count = 4;
+        try ( VectorEnvironment vector = new VectorEnvironment( count, 2, StateVectorEncoder::new ) )
+        {
+            final int size = vector.getObservationSize();
+            final ByteBuffer observations = buffer( count * size );
+            vector.reset( 10, observations );
+
+            final int[] actions = { Controls.ALL + 1, Controls.RIGHT, Controls.RIGHT, Controls.RIGHT };
+            final float[] rewards = new float[count];
+            final boolean[] dones = new boolean[count];
+            try
+            {
+                // the calling thread steps the first environment itself
+                vector.step( actions, rewards, dones, observations );
+                fail( "Should have failed" );
+            }
+            catch (IllegalStateException e)
+            {
+                assertTrue( e.getCause() instanceof IllegalArgumentException );
+            }
+
+            // the worker's environments have already been stepped once
+            final GameEnvironment single = new GameEnvironment( new StateVectorEncoder() );
+            final ByteBuffer obs = buffer( size );
+            single.reset( 10 + count - 1, obs );
+            single.step( Controls.RIGHT, obs );
+            single.step( Controls.RIGHT, obs );
+
+            actions[0] = Controls.RIGHT;
+            vector.step( actions, rewards, dones, observations );
+            final ByteBuffer observation = observations.duplicate().position( ( count - 1 ) * size ).limit( count * size );
+            assertEquals( obs, observation.slice().order( ByteOrder.nativeOrder() ) );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameLoopTest
+{
+    private static final long TICK_NANOS = 1_000_000_000L / 100;
+
+    private final GameState state = new GameState();
+    private final List<FrameSnapshot> published = new ArrayList<>();
+    private final GameLoop loop = new GameLoop( state, 100, published::add );
+
+    @Test
+    public void simulatesFixedNumberOfTicksPerElapsedTime()
+    {
+        loop.begin( 0 );
+        assertEquals( 0, loop.advance( TICK_NANOS / 2 ) );
+        assertTrue( published.isEmpty() );
+
+        assertEquals( 1, loop.advance( TICK_NANOS ) );
+        // remainder is carried over
+        assertEquals( 2, loop.advance( 3 * TICK_NANOS ) );
+
+        assertEquals( 3, loop.getTickCount() );
+        assertEquals( 0, loop.getMissedTickCount() );
+        assertEquals( 2, published.size() );
+        assertSame( loop.getSnapshot(), published.get( 1 ) );
+        assertEquals( 3, loop.getSnapshot().getTick() );
+    }
+
+    @Test
+    public void dropsTicksWhenFallingBehind()
+    {
+        loop.begin( 0 );
+        assertEquals( GameLoop.MAX_CATCH_UP_TICKS, loop.advance( 20 * TICK_NANOS ) );
+        assertEquals( 20 - GameLoop.MAX_CATCH_UP_TICKS, loop.getMissedTickCount() );
+
+        assertEquals( 1, loop.advance( 21 * TICK_NANOS ) );
+    }
+
+    @Test
+    public void appliesControlsAndRestartOnSimulationThread()
+    {
+        final int x = state.player.x;
+        loop.submitInput( Controls.RIGHT, true );
+        loop.begin( 0 );
+        loop.advance( TICK_NANOS );
+        assertEquals( x + 2, loop.getSnapshot().getPlayerX() );
+
+        loop.submitInput( Controls.RIGHT, false );
+        loop.requestRestart();
+        // restart must not happen before the next tick
+        assertEquals( x + 2, state.player.x );
+        loop.advance( 2 * TICK_NANOS );
+        assertEquals( x, loop.getSnapshot().getPlayerX() );
+    }
+
+    @Test
+    public void snapshotsShareUnchangedPlayfield()
+    {
+        final FrameSnapshot first = new FrameSnapshot( state, 0, null );
+        state.step( Controls.NONE );
+        final FrameSnapshot second = new FrameSnapshot( state, 1, first );
+        assertSame( first.getPlayfield(), second.getPlayfield() );
+
+        state.restart();
+        final FrameSnapshot third = new FrameSnapshot( state, 2, second );
+        assertNotSame( second.getPlayfield(), third.getPlayfield() );
+    }
+
+    @Test
+    public void shortTapsAreNotLost()
+    {
+        final int x = state.player.x;
+        loop.begin( 0 );
+        // pressed and released between two ticks
+        loop.submitInput( Controls.RIGHT, true );
+        loop.submitInput( Controls.RIGHT, false );
+        loop.advance( TICK_NANOS );
+        assertEquals( x + 2, loop.getSnapshot().getPlayerX() );
+
+        loop.advance( 2 * TICK_NANOS );
+        assertEquals( x + 2, loop.getSnapshot().getPlayerX() );
+        assertEquals( 2, loop.getInputEventCount() );
+    }
+
+    @Test
+    public void measuresInputLatency()
+    {
+        final long now = System.nanoTime();
+        loop.submitInput( Controls.LEFT, true, now - 5_000_000 );
+        loop.submitInput( Controls.LEFT, false, now - 1_000_000 );
+        loop.begin( 0 );
+        loop.advance( TICK_NANOS );
+
+        assertTrue( loop.getMaxInputLatencyNanos() >= 5_000_000 );
+        assertTrue( loop.getAverageInputLatencyNanos() >= 3_000_000 );
+        assertTrue( loop.getAverageInputLatencyNanos() < loop.getMaxInputLatencyNanos() );
+    }
+}
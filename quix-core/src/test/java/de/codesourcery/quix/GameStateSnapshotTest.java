@@ -0,0 +1,111 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameStateSnapshotTest
+{
+    private final GameState state = new GameState();
+
+    // plays a session that keeps drawing trails, each call continues where the previous one stopped
+    private static void play(GameState state, RandomInput input, int ticks)
+    {
+        for ( int i = 0 ; i < ticks ; i++ ) {
+            state.step( input.next() );
+        }
+    }
+
+    private static RandomInput input(long seed) {
+        return new RandomInput( seed, 15 );
+    }
+
+    private static void assertSameState(GameState expected, GameState actual)
+    {
+        assertTrue( expected.snapshot().contentEquals( actual.snapshot() ) );
+        assertEquals( expected.player.x, actual.player.x );
+        assertEquals( expected.player.y, actual.player.y );
+        assertEquals( expected.player.score, actual.player.score );
+        assertEquals( expected.gameOver, actual.gameOver );
+        assertEquals( expected.playfieldLines.size(), actual.playfieldLines.size() );
+        assertEquals( expected.getClaimedArea().getClaimedCount(), actual.getClaimedArea().getClaimedCount() );
+    }
+
+    @Test
+    public void snapshotOfRestoredStateIsIdentical()
+    {
+        play( state, input( 42 ), 2000 );
+        final GameStateSnapshot snapshot = state.snapshot();
+
+        final GameState copy = new GameState();
+        copy.restore( snapshot );
+        assertTrue( snapshot.contentEquals( copy.snapshot() ) );
+    }
+
+    @Test
+    public void restoredStateContinuesLikeOriginal()
+    {
+        int tested = 0;
+        for ( int seed = 1 ; seed <= 10 ; seed++ )
+        {
+            final GameState original = new GameState();
+            play( original, input( seed ), 600 );
+            if ( original.gameOver ) {
+                continue;
+            }
+            tested++;
+
+            final GameState copy = new GameState();
+            copy.restore( original.snapshot() );
+
+            final long continuationSeed = seed * 31;
+            play( original, input( continuationSeed ), 500 );
+            play( copy, input( continuationSeed ), 500 );
+            assertSameState( original, copy );
+        }
+        assertTrue( tested >= 3 );
+    }
+
+    @Test
+    public void rewindToSnapshot()
+    {
+        play( state, input( 7 ), 1000 );
+        final GameStateSnapshot snapshot = state.snapshot( new GameStateSnapshot() );
+
+        final GameState reference = new GameState();
+        reference.restore( snapshot );
+        play( reference, input( 1234 ), 800 );
+
+        // diverge, then rewind and play the same input again
+        play( state, input( 99 ), 800 );
+        state.restore( snapshot );
+        play( state, input( 1234 ), 800 );
+        assertSameState( reference, state );
+    }
+
+    @Test
+    public void snapshotWhileDrawingTrail()
+    {
+        // walk along the top border, then start drawing downwards
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            state.step( Controls.RIGHT );
+        }
+        for ( int i = 0 ; i < 10 ; i++ ) {
+            state.step( Controls.DOWN | Controls.FAST );
+        }
+        assertTrue( state.isDrawingPoly() );
+
+        final GameState copy = new GameState();
+        copy.restore( state.snapshot() );
+        assertTrue( copy.isDrawingPoly() );
+        assertNotSame( state.getCurrentPoly().currentLine, copy.getCurrentPoly().currentLine );
+
+        for ( int i = 0 ; i < 300 ; i++ )
+        {
+            final int controls = ( i / 20 ) % 2 == 0 ? Controls.RIGHT | Controls.FAST : Controls.DOWN | Controls.FAST;
+            state.step( controls );
+            copy.step( controls );
+        }
+        assertSameState( state, copy );
+    }
+}
@@ -0,0 +1,67 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest
+{
+    @Test
+    public void drainsEventsInOfferOrder()
+    {
+        final InputQueue queue = new InputQueue( 4 );
+        assertTrue( queue.offer( Controls.LEFT, true, 1 ) );
+        assertTrue( queue.offer( Controls.LEFT | Controls.FAST, false, 2 ) );
+
+        final List<String> drained = new ArrayList<>();
+        assertEquals( 2, queue.drain( (controls, pressed, timestamp) -> drained.add( controls + ":" + pressed + ":" + timestamp ) ) );
+        assertEquals( List.of( "1:true:1", "17:false:2" ), drained );
+        assertEquals( 0, queue.drain( (controls, pressed, timestamp) -> fail() ) );
+    }
+
+    @Test
+    public void rejectsEventsWhenFull()
+    {
+        final InputQueue queue = new InputQueue( 2 );
+        assertTrue( queue.offer( Controls.UP, true, 0 ) );
+        assertTrue( queue.offer( Controls.UP, false, 0 ) );
+        assertFalse( queue.offer( Controls.DOWN, true, 0 ) );
+
+        assertEquals( 2, queue.drain( (controls, pressed, timestamp) -> {} ) );
+        assertTrue( queue.offer( Controls.DOWN, true, 0 ) );
+    }
+
+    @Test
+    public void concurrentProducerLosesNoEvents() throws InterruptedException
+    {
+        final int events = 10_000;
+        final InputQueue queue = new InputQueue( 64 );
+
+        final Thread producer = new Thread( () ->
+        {
+            for ( int i = 0 ; i < events ; i++ )
+            {
+                while ( ! queue.offer( i & 0xffff, ( i & 1 ) != 0, i ) ) {
+                    Thread.onSpinWait();
+                }
+            }
+        } );
+        producer.start();
+
+        final long[] next = new long[1];
+        while ( next[0] < events )
+        {
+            queue.drain( (controls, pressed, timestamp) ->
+            {
+                assertEquals( next[0], timestamp );
+                assertEquals( next[0] & 0xffff, controls );
+                assertEquals( ( next[0] & 1 ) != 0, pressed );
+                next[0]++;
+            } );
+        }
+        producer.join();
+    }
+}
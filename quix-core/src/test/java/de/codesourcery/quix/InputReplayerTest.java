@@ -0,0 +1,93 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InputReplayerTest
+{
+    // controls for each tick, -1 restarts the game
+    private static final int[] SESSION;
+
+    static
+    {
+        SESSION = new int[1000];
+        Arrays.fill( SESSION, 0, 100, Controls.RIGHT );
+        Arrays.fill( SESSION, 100, 160, Controls.DOWN | Controls.FAST );
+        Arrays.fill( SESSION, 160, 240, Controls.RIGHT | Controls.FAST );
+        Arrays.fill( SESSION, 240, 310, Controls.UP | Controls.FAST );
+        SESSION[310] = -1;
+        Arrays.fill( SESSION, 311, 500, Controls.RIGHT );
+        Arrays.fill( SESSION, 500, 1000, Controls.DOWN | Controls.FAST );
+    }
+
+    private static byte[] record(GameState state) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( InputRecorder recorder = new InputRecorder( out, 60 ) )
+        {
+            for ( int controls : SESSION )
+            {
+                if ( controls == -1 )
+                {
+                    recorder.restart();
+                    state.restart();
+                    continue;
+                }
+                recorder.tick( controls );
+                state.step( controls );
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void replayReproducesSession() throws IOException
+    {
+        final GameState recorded = new GameState();
+        final byte[] data = record( recorded );
+        // run-length encoded
+        assertTrue( "Recording too large: " + data.length, data.length < 40 );
+
+        final InputReplayer replayer = new InputReplayer( new ByteArrayInputStream( data ) );
+        assertEquals( 60, replayer.getTicksPerSecond() );
+        assertEquals( SESSION.length - 1, replayer.getTickCount() );
+
+        final GameState replayed = new GameState();
+        assertEquals( SESSION.length - 1, replayer.replay( replayed ) );
+        assertEquals( recorded.player.x, replayed.player.x );
+        assertEquals( recorded.player.y, replayed.player.y );
+        assertEquals( recorded.player.score, replayed.player.score );
+        assertEquals( recorded.gameOver, replayed.gameOver );
+        assertEquals( recorded.playfieldLines.size(), replayed.playfieldLines.size() );
+    }
+
+    @Test
+    public void encodesLongRuns() throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( InputRecorder recorder = new InputRecorder( out, 60 ) )
+        {
+            for ( int i = 0 ; i < 300_000 ; i++ ) {
+                recorder.tick( Controls.NONE );
+            }
+        }
+        assertEquals( 300_000, new InputReplayer( new ByteArrayInputStream( out.toByteArray() ) ).getTickCount() );
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedRecording() throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( InputRecorder recorder = new InputRecorder( out, 60 ) ) {
+            recorder.tick( Controls.LEFT );
+        }
+        final byte[] data = out.toByteArray();
+        new InputReplayer( new ByteArrayInputStream( data, 0, data.length - 1 ) );
+    }
+}
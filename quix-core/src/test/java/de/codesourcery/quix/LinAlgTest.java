@@ -0,0 +1,90 @@
+package de.codesourcery.quix;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class LinAlgTest
+{
+    @Test
+    public void distanceToSegment()
+    {
+        // perpendicular
+        assertEquals( 25f, LinAlg.dist2ToSegment( 50, 5, 0, 0, 100, 0 ), 0.0001f );
+        // beyond the endpoints
+        assertEquals( 25f, LinAlg.dist2ToSegment( -3, 4, 0, 0, 100, 0 ), 0.0001f );
+        assertEquals( 25f, LinAlg.dist2ToSegment( 103, 4, 0, 0, 100, 0 ), 0.0001f );
+        // diagonal
+        assertEquals( 2f, LinAlg.dist2ToSegment( 0, 2, 0, 0, 10, 10 ), 0.0001f );
+        // single point
+        assertEquals( 25f, LinAlg.dist2ToSegment( 3, 4, 0, 0, 0, 0 ), 0.0001f );
+
+        assertEquals( 5f, LinAlg.distToLineSegment( new Line( 0, 0, 100, 0 ), new Vec2( 50, 5 ) ), 0.0001f );
+    }
+
+    @Test
+    public void nearestPoint()
+    {
+        final Vec2 nearest = new Vec2();
+        assertEquals( 2f, LinAlg.nearestPointOnSegment( 0, 2, 0, 0, 10, 10, nearest ), 0.0001f );
+        assertEquals( 1f, nearest.x, 0.0001f );
+        assertEquals( 1f, nearest.y, 0.0001f );
+
+        LinAlg.nearestPointOnSegment( 20, 30, 0, 0, 10, 10, nearest );
+        assertEquals( 10f, nearest.x, 0 );
+        assertEquals( 10f, nearest.y, 0 );
+    }
+
+    @Test
+    public void closestLineAndNode()
+    {
+        final GameState state = new GameState();
+        final Line top = state.getClosestLine( 320, 5 );
+        assertNotNull( top );
+        assertEquals( 0, top.y0() );
+        assertEquals( 0, top.y1() );
+        assertNull( state.getClosestLine( 320, 240 ) );
+
+        final Node corner = state.getClosestNode( 630, 470 );
+        assertEquals( GameState.PLAYFIELD_WIDTH, corner.x );
+        assertEquals( GameState.PLAYFIELD_HEIGHT, corner.y );
+    }
+
+    @Test
+    public void queriesDoNotAllocate()
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue( bean instanceof com.sun.management.ThreadMXBean );
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue( threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() );
+
+        final GameState state = new GameState();
+        final Vec2 p = new Vec2();
+        final Vec2 nearest = new Vec2();
+        final Line line = new Line( 0, 0, 100, 50 );
+        final long thread = Thread.currentThread().getId();
+
+        final int queries = 10000;
+        long before = 0;
+        float sink = 0;
+        // second round is measured, the first one makes sure everything has been loaded and initialized
+        for ( int round = 0 ; round < 2 ; round++ )
+        {
+            before = threads.getThreadAllocatedBytes( thread );
+            for ( int i = 0 ; i < queries ; i++ )
+            {
+                p.set( i % GameState.PLAYFIELD_WIDTH, i % GameState.PLAYFIELD_HEIGHT );
+                sink += state.getClosestLine( p ) != null ? 1 : 0;
+                sink += state.getClosestNode( p ).x;
+                sink += LinAlg.dist2ToLineSegment( line, p );
+                sink += LinAlg.nearestPointOnSegment( p.x, p.y, 0, 0, 100, 50, nearest );
+            }
+        }
+        final long allocated = threads.getThreadAllocatedBytes( thread ) - before;
+        assertTrue( sink > 0 );
+        assertEquals( "Bytes allocated per query (" + allocated + " in total)", 0, allocated / queries );
+    }
+}
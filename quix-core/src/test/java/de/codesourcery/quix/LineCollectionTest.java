@@ -0,0 +1,58 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LineCollectionTest
+{
+    @Test
+    public void getLineFindsLinesInAllCells()
+    {
+        final LineCollection col = new LineCollection();
+        final Line top = new Line(0,0,640,0);
+        final Line right = new Line(640,0,640,480);
+        col.add( top );
+        col.add( right );
+
+        assertSame( top, col.getLine( 0, 0 ) );
+        assertSame( top, col.getLine( 320, 0 ) );
+        assertSame( right, col.getLine( 640, 480 ) );
+        assertSame( right, col.getLine( 640, 200 ) );
+        assertNull( col.getLine( 320, 1 ) );
+        assertNull( col.getLine( -10, -10 ) );
+    }
+
+    @Test
+    public void intersectsOnlyReturnsTouchedLines()
+    {
+        final LineCollection col = new LineCollection();
+        final Line horizontal = new Line(100,100,200,100);
+        col.add( horizontal );
+
+        assertSame( horizontal, col.intersects( 150, 50, 150, 150 ) );
+        assertNull( col.intersects( 250, 50, 250, 150 ) );
+        assertNull( col.intersects( 150, 101, 150, 300 ) );
+    }
+
+    @Test
+    public void splitLineUpdatesIndex()
+    {
+        final LineCollection col = new LineCollection();
+        final Line line = new Line(100,100,300,100);
+        col.add( line );
+
+        final Node middle = col.split( line, 200, 100 );
+        assertEquals( 2, col.size() );
+
+        final Line newLine = middle.right;
+        assertNotNull( newLine );
+        assertSame( line, col.getLine( 150, 100 ) );
+        assertSame( newLine, col.getLine( 250, 100 ) );
+        assertSame( newLine, col.intersects( 290, 0, 290, 200 ) );
+
+        col.clear();
+        assertNull( col.getLine( 150, 100 ) );
+        assertNull( col.intersects( 290, 0, 290, 200 ) );
+    }
+}
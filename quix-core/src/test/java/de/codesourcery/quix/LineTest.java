@@ -0,0 +1,180 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LineTest
+{
+
+    @Test
+    public void intersects1()
+    {
+        // Line (87,79) -> (240,79), m = 0.0, vertical=false, horizontal=true <=> Line (120,79) -> (208,79), m = 0.0, vertical=false, horizontal=true
+        Line a = new Line(87,79,240,79);
+        Line b = new Line(120,79,208,79);
+        assertTrue( a.intersects( b ) );
+    }
+
+    @Test
+    public void intersects2()
+    {
+        Line a = new Line(87,79,240,79);
+        Line b = new Line(87,79,240,79);
+        assertTrue( a.intersects( b ) );
+    }
+
+    @Test
+    public void intersects3()
+    {
+        // horizontal
+        Line a = new Line(50,50,100,50);
+        Line b = new Line(50,50,100,50);
+        assertTrue( a.intersects( b ) );
+    }
+
+    @Test
+    public void intersects4()
+    {
+        // vertical
+        Line a = new Line(50,50,50,100);
+        Line b = new Line(50,50,50,100);
+        assertTrue( a.intersects( b ) );
+    }
+
+    @Test
+    public void collinearLinesMustOverlap()
+    {
+        assertFalse( new Line(50,50,50,100).intersects( new Line(50,150,50,200) ) );
+        assertFalse( new Line(50,150,50,200).intersects( new Line(50,50,50,100) ) );
+        assertFalse( new Line(50,50,100,50).intersects( new Line(150,50,200,50) ) );
+        assertFalse( new Line(150,50,200,50).intersects( new Line(50,50,100,50) ) );
+        assertTrue( new Line(50,50,50,100).intersects( new Line(50,100,50,200) ) );
+        assertFalse( new Line(0,0,10,10).intersects( new Line(11,11,20,20) ) );
+        assertTrue( new Line(0,0,10,10).intersects( new Line(10,10,20,20) ) );
+    }
+
+    @Test
+    public void diagonalCrossingEndOfVerticalLine()
+    {
+        final Line vertical = new Line(100,100,100,110);
+        // crosses the vertical line at (100,105) but extends beyond it in y
+        assertTrue( vertical.intersects( new Line(90,95,110,115) ) );
+        assertTrue( new Line(90,95,110,115).intersects( vertical ) );
+        // passes by just below it
+        assertFalse( vertical.intersects( new Line(90,101,110,121) ) );
+        // touches its end point
+        assertTrue( vertical.intersects( new Line(90,100,110,120) ) );
+    }
+
+    @Test
+    public void nearlyParallelDiagonals()
+    {
+        // slopes differ by less than the float epsilon the old implementation used
+        assertFalse( new Line(0,0,100000,100001).intersects( new Line(1,0,100001,100001) ) );
+        assertTrue( new Line(0,0,100000,100001).intersects( new Line(0,1,100000,100000) ) );
+    }
+
+    @Test
+    public void points()
+    {
+        assertTrue( new Line(5,5,5,5).intersects( new Line(0,0,10,10) ) );
+        assertTrue( new Line(0,0,10,10).intersects( new Line(5,5,5,5) ) );
+        assertFalse( new Line(5,6,5,6).intersects( new Line(0,0,10,10) ) );
+        assertTrue( new Line(5,5,5,5).intersects( new Line(5,5,5,5) ) );
+    }
+
+    @Test
+    public void fastPathsAgreeWithOrientationTest()
+    {
+        final Random rnd = new Random( 42 );
+        final int[] c = new int[8];
+        for ( int i = 0 ; i < 100000 ; i++ )
+        {
+            // small coordinates so that collinear and touching cases are common
+            for ( int j = 0 ; j < c.length ; j++ ) {
+                c[j] = rnd.nextInt( 8 );
+            }
+            final boolean bbOverlap = Math.max( c[0], c[2] ) >= Math.min( c[4], c[6] ) && Math.max( c[4], c[6] ) >= Math.min( c[0], c[2] ) &&
+                                      Math.max( c[1], c[3] ) >= Math.min( c[5], c[7] ) && Math.max( c[5], c[7] ) >= Math.min( c[1], c[3] );
+            final boolean expected = bbOverlap && SegmentIntersection.intersectsOverlapping( c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7] );
+            assertEquals( expected, SegmentIntersection.intersects( c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7] ) );
+            assertEquals( expected, SegmentIntersection.intersects( c[4], c[5], c[6], c[7], c[0], c[1], c[2], c[3] ) );
+        }
+    }
+
+    private static void assertShrunkDiagonal(int x0, int y0, int x1, int y1)
+    {
+        final Line shrunk = new Line( x0, y0, x1, y1 ).shrink();
+        assertNotNull( shrunk );
+        final int minX = Math.min( x0, x1 ), maxX = Math.max( x0, x1 );
+        final int minY = Math.min( y0, y1 ), maxY = Math.max( y0, y1 );
+        for ( Node n : new Node[] { shrunk.node0, shrunk.node1 } )
+        {
+            assertTrue( shrunk + " not strictly inside", n.x > minX && n.x < maxX && n.y > minY && n.y < maxY );
+        }
+        // endpoints keep their order
+        assertTrue( shrunk.toString(), Integer.signum( shrunk.x1() - shrunk.x0() ) * Integer.signum( x1 - x0 ) >= 0 );
+        assertTrue( shrunk.toString(), Integer.signum( shrunk.y1() - shrunk.y0() ) * Integer.signum( y1 - y0 ) >= 0 );
+    }
+
+    @Test
+    public void shrinkDiagonal()
+    {
+        assertShrunkDiagonal( 0, 0, 2, 100 );
+        assertShrunkDiagonal( 2, 100, 0, 0 );
+        assertShrunkDiagonal( 0, 0, 100, 2 );
+        assertShrunkDiagonal( 100, 2, 0, 0 );
+        assertShrunkDiagonal( 10, 10, 13, 13 );
+        assertShrunkDiagonal( 0, 50, 100, 47 );
+        assertShrunkDiagonal( 100, 47, 0, 50 );
+
+        final Line shrunk = Line.shrink( 0, 0, 2, 100, new Line( 0, 0, 0, 0 ) );
+        assertEquals( 1, shrunk.x0() );
+        assertEquals( 50, shrunk.y0() );
+        assertEquals( 1, shrunk.x1() );
+        assertEquals( 50, shrunk.y1() );
+
+        final Line shallow = new Line( 0, 0, 100, 3 ).shrink();
+        assertEquals( 33, shallow.x0() );
+        assertEquals( 1, shallow.y0() );
+        assertEquals( 67, shallow.x1() );
+        assertEquals( 2, shallow.y1() );
+    }
+
+    @Test
+    public void shrinkTooShort()
+    {
+        // |dx| == 1
+        assertNull( new Line( 0, 0, 1, 5 ).shrink() );
+        assertNull( new Line( 1, 5, 0, 0 ).shrink() );
+        assertNull( new Line( 10, 10, 11, 11 ).shrink() );
+        assertNull( new Line( 11, 11, 10, 10 ).shrink() );
+        // |dy| == 1
+        assertNull( new Line( 0, 0, 100, 1 ).shrink() );
+        assertNull( new Line( 100, 1, 0, 0 ).shrink() );
+        assertNull( new Line( 0, 1, 100, 0 ).shrink() );
+        // orthogonal and single points
+        assertNull( new Line( 0, 5, 1, 5 ).shrink() );
+        assertNull( new Line( 5, 1, 5, 0 ).shrink() );
+        assertNull( new Line( 5, 5, 5, 5 ).shrink() );
+
+        final Line result = new Line( 7, 7, 8, 8 );
+        assertNull( Line.shrink( 0, 0, 1, 5, result ) );
+        assertEquals( new Line( 7, 7, 8, 8 ), result );
+    }
+
+    @Test
+    public void shrinkOrthogonal()
+    {
+        final Line horizontal = new Line(10,5,0,5).shrink();
+        assertEquals( 9, horizontal.x0() );
+        assertEquals( 1, horizontal.x1() );
+
+        final Line vertical = Line.shrink( 5, 0, 5, 10, new Line(0,0,0,0) );
+        assertEquals( 1, vertical.y0() );
+        assertEquals( 9, vertical.y1() );
+    }
+}
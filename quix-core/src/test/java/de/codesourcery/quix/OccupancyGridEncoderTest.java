@@ -0,0 +1,94 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class OccupancyGridEncoderTest
+{
+    private final OccupancyGridEncoder encoder = new OccupancyGridEncoder( 4 );
+    private final ByteBuffer obs = ByteBuffer.allocateDirect( encoder.size() );
+
+    private int cell(int channel, int x, int y) {
+        return obs.get( encoder.offsetOf( channel, x, y ) ) & 0xff;
+    }
+
+    @Test
+    public void encodesInitialPlayfield()
+    {
+        final GameState state = new GameState();
+        encoder.encode( state, obs, 0 );
+
+        assertEquals( 161, encoder.getColumns() );
+        assertEquals( 121, encoder.getRows() );
+        assertEquals( 255, cell( OccupancyGridEncoder.BORDER, 0, 0 ) );
+        assertEquals( 255, cell( OccupancyGridEncoder.BORDER, 320, 480 ) );
+        assertEquals( 255, cell( OccupancyGridEncoder.BORDER, 640, 240 ) );
+        assertEquals( 0, cell( OccupancyGridEncoder.BORDER, 320, 240 ) );
+        assertEquals( 0, cell( OccupancyGridEncoder.CLAIMED, 320, 240 ) );
+        assertEquals( 255, cell( OccupancyGridEncoder.PLAYER, 0, 0 ) );
+        assertEquals( 0, cell( OccupancyGridEncoder.PLAYER, 8, 0 ) );
+
+        final QuixLine quix = state.getQuix().getLines().get( 0 );
+        assertEquals( 255, cell( OccupancyGridEncoder.QUIX, quix.x0(), quix.y0() ) );
+        assertEquals( 255, cell( OccupancyGridEncoder.QUIX, quix.x1(), quix.y1() ) );
+    }
+
+    @Test
+    public void incrementalUpdatesMatchFullEncoding()
+    {
+        final GameState state = new GameState();
+        final ByteBuffer other = ByteBuffer.allocateDirect( encoder.size() * 2 );
+        final RandomInput input = new RandomInput( 1, 15 );
+
+        boolean claimed = false;
+        boolean drawn = false;
+        for ( int tick = 0 ; tick < 1500 ; tick++ )
+        {
+            if ( state.gameOver ) {
+                state.restart();
+            }
+            state.step( input.next() );
+            drawn |= state.isDrawingPoly();
+            claimed |= state.getClaimedArea().getClaimedCount() > 0;
+
+            // mostly the same buffer (only dirty cells get written), sometimes a different place
+            if ( tick % 100 == 60 ) {
+                encoder.encode( state, other, encoder.size() );
+            } else {
+                encoder.encode( state, obs, 0 );
+            }
+
+            if ( tick % 25 == 0 )
+            {
+                final ByteBuffer expected = ByteBuffer.allocate( encoder.size() );
+                new OccupancyGridEncoder( 4 ).encode( state, expected, 0 );
+                assertEquals( "Tick " + tick, expected, obs );
+            }
+        }
+        assertTrue( drawn );
+        assertTrue( claimed );
+    }
+
+    @Test
+    public void detectsRestoredGame()
+    {
+        final GameState state = new GameState();
+        final GameStateSnapshot start = state.snapshot();
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            state.step( Controls.RIGHT );
+        }
+        for ( int i = 0 ; i < 20 ; i++ ) {
+            state.step( Controls.DOWN | Controls.FAST );
+        }
+        encoder.encode( state, obs, 0 );
+        assertEquals( 255, cell( OccupancyGridEncoder.TRAIL, 200, 20 ) );
+
+        state.restore( start );
+        encoder.encode( state, obs, 0 );
+        assertEquals( 0, cell( OccupancyGridEncoder.TRAIL, 200, 20 ) );
+        assertEquals( 255, cell( OccupancyGridEncoder.PLAYER, 0, 0 ) );
+    }
+}
@@ -0,0 +1,127 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OrthogonalLineIndexTest
+{
+    private final OrthogonalLineIndex index = new OrthogonalLineIndex();
+
+    private static List<Line> randomLines(Random rnd, int count)
+    {
+        final List<Line> result = new ArrayList<>();
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            final int x = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+            final int y = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+            if ( rnd.nextBoolean() ) {
+                result.add( new Line( x, y, Math.min( GameState.PLAYFIELD_WIDTH, x + rnd.nextInt( 100 ) ), y ) );
+            } else {
+                result.add( new Line( x, y, x, Math.min( GameState.PLAYFIELD_HEIGHT, y + rnd.nextInt( 100 ) ) ) );
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void pointQueriesMatchBruteForce()
+    {
+        final Random rnd = new Random( 42 );
+        final List<Line> lines = randomLines( rnd, 300 );
+        lines.forEach( index::add );
+
+        for ( int i = 0 ; i < 10000 ; i++ )
+        {
+            final int x = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+            final int y = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+            final Line actual = index.getLine( x, y );
+            if ( actual == null ) {
+                assertTrue( lines.stream().noneMatch( l -> l.contains( x, y ) ) );
+            } else {
+                assertTrue( actual.contains( x, y ) );
+            }
+        }
+    }
+
+    @Test
+    public void segmentQueriesMatchBruteForce()
+    {
+        final Random rnd = new Random( 43 );
+        final List<Line> lines = randomLines( rnd, 300 );
+        lines.forEach( index::add );
+
+        for ( int i = 0 ; i < 10000 ; i++ )
+        {
+            // diagonal, roughly the size of a quix line
+            final int x0 = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+            final int y0 = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+            final Line query = new Line( x0, y0, x0 + 1 + rnd.nextInt( 25 ), y0 + 1 + rnd.nextInt( 25 ) );
+
+            final Line actual = index.intersects( query );
+            if ( actual == null ) {
+                assertTrue( lines.stream().noneMatch( l -> l.intersects( query ) ) );
+            } else {
+                assertTrue( actual.intersects( query ) );
+            }
+        }
+    }
+
+    @Test
+    public void orthogonalSegmentQueries()
+    {
+        final Line horizontal = new Line( 100, 100, 200, 100 );
+        final Line vertical = new Line( 300, 50, 300, 150 );
+        index.add( horizontal );
+        index.add( vertical );
+
+        assertSame( horizontal, index.intersects( 150, 50, 150, 150 ) );
+        assertSame( horizontal, index.intersects( 100, 0, 100, 100 ) );
+        assertSame( vertical, index.intersects( 250, 100, 350, 100 ) );
+        assertNull( index.intersects( 250, 50, 250, 150 ) );
+        assertNull( index.intersects( 150, 101, 150, 300 ) );
+        assertNull( index.intersects( 201, 99, 299, 99 ) );
+    }
+
+    @Test
+    public void updateMovesLineToNewInterval()
+    {
+        final LineCollection col = new LineCollection( new LineRaster( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT ), null );
+        final Line line = new Line( 100, 100, 300, 100 );
+        col.add( line );
+
+        final Node middle = col.split( line, 200, 100 );
+        final Line newLine = middle.right;
+        assertSame( newLine, col.intersects( 290, 0, 290, 200 ) );
+        assertSame( line, col.intersects( 110, 0, 110, 200 ) );
+
+        col.clear();
+        assertNull( col.intersects( 290, 0, 290, 200 ) );
+    }
+
+    @Test
+    public void removedLinesAreNotFound()
+    {
+        final Line a = new Line( 10, 10, 10, 100 );
+        final Line b = new Line( 10, 50, 10, 200 );
+        index.add( a );
+        index.add( b );
+        index.remove( a );
+
+        assertSame( b, index.getLine( 10, 60 ) );
+        assertNull( index.getLine( 10, 20 ) );
+        index.remove( a );
+        index.remove( b );
+        assertNull( index.getLine( 10, 60 ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDiagonalLines()
+    {
+        index.add( new Line( 0, 0, 10, 10 ) );
+    }
+}
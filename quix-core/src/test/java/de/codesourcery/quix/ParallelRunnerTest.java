@@ -0,0 +1,44 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelRunnerTest
+{
+    private static final long TICKS = 500;
+
+    @Test
+    public void parallelGamesDoNotAffectEachOther() throws IOException
+    {
+        final List<ParallelRunner.Result> results = ParallelRunner.run( 4, TICKS, 42, 2 );
+        assertEquals( 4, results.size() );
+
+        for ( int i = 0 ; i < results.size() ; i++ )
+        {
+            final ParallelRunner.Result result = results.get( i );
+            assertEquals( 42 + i, result.seed );
+            assertEquals( TICKS, result.ticks );
+
+            final GameState sequential = new GameState( result.seed );
+            HeadlessRunner.simulate( sequential, TICKS, result.seed, null );
+            assertTrue( "Seed " + result.seed, sequential.snapshot().contentEquals( result.state.snapshot() ) );
+        }
+    }
+
+    @Test
+    public void defaultSeedMatchesDefaultGame()
+    {
+        final GameState seeded = new GameState( GameState.RANDOM_SEED );
+        final GameState game = new GameState();
+        for ( int i = 0 ; i < 200 ; i++ )
+        {
+            seeded.step( Controls.RIGHT );
+            game.step( Controls.RIGHT );
+        }
+        assertTrue( game.snapshot().contentEquals( seeded.snapshot() ) );
+    }
+}
@@ -0,0 +1,146 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProximityIndexTest
+{
+    private final ProximityIndex index = new ProximityIndex( GameState.PLAYFIELD_WIDTH, GameState.PLAYFIELD_HEIGHT, LineGrid.DEFAULT_CELL_SIZE );
+
+    private final List<Line> lines = new ArrayList<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    private void setupRandomLines(Random rnd, int count)
+    {
+        Node previous = null;
+        for ( int i = 0 ; i < count ; i++ )
+        {
+            // every other line shares a node with the previous one
+            final Node n0 = previous != null && ( i & 1 ) != 0 ? previous :
+                new Node( rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 ), rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 ) );
+            final Node n1 = new Node( n0.x + rnd.nextInt( 121 ) - 60, n0.y + rnd.nextInt( 121 ) - 60 );
+            if ( n0 != previous ) {
+                nodes.add( n0 );
+            }
+            nodes.add( n1 );
+            final Line line = new Line( n0, n1 );
+            lines.add( line );
+            index.add( line );
+            previous = n1;
+        }
+    }
+
+    @Test
+    public void nearestMatchesBruteForce()
+    {
+        final Random rnd = new Random( 42 );
+        setupRandomLines( rnd, 300 );
+
+        final int k = 5;
+        final Line[] foundLines = new Line[k];
+        final Node[] foundNodes = new Node[k];
+        final float[] dist2 = new float[k];
+        final float[] expectedLines = new float[ lines.size() ];
+        final float[] expectedNodes = new float[ nodes.size() ];
+        for ( int i = 0 ; i < 2000 ; i++ )
+        {
+            // include points outside of the grid
+            final float x = rnd.nextFloat() * ( GameState.PLAYFIELD_WIDTH + 200 ) - 100;
+            final float y = rnd.nextFloat() * ( GameState.PLAYFIELD_HEIGHT + 200 ) - 100;
+            final float maxDistance = ( i & 1 ) == 0 ? Float.POSITIVE_INFINITY : 40;
+
+            for ( int j = 0 ; j < lines.size() ; j++ ) {
+                final Line l = lines.get( j );
+                expectedLines[j] = LinAlg.dist2ToSegment( x, y, l.x0(), l.y0(), l.x1(), l.y1() );
+            }
+            Arrays.sort( expectedLines );
+            int found = index.nearestLines( x, y, k, maxDistance, foundLines, dist2 );
+            int expectedCount = 0;
+            while ( expectedCount < k && expectedLines[expectedCount] <= maxDistance * maxDistance ) {
+                expectedCount++;
+            }
+            assertEquals( expectedCount, found );
+            assertArrayEquals( Arrays.copyOf( expectedLines, found ), Arrays.copyOf( dist2, found ), 0 );
+
+            for ( int j = 0 ; j < nodes.size() ; j++ ) {
+                expectedNodes[j] = LinAlg.dist2( x, y, nodes.get( j ).x, nodes.get( j ).y );
+            }
+            Arrays.sort( expectedNodes );
+            found = index.nearestNodes( x, y, k, maxDistance, foundNodes, dist2 );
+            expectedCount = 0;
+            while ( expectedCount < k && expectedNodes[expectedCount] <= maxDistance * maxDistance ) {
+                expectedCount++;
+            }
+            assertEquals( expectedCount, found );
+            assertArrayEquals( Arrays.copyOf( expectedNodes, found ), Arrays.copyOf( dist2, found ), 0 );
+            for ( int j = 1 ; j < found ; j++ ) {
+                assertNotSame( foundNodes[j - 1], foundNodes[j] );
+            }
+        }
+    }
+
+    @Test
+    public void withinMatchesBruteForce()
+    {
+        final Random rnd = new Random( 43 );
+        setupRandomLines( rnd, 300 );
+
+        final List<Line> foundLines = new ArrayList<>();
+        final List<Node> foundNodes = new ArrayList<>();
+        for ( int i = 0 ; i < 1000 ; i++ )
+        {
+            final float x = rnd.nextFloat() * GameState.PLAYFIELD_WIDTH;
+            final float y = rnd.nextFloat() * GameState.PLAYFIELD_HEIGHT;
+            final float radius = rnd.nextFloat() * 100;
+
+            foundLines.clear();
+            final int lineCount = index.linesWithin( x, y, radius, foundLines );
+            assertEquals( lineCount, foundLines.size() );
+            final List<Line> expectedLines = new ArrayList<>();
+            for ( Line l : lines ) {
+                if ( LinAlg.dist2ToSegment( x, y, l.x0(), l.y0(), l.x1(), l.y1() ) <= radius * radius ) {
+                    expectedLines.add( l );
+                }
+            }
+            assertEquals( expectedLines.size(), foundLines.size() );
+            assertTrue( foundLines.containsAll( expectedLines ) );
+
+            foundNodes.clear();
+            final int nodeCount = index.nodesWithin( x, y, radius, foundNodes );
+            assertEquals( nodeCount, foundNodes.size() );
+            final List<Node> expectedNodes = new ArrayList<>();
+            for ( Node n : nodes ) {
+                if ( LinAlg.dist2( x, y, n.x, n.y ) <= radius * radius ) {
+                    expectedNodes.add( n );
+                }
+            }
+            assertEquals( expectedNodes.size(), foundNodes.size() );
+            assertTrue( foundNodes.containsAll( expectedNodes ) );
+        }
+    }
+
+    @Test
+    public void collectionKeepsIndexUpToDate()
+    {
+        final LineCollection col = new LineCollection( null, null, index );
+        final Line line = new Line( 100, 100, 300, 100 );
+        col.add( line );
+        assertSame( line.node1, index.nearestNode( 290, 110, 50 ) );
+
+        final Node middle = col.split( line, 200, 100 );
+        assertSame( middle, index.nearestNode( 210, 110, 50 ) );
+        assertSame( line, index.nearestLine( 150, 110, 50 ) );
+        assertSame( middle.right, index.nearestLine( 250, 110, 50 ) );
+        assertNull( index.nearestLine( 250, 200, 50 ) );
+
+        col.clear();
+        assertNull( index.nearestLine( 150, 110, Float.POSITIVE_INFINITY ) );
+        assertNull( index.nearestNode( 150, 110, Float.POSITIVE_INFINITY ) );
+    }
+}
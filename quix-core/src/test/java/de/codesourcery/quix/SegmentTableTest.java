@@ -0,0 +1,77 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SegmentTableTest
+{
+    private final SegmentTable table = new SegmentTable();
+
+    private static Line randomLine(Random rnd, int maxLength)
+    {
+        final int x = rnd.nextInt( GameState.PLAYFIELD_WIDTH + 1 );
+        final int y = rnd.nextInt( GameState.PLAYFIELD_HEIGHT + 1 );
+        return new Line( x, y, x + rnd.nextInt( 2 * maxLength + 1 ) - maxLength, y + rnd.nextInt( 2 * maxLength + 1 ) - maxLength );
+    }
+
+    @Test
+    public void firstHitMatchesBruteForce()
+    {
+        final Random rnd = new Random( 42 );
+        final List<Line> lines = new ArrayList<>();
+        for ( int i = 0 ; i < 500 ; i++ )
+        {
+            final Line line = randomLine( rnd, 50 );
+            lines.add( line );
+            table.add( line );
+        }
+
+        for ( int i = 0 ; i < 2000 ; i++ )
+        {
+            final Line query = randomLine( rnd, 25 );
+            int expected = -1;
+            for ( int j = 0 ; j < lines.size() && expected == -1 ; j++ ) {
+                if ( lines.get( j ).intersects( query ) ) {
+                    expected = j;
+                }
+            }
+            final int actual = table.firstHit( query );
+            assertEquals( expected, actual );
+            if ( actual != -1 ) {
+                assertSame( lines.get( actual ), table.getLine( actual ) );
+                // continuing after a hit finds the next one
+                final int next = table.firstHit( query.x0(), query.y0(), query.x1(), query.y1(), actual + 1 );
+                assertTrue( next == -1 || ( next > actual && lines.get( next ).intersects( query ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void updateAndClear()
+    {
+        final Line line = new Line( 100, 100, 300, 100 );
+        final Line other = new Line( 250, 50, 250, 60 );
+        table.add( line );
+        table.add( other );
+        assertEquals( 0, table.firstHit( 250, 0, 250, 200, 0 ) );
+
+        line.set( 100, 100, 200, 100 );
+        table.update( line );
+        assertEquals( 200, table.getX1( 0 ) );
+        assertEquals( 1, table.firstHit( 250, 0, 250, 200, 0 ) );
+
+        // unknown lines are ignored
+        table.update( new Line( 0, 0, 10, 10 ) );
+        assertEquals( 2, table.size() );
+
+        table.clear();
+        assertEquals( 0, table.size() );
+        assertEquals( -1, table.firstHit( 250, 0, 250, 200, 0 ) );
+        assertEquals( -1, table.getRow( line ) );
+    }
+}
@@ -0,0 +1,159 @@
+package de.codesourcery.quix;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SharedMemoryBridgeTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 60_000)
+    public void clientSeesSameResultsAsLocalEnvironments() throws Exception
+    {
+        final int count = 3;
+        final Path file = folder.newFile( "bridge" ).toPath();
+        try ( VectorEnvironment environment = new VectorEnvironment( count, 2, StateVectorEncoder::new ) )
+        {
+            final SharedMemoryBridge bridge = new SharedMemoryBridge( file, environment );
+            final Thread server = new Thread( bridge::run, "bridge" );
+            server.start();
+
+            final GameEnvironment[] local = new GameEnvironment[ count ];
+            final ByteBuffer expected = ByteBuffer.allocate( new StateVectorEncoder().size() ).order( ByteOrder.LITTLE_ENDIAN );
+            try ( SharedMemoryClient client = new SharedMemoryClient( file ) )
+            {
+                assertEquals( count, client.getCount() );
+                assertEquals( expected.capacity(), client.getObservationSize() );
+
+                for ( int i = 0 ; i < count ; i++ )
+                {
+                    local[i] = new GameEnvironment( new StateVectorEncoder() );
+                    local[i].reset( 100 + i, expected );
+                    client.requestReset( i, 100 + i );
+                }
+                client.reset();
+                assertObservation( client, count - 1, expected );
+
+                final RandomInput[] inputs = new RandomInput[ count ];
+                for ( int i = 0 ; i < count ; i++ ) {
+                    inputs[i] = new RandomInput( 42 + i, 15 );
+                }
+                final int[] actions = new int[ count ];
+                for ( int tick = 0 ; tick < 300 ; tick++ )
+                {
+                    for ( int i = 0 ; i < count ; i++ )
+                    {
+                        actions[i] = inputs[i].next();
+                        client.setAction( i, actions[i] );
+                    }
+                    client.step();
+                    for ( int i = 0 ; i < count ; i++ )
+                    {
+                        assertEquals( local[i].step( actions[i], expected ), client.getReward( i ), 0 );
+                        assertEquals( local[i].isDone(), client.isDone( i ) );
+                        assertObservation( client, i, expected );
+                    }
+                }
+
+                // resetting a single environment leaves the others alone
+                final float before = client.getObservations().getFloat( 0 );
+                local[1].reset( 7, expected );
+                client.requestReset( 1, 7 );
+                client.reset();
+                assertObservation( client, 1, expected );
+                assertEquals( before, client.getObservations().getFloat( 0 ), 0 );
+            }
+            // closing the client shuts down the bridge
+            server.join();
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void rejectsUnknownCommands() throws Exception
+    {
+        final Path file = folder.newFile( "bridge" ).toPath();
+        try ( VectorEnvironment environment = new VectorEnvironment( 1, 1, StateVectorEncoder::new ) )
+        {
+            final SharedMemoryBridge bridge = new SharedMemoryBridge( file, environment );
+            final Thread server = new Thread( bridge::run, "bridge" );
+            server.start();
+            try ( SharedMemoryClient client = new SharedMemoryClient( file ) )
+            {
+                try
+                {
+                    client.request( 42 );
+                    fail( "Should have failed" );
+                }
+                catch (IllegalStateException e) {
+                    // ok
+                }
+                // bridge is still serving
+                client.requestReset( 0, 1 );
+                client.reset();
+                client.setAction( 0, Controls.RIGHT );
+                client.step();
+            }
+            server.join();
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void failingRequestClosesBridge() throws Exception
+    {
+        final Path file = folder.newFile( "bridge" ).toPath();
+        try ( VectorEnvironment environment = new VectorEnvironment( 1, 1, StateVectorEncoder::new ) )
+        {
+            final SharedMemoryBridge bridge = new SharedMemoryBridge( file, environment );
+            final Thread server = new Thread( () -> {
+                try {
+                    bridge.run();
+                } catch (IllegalStateException e) {
+                    // expected, stepping with an invalid action
+                }
+            }, "bridge" );
+            server.start();
+            try ( SharedMemoryClient client = new SharedMemoryClient( file ) )
+            {
+                client.requestReset( 0, 1 );
+                client.reset();
+                client.setAction( 0, Controls.ALL + 1 );
+                try
+                {
+                    client.step();
+                    fail( "Should have failed" );
+                }
+                catch (IllegalStateException e) {
+                    assertTrue( e.getMessage(), e.getMessage().contains( "closed" ) );
+                }
+            }
+            server.join();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUninitializedFile() throws IOException
+    {
+        final Path file = folder.newFile( "empty" ).toPath();
+        Files.write( file, new byte[ 256 ] );
+        new SharedMemoryClient( file );
+    }
+
+    private static void assertObservation(SharedMemoryClient client, int env, ByteBuffer expected)
+    {
+        final ByteBuffer actual = client.getObservations();
+        final int offset = env * client.getObservationSize();
+        for ( int i = 0 ; i < expected.capacity() ; i++ ) {
+            assertEquals( "Byte " + i + " of environment " + env, expected.get( i ), actual.get( offset + i ) );
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceBufferTest
+{
+    @Test
+    public void drainsEventsInRecordingOrder()
+    {
+        final TraceBuffer buffer = new TraceBuffer( 4 );
+        for ( int i = 0 ; i < 3 ; i++ ) {
+            assertTrue( buffer.record( TraceEvent.PATH_FOUND, i, i, 0, 0, 0, 0, 0, 0, 0 ) );
+        }
+        final List<String> drained = new ArrayList<>();
+        assertEquals( 3, buffer.drain( (event, timestamp, args, offset) ->
+        {
+            final StringBuilder out = new StringBuilder();
+            event.format( args, offset, out );
+            drained.add( timestamp + ":" + out );
+        } ) );
+        assertEquals( List.of( "0:Found path with 0 nodes", "1:Found path with 1 nodes", "2:Found path with 2 nodes" ), drained );
+        assertEquals( 0, buffer.drain( (event, timestamp, args, offset) -> fail() ) );
+    }
+
+    @Test
+    public void dropsEventsWhenFull()
+    {
+        final TraceBuffer buffer = new TraceBuffer( 2 );
+        assertTrue( buffer.record( TraceEvent.PATH_FOUND, 0, 1, 0, 0, 0, 0, 0, 0, 0 ) );
+        assertTrue( buffer.record( TraceEvent.PATH_FOUND, 0, 2, 0, 0, 0, 0, 0, 0, 0 ) );
+        assertFalse( buffer.record( TraceEvent.PATH_FOUND, 0, 3, 0, 0, 0, 0, 0, 0, 0 ) );
+        assertEquals( 1, buffer.getDroppedCount() );
+
+        assertEquals( 2, buffer.drain( (event, timestamp, args, offset) -> {} ) );
+        assertTrue( buffer.record( TraceEvent.PATH_FOUND, 0, 4, 0, 0, 0, 0, 0, 0, 0 ) );
+        final int[] value = new int[1];
+        assertEquals( 1, buffer.drain( (event, timestamp, args, offset) -> value[0] = args[offset] ) );
+        assertEquals( 4, value[0] );
+    }
+
+    @Test
+    public void formatsTypedArguments()
+    {
+        final StringBuilder out = new StringBuilder();
+        TraceEvent.ENEMY_BLOCKED.format( new int[] { 7, Direction.UP.ordinal(), 2, 1 }, 0, out );
+        assertEquals( "Enemy #7 can not continue UP, got 2 exits and picked #1", out.toString() );
+
+        out.setLength( 0 );
+        TraceEvent.POLY_CONTAINS.format( new int[] { -1, 3, 1, 2, 1 }, 1, out );
+        assertEquals( "Polygon #3 contains (1,2): true", out.toString() );
+    }
+
+    @Test
+    public void concurrentProducersLoseNoEvents() throws InterruptedException
+    {
+        final int producers = 4;
+        final int eventsPerProducer = 20_000;
+        final TraceBuffer buffer = new TraceBuffer( 1024 );
+
+        final Thread[] threads = new Thread[producers];
+        for ( int p = 0 ; p < producers ; p++ )
+        {
+            final int producer = p;
+            threads[p] = new Thread( () ->
+            {
+                for ( int i = 0 ; i < eventsPerProducer ; i++ )
+                {
+                    while ( ! buffer.record( TraceEvent.PATH_FOUND, 0, producer, i, 0, 0, 0, 0, 0, 0 ) ) {
+                        Thread.onSpinWait();
+                    }
+                }
+            } );
+            threads[p].start();
+        }
+
+        final int[] next = new int[producers];
+        int total = 0;
+        while ( total < producers * eventsPerProducer )
+        {
+            total += buffer.drain( (event, timestamp, args, offset) ->
+            {
+                // events of each producer must arrive in order and complete
+                assertEquals( next[ args[offset] ]++, args[offset + 1] );
+            } );
+        }
+        for ( Thread t : threads ) {
+            t.join();
+        }
+        for ( int count : next ) {
+            assertEquals( eventsPerProducer, count );
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package de.codesourcery.quix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TraceTest
+{
+    @Test
+    public void parsesLevel()
+    {
+        assertEquals( Trace.Level.INFO, Trace.parseLevel( null ) );
+        assertEquals( Trace.Level.DEBUG, Trace.parseLevel( "debug" ) );
+        assertEquals( Trace.Level.WARN, Trace.parseLevel( " WARN " ) );
+    }
+
+    @Test
+    public void fallsBackToInfoOnInvalidLevel()
+    {
+        assertEquals( Trace.Level.INFO, Trace.parseLevel( "VERBOSE" ) );
+        assertEquals( Trace.Level.INFO, Trace.parseLevel( "" ) );
+    }
+}
@@ -0,0 +1,178 @@
+package de.codesourcery.quix;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Actively renders the game on a dedicated thread using a page-flipping {@link BufferStrategy}.
+ *
+ * Unlike <code>repaint()</code>, which lets Swing decide when (and whether) to paint,
+ * every frame gets rendered and shown right away. By default a frame is rendered whenever
+ * the {@link GameLoop} publishes a new snapshot, optionally frames are rendered at a fixed
+ * rate instead (drawing the most recent snapshot).
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class GameCanvas extends Canvas
+{
+    // number of frames between frame statistics trace events
+    private static final int STATS_TRACE_INTERVAL = 256;
+
+    private final GameRenderer renderer;
+    private final int bufferCount;
+    private final long frameNanos;
+
+    private final FrameStats frameIntervals = new FrameStats( 256 );
+    private final FrameStats renderTimes = new FrameStats( 256 );
+
+    // most recent snapshot published by the game loop
+    private volatile FrameSnapshot snapshot;
+
+    // only accessed by the render thread
+    private long frameCount;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    /**
+     * Create canvas.
+     *
+     * @param renderer renderer to use, must not be used by any other thread
+     * @param bufferCount number of buffers (2 = double buffering, 3 = triple buffering)
+     * @param framesPerSecond fixed frame rate or 0 to render each new snapshot
+     */
+    public GameCanvas(GameRenderer renderer, int bufferCount, int framesPerSecond)
+    {
+        if ( bufferCount < 2 ) {
+            throw new IllegalArgumentException( "Need at least 2 buffers" );
+        }
+        if ( framesPerSecond < 0 ) {
+            throw new IllegalArgumentException( "Frames per second must be >= 0" );
+        }
+        this.renderer = renderer;
+        this.bufferCount = bufferCount;
+        this.frameNanos = framesPerSecond == 0 ? 0 : 1_000_000_000L / framesPerSecond;
+
+        // everything gets painted by the render thread
+        setIgnoreRepaint( true );
+        setFocusable( true );
+    }
+
+    /**
+     * Starts the render thread.
+     *
+     * Must be called on the EDT after the canvas has become displayable.
+     */
+    public synchronized void start()
+    {
+        if ( thread != null ) {
+            throw new IllegalStateException( "Already started" );
+        }
+        createBufferStrategy( bufferCount );
+        running = true;
+        thread = new Thread( this::run, "quix-render" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException
+    {
+        if ( thread == null ) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark( thread );
+        thread.join();
+        thread = null;
+    }
+
+    /**
+     * Hands a new snapshot to the render thread.
+     *
+     * Meant to be used as {@link GameLoop} listener, called by the simulation thread.
+     */
+    public void snapshotPublished(FrameSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+        final Thread t = thread;
+        if ( frameNanos == 0 && t != null ) {
+            LockSupport.unpark( t );
+        }
+    }
+
+    private void run()
+    {
+        final BufferStrategy strategy = getBufferStrategy();
+        long renderedTick = -1;
+        long deadline = System.nanoTime();
+        while ( running )
+        {
+            final FrameSnapshot snapshot = this.snapshot;
+            if ( snapshot == null || ( frameNanos == 0 && snapshot.getTick() == renderedTick ) )
+            {
+                // wait for the next snapshot (spurious wake-ups are harmless)
+                LockSupport.parkNanos( 100_000_000L );
+                continue;
+            }
+            if ( frameNanos != 0 )
+            {
+                final long now = System.nanoTime();
+                if ( now < deadline ) {
+                    LockSupport.parkNanos( deadline - now );
+                    continue;
+                }
+                deadline += frameNanos;
+                if ( deadline < now ) {
+                    // fell behind, don't try to catch up with a burst of frames
+                    deadline = now + frameNanos;
+                }
+            }
+            renderedTick = snapshot.getTick();
+            render( strategy, snapshot );
+        }
+    }
+
+    private void render(BufferStrategy strategy, FrameSnapshot snapshot)
+    {
+        final long start = System.nanoTime();
+        do
+        {
+            do
+            {
+                final Graphics2D gfx = (Graphics2D) strategy.getDrawGraphics();
+                try
+                {
+                    gfx.setColor( getBackground() == null ? Color.LIGHT_GRAY : getBackground() );
+                    gfx.fillRect( 0, 0, getWidth(), getHeight() );
+                    Main.applyPlayfieldTransform( gfx, getWidth(), getHeight() );
+                    renderer.draw( snapshot, gfx );
+                    renderer.drawFrameStats( frameIntervals, renderTimes, gfx );
+                }
+                finally
+                {
+                    gfx.dispose();
+                }
+            }
+            while ( strategy.contentsRestored() );
+            strategy.show();
+        }
+        while ( strategy.contentsLost() );
+
+        final long now = System.nanoTime();
+        renderTimes.record( now - start );
+        frameIntervals.frameFinished( now );
+
+        frameCount++;
+        if ( Trace.ENABLED && ( frameCount % STATS_TRACE_INTERVAL ) == 0 )
+        {
+            Trace.record( TraceEvent.FRAME_STATS,
+                Float.floatToRawIntBits( frameIntervals.getAverageNanos() / 1e6f ),
+                Float.floatToRawIntBits( frameIntervals.getPercentileNanos( 99 ) / 1e6f ),
+                Float.floatToRawIntBits( frameIntervals.getMaxNanos() / 1e6f ),
+                Float.floatToRawIntBits( renderTimes.getAverageNanos() / 1e6f ) );
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package de.codesourcery.quix;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renders {@link FrameSnapshot}s using Java2D.
+ *
+ * The settled part of the playfield (claimed area and lines) is rendered into
+ * an offscreen image that is only re-rendered when the snapshot's {@link FrameSnapshot.Playfield}
+ * changes, each frame just blits this image and draws the moving parts on top.
+ *
+ * Not thread-safe, must only be used by the thread doing the rendering.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class GameRenderer
+{
+    // extra space around the playfield so node markers and labels on the border fit into the cached image
+    private static final int LAYER_MARGIN = 32;
+
+    private Font gameOverFont;
+
+    private BufferedImage playfieldLayer;
+    private FrameSnapshot.Playfield layerPlayfield;
+
+    public void draw(FrameSnapshot snapshot, Graphics2D gfx)
+    {
+        final FrameSnapshot.Playfield playfield = snapshot.getPlayfield();
+
+        gfx.drawImage( getPlayfieldLayer( playfield, gfx ), -LAYER_MARGIN, -LAYER_MARGIN, null );
+
+        drawTrail(snapshot, gfx);
+        drawEnemies(snapshot, gfx);
+        drawQuix(snapshot, gfx);
+
+        gfx.setColor(Color.RED);
+        snapshot.visitPlayerLine( (x0, y0, x1, y1, node0, node1) -> gfx.drawLine( x0, y0, x1, y1 ) );
+
+        drawPlayer(snapshot, gfx);
+
+        if ( snapshot.isGameOver() )
+        {
+            final Font oldFont = gfx.getFont();
+            try
+            {
+                if ( gameOverFont == null ) {
+                    gameOverFont = gfx.getFont().deriveFont( Font.BOLD, 32f );
+                }
+                gfx.setColor( Color.RED );
+                gfx.setFont( gameOverFont );
+                gfx.drawString( "GAME OVER !!!", 100, 100 );
+            }
+            finally
+            {
+                gfx.setFont( oldFont );
+            }
+        }
+
+        gfx.setColor( Color.BLACK );
+        gfx.drawString("Entity @ "+snapshot.getPlayerX()+","+snapshot.getPlayerY(),20,20);
+        gfx.drawString("Score: "+snapshot.getScore(), 20, 30);
+        gfx.drawString("Area: "+playfield.getClaimedCount()+" ("+(int) playfield.getClaimedPercentage()+"%)" ,20, 40);
+    }
+
+    /**
+     * Draws frame statistics below the HUD.
+     *
+     * @param frameIntervals time between consecutive frames
+     * @param renderTimes time spent rendering each frame
+     */
+    public void drawFrameStats(FrameStats frameIntervals, FrameStats renderTimes, Graphics2D gfx)
+    {
+        gfx.setColor( Color.BLACK );
+        gfx.drawString( "Frame: "+frameIntervals, 20, 50 );
+        gfx.drawString( "Render: "+renderTimes, 20, 60 );
+    }
+
+    private BufferedImage getPlayfieldLayer(FrameSnapshot.Playfield playfield, Graphics2D target)
+    {
+        if ( playfieldLayer != null && layerPlayfield == playfield ) {
+            return playfieldLayer;
+        }
+        if ( playfieldLayer == null )
+        {
+            playfieldLayer = new BufferedImage( GameState.PLAYFIELD_WIDTH + 1 + 2 * LAYER_MARGIN,
+                GameState.PLAYFIELD_HEIGHT + 1 + 2 * LAYER_MARGIN, BufferedImage.TYPE_INT_ARGB );
+        }
+        final Graphics2D gfx = playfieldLayer.createGraphics();
+        try
+        {
+            // clear to transparent
+            gfx.setComposite( AlphaComposite.Clear );
+            gfx.fillRect( 0, 0, playfieldLayer.getWidth(), playfieldLayer.getHeight() );
+            gfx.setComposite( AlphaComposite.SrcOver );
+
+            gfx.setFont( target.getFont() );
+            gfx.setRenderingHints( target.getRenderingHints() );
+            gfx.translate( LAYER_MARGIN, LAYER_MARGIN );
+
+            drawClaimedArea( playfield, gfx );
+            drawBorder( playfield, gfx );
+            drawAreas( playfield, gfx );
+
+            if ( playfield.hasLastPath() )
+            {
+                gfx.setColor( Color.ORANGE );
+                playfield.visitLastPath( (x0, y0, x1, y1, node0, node1) -> gfx.drawLine( x0, y0, x1, y1 ) );
+            }
+        }
+        finally
+        {
+            gfx.dispose();
+        }
+        layerPlayfield = playfield;
+        return playfieldLayer;
+    }
+
+    private void drawClaimedArea(FrameSnapshot.Playfield playfield, Graphics2D gfx)
+    {
+        gfx.setColor( Color.RED );
+        playfield.visitClaimedSpans( (y, x0, x1) -> gfx.fillRect( x0, y, x1 - x0 + 1, 1 ) );
+    }
+
+    private void drawPlayer(FrameSnapshot snapshot, Graphics2D gfx) {
+        // draw player
+        final float radius = GameState.ENEMY_RADIUS;
+        gfx.setColor( Color.BLUE );
+        gfx.fillArc( snapshot.getPlayerX()-(int) radius/2,
+                     snapshot.getPlayerY() - (int) radius/2 , (int) radius, (int) radius, 0,360 );
+    }
+
+    private void drawQuix(FrameSnapshot snapshot, Graphics2D gfx)
+    {
+        gfx.setColor( Color.BLUE );
+        snapshot.visitQuixLines( (x0, y0, x1, y1, node0, node1) -> gfx.drawLine( x0, y0, x1, y1 ) );
+    }
+
+    public void drawEnemies(FrameSnapshot snapshot, Graphics2D gfx)
+    {
+        snapshot.visitEnemies( (id, x, y, direction) -> drawEnemy( id, x, y, direction, gfx ) );
+    }
+
+    private void drawEnemy(long id, int x, int y, Direction direction, Graphics2D gfx)
+    {
+        int w = GameState.ENEMY_RADIUS;
+        int h = GameState.ENEMY_RADIUS;
+        gfx.setColor(Color.RED);
+        gfx.fillArc( x - (w/2) , y - (h/2) , w, h, 0 , 360 );
+        gfx.setColor( Color.BLACK );
+        gfx.drawString( "Enemy #"+id+" heading "+direction+"  @ ("+x+","+y+")" , x , y );
+    }
+
+    public void drawBorder(FrameSnapshot.Playfield playfield, Graphics2D gfx)
+    {
+        gfx.setColor(Color.BLUE);
+        playfield.visitBorderLines( (x0, y0, x1, y1, node0, node1) -> gfx.drawLine( x0, y0, x1, y1 ) );
+    }
+
+    public void drawAreas(FrameSnapshot.Playfield playfield, Graphics2D gfx)
+    {
+        gfx.setColor(Color.WHITE);
+        playfield.visitInteriorLines( (x0, y0, x1, y1, node0, node1) ->
+            GeometryRenderer.draw( x0, y0, x1, y1, node0, node1, gfx, true ) );
+    }
+
+    private void drawTrail(FrameSnapshot snapshot, Graphics2D gfx)
+    {
+        gfx.setColor(Color.WHITE);
+        snapshot.visitTrail( (x0, y0, x1, y1, node0, node1) ->
+            GeometryRenderer.draw( x0, y0, x1, y1, node0, node1, gfx, true ) );
+        // the end of the segment being drawn moves with the player, so no node markers
+        snapshot.visitCurrentTrailLine( (x0, y0, x1, y1, node0, node1) ->
+            GeometryRenderer.draw( x0, y0, x1, y1, node0, node1, gfx, false ) );
+        gfx.drawString("Mode: "+snapshot.getMode(),15,15);
+    }
+}
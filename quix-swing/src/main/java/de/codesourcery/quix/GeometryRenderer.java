@@ -0,0 +1,157 @@
+package de.codesourcery.quix;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Draws lines, line collections and polygons using Java2D.
+ *
+ * Not thread-safe, must only be used by the thread doing the rendering.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public final class GeometryRenderer
+{
+    // used to pick a 'random' (but stable) location for node labels
+    private static final Random RND = new Random(0xdeadbeef);
+
+    private GeometryRenderer() {
+    }
+
+    public static void draw(Line line, Graphics2D gfx) {
+        draw(line, gfx,false);
+    }
+
+    public static void draw(Line line, Graphics2D gfx,boolean drawNodes)
+    {
+        draw( line.x0(), line.y0(), line.x1(), line.y1(), line.node0.id, line.node1.id, gfx, drawNodes );
+    }
+
+    /**
+     * Draws a line given by its endpoints.
+     *
+     * @param node0 ID of the node at (x0,y0), only used when drawing nodes
+     * @param node1 ID of the node at (x1,y1), only used when drawing nodes
+     */
+    public static void draw(int x0, int y0, int x1, int y1, int node0, int node1, Graphics2D gfx, boolean drawNodes)
+    {
+        gfx.drawLine( x0, y0, x1, y1 );
+
+        if ( drawNodes )
+        {
+            final Color current = gfx.getColor();
+
+            gfx.setColor( Color.BLUE );
+            RND.setSeed( node0 );
+            drawNode( x0, y0, node0, RND.nextInt( 4 ) , gfx );
+
+            gfx.setColor( Color.RED);
+            RND.setSeed( node1 );
+            drawNode( x1, y1, node1, RND.nextInt( 4 ) , gfx );
+
+            gfx.setColor(current);
+        }
+    }
+
+    private static void drawNode(int nodeX, int nodeY, int nodeId, int quadrant, Graphics2D gfx)
+    {
+        int x=nodeX,y=nodeY;
+        final int radius = 12;
+        gfx.fillArc( x - radius / 2, y - radius / 2, radius, radius, 0, 360 );
+
+        /*
+         * 0 | 1
+         * --+--
+         * 3 | 2
+         */
+        switch( quadrant )
+        {
+            case 0:
+                x -= radius;
+                y -= radius;
+                break;
+            case 1:
+                x += radius;
+                y -= radius;
+                break;
+            case 2:
+                x += radius;
+                y += radius;
+                break;
+            case 3:
+                x -= radius;
+                y += radius;
+                break;
+            default:
+                throw new IllegalStateException( "Unexpected value: " + quadrant );
+        }
+        gfx.drawString( "#"+nodeId+" ("+nodeX+","+nodeY+")", x, y );
+    }
+
+    public static void draw(LineCollection collection, Graphics2D gfx, Color lineColor)
+    {
+        draw(collection, gfx, lineColor, null, false);
+    }
+
+    public static void draw(LineCollection collection, Graphics2D gfx, Color lineColor, Color fillColor, boolean drawNodes)
+    {
+        final List<Line> lines = collection.lines;
+        if ( fillColor != null && Poly.isValidPolygon(lines) )
+        {
+            gfx.setColor( fillColor );
+
+            final List<Node> points = Poly.getPoints( lines );
+            final int[] x = new int[points.size()];
+            final int[] y = new int[points.size()];
+            for (int i = 0, len = points.size(); i < len; i++)
+            {
+                final Node n = points.get( i );
+                x[i] = n.x;
+                y[i] = n.y;
+            }
+            gfx.fillPolygon(x,y,x.length);
+        }
+        gfx.setColor( lineColor );
+        for ( Line l : lines )
+        {
+            l.assertValid(); // TODO: Remove debug code
+            draw( l, gfx, drawNodes );
+        }
+    }
+
+    public static void draw(Poly poly, Graphics2D gfx)
+    {
+        final List<Line> edges = poly.edges;
+        if ( edges.isEmpty() ) {
+            return;
+        }
+        List<Node> nodes = new ArrayList<>();
+        nodes.add( edges.get(0).node0 );
+        nodes.add( edges.get(0).node1 );
+
+        for (int i = 1, edgesSize = edges.size(); i < edgesSize; i++)
+        {
+            final Line node = edges.get( i );
+            if ( ! nodes.contains( node.node0 ) ) {
+                nodes.add( node.node0 );
+            }
+            if ( ! nodes.contains( node.node0 ) ) {
+                nodes.add( node.node0 );
+            }
+        }
+        final int[] x = new int[ nodes.size() ];
+        final int[] y = new int[ nodes.size() ];
+        int ptr = 0;
+        for ( var n : nodes ) {
+            x[ptr] = n.x;
+            y[ptr++] = n.y;
+        }
+        gfx.setColor( Color.RED );
+        gfx.fillPolygon( x,y,x.length );
+        gfx.setColor( Color.WHITE );
+        gfx.drawPolygon( x,y,x.length );
+    }
+}
@@ -73,7 +73,7 @@ public class IntersectionExample extends JFrame
                         start = new Point(e.getPoint());
                         end = new Point(e.getPoint());
                     } else {
-                        lines.add( new Line( start, e.getPoint()) );
+                        lines.add( new Line( start.x, start.y, e.getX(), e.getY() ) );
                         start = end = null;
                     }
                     repaint();
@@ -148,7 +148,7 @@ public class IntersectionExample extends JFrame
         private void draw(Line line, Color color,Graphics2D g)
         {
             g.setColor(  color  );
-            line.draw(g);
+            GeometryRenderer.draw( line, g );
         }
     }
 }
@@ -87,7 +87,7 @@ public class IntersectionTest extends JFrame
                     } else {
                         g.setColor( Color.GREEN );
                     }
-                    l.draw( (Graphics2D) g );
+                    GeometryRenderer.draw( l, (Graphics2D) g );
                 }
 
                 if ( p0 != null ) {
@@ -0,0 +1,226 @@
+package de.codesourcery.quix;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.geom.AffineTransform;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Swing front-end.
+ *
+ * Rendering is selected at startup using system properties:
+ * <ul>
+ *     <li><code>quix.render</code> - <code>passive</code> (default) paints using <code>repaint()</code>,
+ *     <code>active</code> renders on a dedicated thread using a {@link GameCanvas}</li>
+ *     <li><code>quix.buffers</code> - number of buffers used for active rendering (default: 2)</li>
+ *     <li><code>quix.fps</code> - fixed frame rate for active rendering, default 0 renders each tick</li>
+ * </ul>
+ * Setting <code>quix.record</code> to a file name records the session so it can be replayed using {@link InputReplayer}.
+ *
+ * @author tobias.gierke@code-sourcery.de
+ */
+public class Main extends JFrame
+{
+    private static final int PLAYFIELD_XOFFSET = 10;
+    private static final int PLAYFIELD_YOFFSET = 10;
+
+    private static final boolean ACTIVE_RENDERING = "active".equalsIgnoreCase( System.getProperty( "quix.render", "passive" ) );
+
+    private final GameState gameState = new GameState();
+    private final GameRenderer renderer = new GameRenderer();
+    private final GameLoop gameLoop;
+    private final MyPanel panel;
+    private final GameCanvas canvas;
+
+    // frame statistics in passive mode, only accessed by the EDT
+    private final FrameStats frameIntervals = new FrameStats( 256 );
+    private final FrameStats renderTimes = new FrameStats( 256 );
+
+    // controls currently pressed, only accessed by the EDT
+    private int pressedControls;
+
+    public Main() throws IOException
+    {
+        super("Test");
+        setDefaultCloseOperation( JFrame.EXIT_ON_CLOSE );
+        setPreferredSize( new Dimension( GameState.PLAYFIELD_WIDTH+50, GameState.PLAYFIELD_HEIGHT+50) );
+
+        final Component view;
+        if ( ACTIVE_RENDERING )
+        {
+            panel = null;
+            canvas = new GameCanvas( renderer, Integer.getInteger( "quix.buffers", 2 ), Integer.getInteger( "quix.fps", 0 ) );
+            gameLoop = new GameLoop( gameState, GameLoop.DEFAULT_TICKS_PER_SECOND, canvas::snapshotPublished );
+            view = canvas;
+        }
+        else
+        {
+            canvas = null;
+            panel = new MyPanel();
+            gameLoop = new GameLoop( gameState, GameLoop.DEFAULT_TICKS_PER_SECOND, snapshot -> panel.repaint() );
+            view = panel;
+        }
+        view.addKeyListener( new InputHandler() );
+
+        final String recording = System.getProperty( "quix.record" );
+        if ( recording != null ) {
+            gameLoop.setRecorder( new InputRecorder( new FileOutputStream( recording ), GameLoop.DEFAULT_TICKS_PER_SECOND, gameState.getSeed() ) );
+        }
+        addWindowListener( new WindowAdapter()
+        {
+            @Override
+            public void windowClosing(WindowEvent e)
+            {
+                // flushes the recording (if any)
+                try
+                {
+                    gameLoop.stop();
+                }
+                catch (InterruptedException | IOException ex)
+                {
+                    ex.printStackTrace();
+                }
+            }
+        });
+
+        getContentPane().add( view );
+        pack();
+        setLocationRelativeTo( null );
+        setVisible( true );
+        view.requestFocusInWindow();
+
+        if ( canvas != null ) {
+            canvas.start();
+        }
+        // game state is owned by the simulation thread from now on
+        gameLoop.start();
+    }
+
+    /**
+     * Sets up the transformation that scales the playfield to the size of the view.
+     */
+    static void applyPlayfieldTransform(Graphics2D gfx, double width, double height)
+    {
+        final double scaleW = width / (GameState.PLAYFIELD_WIDTH*1.1);
+        final double scaleH = height / (GameState.PLAYFIELD_HEIGHT*1.1);
+
+        AffineTransform transform =
+            AffineTransform.getScaleInstance( scaleW, scaleH );
+        transform.translate( PLAYFIELD_XOFFSET, PLAYFIELD_YOFFSET );
+
+        gfx.setTransform( transform );
+    }
+
+    public static void main(String[] args) throws InvocationTargetException, InterruptedException
+    {
+        SwingUtilities.invokeAndWait( () ->
+        {
+            try
+            {
+                new Main();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException( e );
+            }
+        });
+    }
+
+    private final class InputHandler extends KeyAdapter
+    {
+        @Override
+        public void keyPressed(KeyEvent e)
+        {
+            if ( e.getKeyCode() == KeyEvent.VK_BACK_SPACE ) {
+                gameLoop.requestRestart();
+                return;
+            }
+            final int control = getControl( e );
+            // ignore auto-repeat
+            if ( control != Controls.NONE && ( pressedControls & control ) == 0 )
+            {
+                pressedControls |= control;
+                gameLoop.submitInput( control, true );
+            }
+        }
+
+        @Override
+        public void keyReleased(KeyEvent e)
+        {
+            if ( gameLoop.getSnapshot().isGameOver() )
+            {
+                if ( e.getKeyCode() == KeyEvent.VK_SPACE || e.getKeyCode() == KeyEvent.VK_ENTER )
+                {
+                    gameLoop.requestRestart();
+                    if ( pressedControls != Controls.NONE )
+                    {
+                        gameLoop.submitInput( pressedControls, false );
+                        pressedControls = Controls.NONE;
+                    }
+                }
+                return;
+            }
+            final int control = getControl( e );
+            if ( ( pressedControls & control ) != 0 )
+            {
+                pressedControls &= ~control;
+                gameLoop.submitInput( control, false );
+            }
+        }
+
+        private int getControl(KeyEvent e)
+        {
+            switch( e.getKeyCode() )
+            {
+                case KeyEvent.VK_SPACE: return Controls.FAST;
+                case KeyEvent.VK_UP:    return Controls.UP;
+                case KeyEvent.VK_DOWN:  return Controls.DOWN;
+                case KeyEvent.VK_LEFT:  return Controls.LEFT;
+                case KeyEvent.VK_RIGHT: return Controls.RIGHT;
+                default:
+                    return Controls.NONE;
+            }
+        }
+    }
+
+    private final class MyPanel extends JPanel {
+
+        public MyPanel()
+        {
+            setFocusable( true );
+        }
+
+        @Override
+        protected void paintComponent(Graphics g)
+        {
+            final long start = System.nanoTime();
+            final Graphics2D gfx = (Graphics2D) g;
+            super.paintComponent( gfx );
+
+            applyPlayfieldTransform( gfx, getWidth(), getHeight() );
+
+            // render game
+            renderer.draw( gameLoop.getSnapshot(), gfx );
+            renderer.drawFrameStats( frameIntervals, renderTimes, gfx );
+
+            Toolkit.getDefaultToolkit().sync();
+
+            final long now = System.nanoTime();
+            renderTimes.record( now - start );
+            frameIntervals.frameFinished( now );
+        }
+    }
+}
@@ -10,7 +10,6 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.HeadlessException;
-import java.awt.Rectangle;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -205,7 +204,7 @@ Node[ 5 , (420,299) ] = {}
                 if ( DRAW_HIGHLIGHTED_LINE && highlighted != null )
                 {
                     g.setColor( Color.GREEN);
-                    highlighted.draw( (Graphics2D) g );
+                    GeometryRenderer.draw( highlighted, (Graphics2D) g );
 
                     g.setColor( Color.BLACK );
                     g.setFont( g.getFont().deriveFont( Font.BOLD, 12f ) );
@@ -226,16 +225,16 @@ Node[ 5 , (420,299) ] = {}
                     } else {
                         g.setColor( colors[ p.id % colors.length ] );
                     }
-                    p.draw( (Graphics2D) g );
+                    GeometryRenderer.draw( p, (Graphics2D) g );
 
                     if ( DRAW_TRIANGLE_BB )
                     {
                     g.setColor( colors[ p.id % colors.length ] );
-                    final Rectangle bb = p.getBoundingBox();
+                    final BoundingBox bb = p.getBoundingBox();
                     g.drawRect( bb.x, bb.y, bb.width, bb.height );
 
-                    int cx = (int) bb.getCenterX();
-                    int cy = (int) bb.getCenterY();
+                    int cx = bb.getCenterX();
+                    int cy = bb.getCenterY();
                     g.drawString("Poly #"+p.id,cx,cy);
                     }
                 }
@@ -247,14 +246,11 @@ Node[ 5 , (420,299) ] = {}
                     return;
                 }
                 g.setColor( Color.BLACK );
-                lines.lineColor = Color.BLACK;
-                lines.fillColor = Color.WHITE;
-
                 if ( lines.isEmpty() && firstPoint != null ) {
                     int radius = 12;
                     g.fillArc( firstPoint.x-radius/2,firstPoint.y-radius/2,radius,radius,0,360 );
                 }
-                lines.draw( (Graphics2D) g, true, DRAW_NODES );
+                GeometryRenderer.draw( lines, (Graphics2D) g, Color.BLACK, Color.WHITE, DRAW_NODES );
             }
         };
 